@@ -0,0 +1,160 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares searching a catalog of generated song names by scanning every name, the way searches
+ * worked before the catalog had indexes, with the indexes of a {@link CatalogSnapshot}. Names have two
+ * to six words from a vocabulary where a few words are common and most are rare, like real titles.
+ * Run with the JMH runner, for example {@code java -cp <classpath> org.openjdk.jmh.Main SearchBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    private static final int VOCABULARY = 50_000;
+    private static final int MIN_WORDS = 2;
+    private static final int MAX_WORDS = 6;
+
+    @Param({"100000", "1000000"})
+    private int songs;
+
+    private List<CatalogSong> catalog;
+    private TokenIndex tokenIndex;
+    private TrigramIndex trigramIndex;
+    private FuzzyIndex fuzzyIndex;
+    private SuggestionTrie suggestionTrie;
+    private final int[] suggestions = new int[SuggestionTrie.SUGGESTIONS];
+    private List<String> commonWords;
+    private List<String> rareWords;
+    private List<String> misspelledWord;
+    private String twoLetters;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(19);
+        String[] vocabulary = new String[VOCABULARY];
+
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary[i] = word(random);
+        }
+
+        List<CatalogSong> generated = new ArrayList<>(songs);
+
+        for (int i = 0; i < songs; i++) {
+            int words = MIN_WORDS + random.nextInt(MAX_WORDS - MIN_WORDS + 1);
+            StringBuilder name = new StringBuilder();
+
+            for (int word = 0; word < words; word++) {
+                name.append(word == 0 ? "" : " ").append(vocabulary[zipf(random)]);
+            }
+
+            generated.add(new CatalogSong(name.toString(), Path.of(i + ".wav")));
+        }
+
+        catalog = generated;
+        tokenIndex = TokenIndex.build(catalog);
+        trigramIndex = TrigramIndex.build(catalog);
+        fuzzyIndex = FuzzyIndex.build(tokenIndex);
+        suggestionTrie = SuggestionTrie.build(CatalogSnapshot.of(1, Map.of(Path.of("."),
+                new CatalogDirectory(FileTime.fromMillis(0), catalog, List.of()))), name -> name.length());
+        commonWords = List.of(vocabulary[0], vocabulary[1]);
+        rareWords = List.of(vocabulary[VOCABULARY / 2], vocabulary[VOCABULARY / 3]);
+        twoLetters = vocabulary[0].substring(0, 2);
+        misspelledWord = List.of(swapFirstLetters(vocabulary[VOCABULARY / 2]));
+    }
+
+    @Benchmark
+    public int substringScan() {
+        int found = 0;
+
+        for (CatalogSong song : catalog) {
+            String name = song.name().toLowerCase();
+
+            if (commonWords.stream().anyMatch(name::contains)) {
+                found++;
+            }
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    public int[] trigramCommonWords() {
+        return trigramIndex.search(commonWords);
+    }
+
+    @Benchmark
+    public int[] trigramRareWords() {
+        return trigramIndex.search(rareWords);
+    }
+
+    @Benchmark
+    public int[] allCommonWords() {
+        return tokenIndex.all(commonWords);
+    }
+
+    @Benchmark
+    public int[] anyCommonWords() {
+        return tokenIndex.any(commonWords);
+    }
+
+    @Benchmark
+    public int[] allRareWords() {
+        return tokenIndex.all(rareWords);
+    }
+
+    @Benchmark
+    public int[] fuzzyMisspelledWord() {
+        return fuzzyIndex.search(misspelledWord);
+    }
+
+    @Benchmark
+    public int suggestTwoLetters() {
+        return suggestionTrie.suggest(twoLetters, suggestions);
+    }
+
+    @Benchmark
+    public int suggestWord() {
+        return suggestionTrie.suggest(commonWords.get(0), suggestions);
+    }
+
+    private static String swapFirstLetters(String word) {
+        return word.charAt(1) + "" + word.charAt(0) + word.substring(2);
+    }
+
+    private static int zipf(Random random) {
+        return (int) Math.min(VOCABULARY - 1, Math.floor(Math.pow(VOCABULARY, random.nextDouble())) - 1);
+    }
+
+    private static String word(Random random) {
+        char[] letters = new char[3 + random.nextInt(6)];
+
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+
+        return new String(letters);
+    }
+}
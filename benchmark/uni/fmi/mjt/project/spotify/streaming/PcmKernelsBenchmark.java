@@ -0,0 +1,108 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uni.fmi.mjt.project.spotify.dto.song.format.AudioQuality;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the transcoding kernels on a block of stereo 16-bit frames, the size {@link TranscodedSongSource}
+ * works with, and reports the time per frame. Run with the JMH runner, for example
+ * {@code java -cp <classpath> org.openjdk.jmh.Main PcmKernelsBenchmark}. The kernels work in place and
+ * have no data dependent branches, so the block isn't restored between invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PcmKernelsBenchmark {
+    private static final int FRAMES = 4096;
+    private static final int CHANNELS = 2;
+
+    private short[] samples;
+    private byte[] narrowed;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+
+        samples = new short[FRAMES * CHANNELS];
+        narrowed = new byte[FRAMES];
+
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) random.nextInt();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public short[] downmix() {
+        PcmKernels.downmix(samples, FRAMES, CHANNELS);
+
+        return samples;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public short[] decimate() {
+        PcmKernels.decimate(samples, FRAMES / 2, CHANNELS, 2);
+
+        return samples;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public byte[] narrow() {
+        PcmKernels.narrow(samples, narrowed, FRAMES);
+
+        return narrowed;
+    }
+
+    /**
+     * Runs the kernels of the quality in the order the stream applies them.
+     */
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void transcode(Tier tier, Blackhole blackhole) {
+        AudioQuality quality = tier.quality;
+        int frames = FRAMES / quality.getDecimation();
+        int channels = CHANNELS;
+
+        if (quality.isMono()) {
+            PcmKernels.downmix(samples, FRAMES, channels);
+            channels = 1;
+        }
+
+        if (quality.getDecimation() > 1) {
+            PcmKernels.decimate(samples, frames, channels, quality.getDecimation());
+        }
+
+        if (quality.isEightBit()) {
+            PcmKernels.narrow(samples, narrowed, frames * channels);
+        }
+
+        blackhole.consume(samples);
+        blackhole.consume(narrowed);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Tier {
+        @Param({"MEDIUM", "LOW", "MINIMAL"})
+        private AudioQuality quality;
+    }
+}
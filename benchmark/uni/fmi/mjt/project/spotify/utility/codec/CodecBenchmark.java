@@ -0,0 +1,118 @@
+package uni.fmi.mjt.project.spotify.utility.codec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uni.fmi.mjt.project.spotify.command.CommandType;
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the java serialization codec with the binary one. Run with the JMH runner, for example
+ * {@code java -cp <classpath> org.openjdk.jmh.Main CodecBenchmark}. The encoded size of every message
+ * is printed by {@link #main(String[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+    @Param({"SERIALIZATION", "BINARY"})
+    private CodecType codecType;
+
+    private MessageCodec codec;
+    private ClientRequest request;
+    private ServerResponse response;
+    private ServerResponse playResponse;
+    private byte[] encodedRequest;
+    private byte[] encodedResponse;
+    private byte[] encodedPlayResponse;
+
+    @Setup
+    public void setup() {
+        codec = codecType.getCodec();
+
+        request = sampleRequest();
+        response = sampleResponse();
+        playResponse = samplePlayResponse();
+
+        encodedRequest = codec.encodeRequest(request);
+        encodedResponse = codec.encodeResponse(response);
+        encodedPlayResponse = codec.encodeResponse(playResponse);
+    }
+
+    @Benchmark
+    public byte[] encodeRequest() {
+        return codec.encodeRequest(request);
+    }
+
+    @Benchmark
+    public ClientRequest decodeRequest() {
+        return codec.decodeRequest(encodedRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeResponse() {
+        return codec.encodeResponse(response);
+    }
+
+    @Benchmark
+    public ServerResponse decodeResponse() {
+        return codec.decodeResponse(encodedResponse);
+    }
+
+    @Benchmark
+    public byte[] encodePlayResponse() {
+        return codec.encodeResponse(playResponse);
+    }
+
+    @Benchmark
+    public ServerResponse decodePlayResponse() {
+        return codec.decodeResponse(encodedPlayResponse);
+    }
+
+    public static void main(String[] args) {
+        for (CodecType type : CodecType.values()) {
+            MessageCodec codec = type.getCodec();
+
+            System.out.printf("%-13s request: %4d B, search response: %4d B, play response: %4d B%n", type,
+                    codec.encodeRequest(sampleRequest()).length,
+                    codec.encodeResponse(sampleResponse()).length,
+                    codec.encodeResponse(samplePlayResponse()).length);
+        }
+    }
+
+    private static ClientRequest sampleRequest() {
+        return new ClientRequest("listener@abv.bg", "search queen rhapsody");
+    }
+
+    private static ServerResponse sampleResponse() {
+        return ServerResponse.builder(CommandType.SEARCH,
+                "These are the songs that were found using the keywords:" + System.lineSeparator() +
+                        "\tQueen - Bohemian Rhapsody" + System.lineSeparator() +
+                        "\tQueen - Another One Bites the Dust").build();
+    }
+
+    private static ServerResponse samplePlayResponse() {
+        Format format = new Format("PCM_SIGNED", 44_100.0f, 16, 2, 4, 44_100.0f, false);
+        StreamableSong song = new StreamableSong("Queen - Bohemian Rhapsody",
+                "Music/Queen - Bohemian Rhapsody.wav", format);
+
+        return ServerResponse.builder(CommandType.PLAY, "Playing song \"Queen - Bohemian Rhapsody\"")
+                .setSong(song).build();
+    }
+}
@@ -1,6 +1,16 @@
 package uni.fmi.mjt.project.spotify;
 
 import uni.fmi.mjt.project.spotify.account.Account;
+import uni.fmi.mjt.project.spotify.catalog.CatalogIndexReport;
+import uni.fmi.mjt.project.spotify.catalog.CatalogIndexer;
+import uni.fmi.mjt.project.spotify.catalog.CatalogSnapshot;
+import uni.fmi.mjt.project.spotify.catalog.CatalogSong;
+import uni.fmi.mjt.project.spotify.catalog.SearchCache;
+import uni.fmi.mjt.project.spotify.catalog.SearchKey;
+import uni.fmi.mjt.project.spotify.catalog.SearchMode;
+import uni.fmi.mjt.project.spotify.catalog.SearchPage;
+import uni.fmi.mjt.project.spotify.catalog.SongCatalog;
+import uni.fmi.mjt.project.spotify.catalog.SuggestionTrie;
 import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
 import uni.fmi.mjt.project.spotify.exception.ServerSideException;
 import uni.fmi.mjt.project.spotify.exception.SpotifyException;
@@ -12,6 +22,7 @@ import uni.fmi.mjt.project.spotify.exception.login.UserNotLoggedInException;
 import uni.fmi.mjt.project.spotify.exception.playlist.PlaylistAlreadyContainsSongException;
 import uni.fmi.mjt.project.spotify.exception.playlist.PlaylistAlreadyExistsException;
 import uni.fmi.mjt.project.spotify.exception.playlist.PlaylistDoesntExistException;
+import uni.fmi.mjt.project.spotify.utility.WavHeaderCache;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -25,18 +36,21 @@ import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-public class DefaultSpotify implements Spotify {
+public class DefaultSpotify implements Spotify, AutoCloseable {
     private static final String FILE_EXTENSION = ".txt";
 
     private static final String SONGS_DEFAULT_DIRECTORY = "Music";
@@ -47,6 +61,9 @@ public class DefaultSpotify implements Spotify {
     private static final String PASSWORD_FIELD_NAME = "password";
     private static final String SONG_FIELD_NAME = "song name";
     private static final String PLAYLIST_FIELD_NAME = "playlist name";
+    private static final String PREFIX_FIELD_NAME = "prefix";
+
+    private static final int PLAYLIST_LOCK_STRIPES = 64;
 
     private final String songsDirectory;
     private final String playlistsDirectory;
@@ -56,27 +73,62 @@ public class DefaultSpotify implements Spotify {
     private final Set<Account> accountsDataset;
     private final Set<String> loggedInAccounts;
     private final Map<String, Integer> songsPlayed;
+    private final Object[] playlistLocks;
+    private final WavHeaderCache songHeaders;
+    private final SongCatalog songCatalog;
+    private final SearchCache searchCache;
+    private final Object suggestionsLock = new Object();
+    private final Object suggestionsBuildLock = new Object();
+    private volatile SuggestionTrie suggestions;
+    private Set<String> playedDuringBuild;
 
     public DefaultSpotify(Reader accountIn, Writer accountOut) {
         accountWriter = new BufferedWriter(accountOut);
-        songsPlayed = new HashMap<>();
+        songsPlayed = new ConcurrentHashMap<>();
+        playlistLocks = createPlaylistLocks();
+        songHeaders = new WavHeaderCache();
 
         songsDirectory = SONGS_DEFAULT_DIRECTORY;
         playlistsDirectory = PLAYLISTS_DEFAULT_DIRECTORY;
+        songCatalog = SongCatalog.open(Path.of(songsDirectory));
+        searchCache = new SearchCache(SearchCache.DEFAULT_MAXIMUM_WEIGHT);
 
         accountsDataset = loadAccountsToDataset(accountIn);
-        loggedInAccounts = new HashSet<>();
+        loggedInAccounts = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * @param catalogSnapshotFile the file {@link #indexSongs} wrote on the last run, which the catalog of the
+     *                            songs is restored from
+     */
+    public DefaultSpotify(Reader accountIn, Writer accountOut, Path catalogSnapshotFile) {
+        accountWriter = new BufferedWriter(accountOut);
+        songsPlayed = new ConcurrentHashMap<>();
+        playlistLocks = createPlaylistLocks();
+        songHeaders = new WavHeaderCache();
+
+        songsDirectory = SONGS_DEFAULT_DIRECTORY;
+        playlistsDirectory = PLAYLISTS_DEFAULT_DIRECTORY;
+        songCatalog = SongCatalog.open(Path.of(songsDirectory), catalogSnapshotFile);
+        searchCache = new SearchCache(SearchCache.DEFAULT_MAXIMUM_WEIGHT);
+
+        accountsDataset = loadAccountsToDataset(accountIn);
+        loggedInAccounts = ConcurrentHashMap.newKeySet();
     }
 
     public DefaultSpotify(Reader accountIn, Writer accountOut, String songsDirectory, String playlistsDirectory) {
         accountWriter = new BufferedWriter(accountOut);
-        songsPlayed = new HashMap<>();
+        songsPlayed = new ConcurrentHashMap<>();
+        playlistLocks = createPlaylistLocks();
+        songHeaders = new WavHeaderCache();
 
         this.songsDirectory = songsDirectory;
         this.playlistsDirectory = playlistsDirectory;
+        songCatalog = SongCatalog.open(Path.of(songsDirectory));
+        searchCache = new SearchCache(SearchCache.DEFAULT_MAXIMUM_WEIGHT);
 
         accountsDataset = loadAccountsToDataset(accountIn);
-        loggedInAccounts = new HashSet<>();
+        loggedInAccounts = ConcurrentHashMap.newKeySet();
     }
 
     @Override
@@ -86,10 +138,12 @@ public class DefaultSpotify implements Spotify {
 
         Account account = new Account(email, password);
 
-        checkAccountExists(account);
-        createAccount(email, password);
+        synchronized (accountWriter) {
+            checkAccountExists(account);
+            createAccount(email, password);
 
-        accountsDataset.add(account);
+            accountsDataset.add(account);
+        }
 
         loggedInAccounts.add(email);
     }
@@ -106,7 +160,10 @@ public class DefaultSpotify implements Spotify {
         checkAccountDoesntExist(account);
         checkLoginCredentials(account);
 
-        loggedInAccounts.add(email);
+        if (!loggedInAccounts.add(email)) {
+            throw new UserAlreadyLoggedInException(
+                    "User " + email + " is already logged. Try disconnecting first.");
+        }
     }
 
     @Override
@@ -132,6 +189,42 @@ public class DefaultSpotify implements Spotify {
         return getSongsContainingKeywords(keywords);
     }
 
+    @Override
+    public Set<String> search(Collection<String> keywords, SearchMode mode, String email) throws SpotifyException {
+        if (mode == SearchMode.SUBSTRING) {
+            return search(keywords, email);
+        }
+
+        checkIsNullOrEmpty(keywords);
+
+        checkIsNotLoggedIn(email);
+
+        CatalogSnapshot catalog = songCatalog.snapshot();
+
+        return Arrays.stream(find(catalog, keywords, mode))
+                .mapToObj(id -> catalog.songs().get(id).name())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public SearchPage search(Collection<String> keywords, SearchMode mode, int offset, int limit, String email)
+            throws SpotifyException {
+        checkIsNullOrEmpty(keywords);
+        checkPage(offset, limit);
+
+        checkIsNotLoggedIn(email);
+
+        CatalogSnapshot catalog = songCatalog.snapshot();
+        int[] ids = withDistinctNames(catalog, find(catalog, keywords, mode));
+        int from = Math.min(offset, ids.length);
+
+        List<String> songs = Arrays.stream(ids, from, from + Math.min(limit, ids.length - from))
+                .mapToObj(id -> catalog.songs().get(id).name())
+                .toList();
+
+        return new SearchPage(songs, offset, ids.length);
+    }
+
     @Override
     public List<String> top(int number, String email) throws SpotifyException {
         checkNegative(number);
@@ -145,19 +238,38 @@ public class DefaultSpotify implements Spotify {
                 .toList();
     }
 
+    @Override
+    public List<String> suggest(String prefix, String email) throws SpotifyException {
+        checkIsNullEmptyOrBlank(prefix, PREFIX_FIELD_NAME);
+
+        checkIsNotLoggedIn(email);
+
+        SuggestionTrie trie = getSuggestions(songCatalog.snapshot());
+        int[] ids = new int[SuggestionTrie.SUGGESTIONS];
+        int count = trie.suggest(prefix, ids);
+
+        return Arrays.stream(ids, 0, count)
+                .mapToObj(trie::name)
+                .toList();
+    }
+
     @Override
     public void createPlaylist(String name, String email) throws SpotifyException {
         checkIsNullEmptyOrBlank(name, PLAYLIST_FIELD_NAME);
         checkIsNotLoggedIn(email);
-        checkPlaylistAlreadyExists(name);
 
-        String playListPath = String.format(PLAYLISTS_PATH_PATTERN, playlistsDirectory, name);
+        synchronized (getPlaylistLock(name)) {
+            checkPlaylistAlreadyExists(name);
 
-        try (var writer = new BufferedWriter(new FileWriter(playListPath))) {
-            writer.write(email + System.lineSeparator());
-            writer.flush();
-        } catch (IOException e) {
-            throw new UncheckedIOException("A problem occurred while creating the playlist. Please try again.", e);
+            String playListPath = String.format(PLAYLISTS_PATH_PATTERN, playlistsDirectory, name);
+
+            try (var writer = new BufferedWriter(new FileWriter(playListPath))) {
+                writer.write(email + System.lineSeparator());
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("A problem occurred while creating the playlist. Please try again.",
+                        e);
+            }
         }
     }
 
@@ -170,17 +282,20 @@ public class DefaultSpotify implements Spotify {
 
         String playlistPath = String.format(PLAYLISTS_PATH_PATTERN, playlistsDirectory, playlistName);
 
-        try (var reader = new BufferedReader(new FileReader(playlistPath));
-             var writer = new BufferedWriter(new FileWriter(playlistPath, true))) {
-            checkPlaylistAlreadyContainsSong(reader, songName);
-
-            writer.write(songName + System.lineSeparator());
-            writer.flush();
-        } catch (FileNotFoundException e) {
-            throw new PlaylistDoesntExistException("No playlist with the name '" + playlistName + "' was found", e);
-        } catch (IOException e) {
-            throw new UncheckedIOException(
-                    "A problem occurred while searching the playlist dataset. Please try again.", e);
+        synchronized (getPlaylistLock(playlistName)) {
+            try (var reader = new BufferedReader(new FileReader(playlistPath));
+                 var writer = new BufferedWriter(new FileWriter(playlistPath, true))) {
+                checkPlaylistAlreadyContainsSong(reader, songName);
+
+                writer.write(songName + System.lineSeparator());
+                writer.flush();
+            } catch (FileNotFoundException e) {
+                throw new PlaylistDoesntExistException("No playlist with the name '" + playlistName + "' was found",
+                        e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(
+                        "A problem occurred while searching the playlist dataset. Please try again.", e);
+            }
         }
     }
 
@@ -203,16 +318,82 @@ public class DefaultSpotify implements Spotify {
 
     @Override
     public StreamableSong streamSong(String songName, String email) throws SpotifyException {
+        StreamableSong song = findSong(songName, email);
 
+        synchronized (suggestionsLock) {
+            int plays = songsPlayed.merge(songName, 1, Integer::sum);
+            SuggestionTrie trie = suggestions;
+
+            if (trie != null) {
+                trie.played(songName, plays);
+            }
+
+            if (playedDuringBuild != null) {
+                playedDuringBuild.add(songName);
+            }
+        }
+
+        return song;
+    }
+
+    @Override
+    public StreamableSong findSong(String songName, String email) throws SpotifyException {
         checkIsNullEmptyOrBlank(songName, SONG_FIELD_NAME);
         checkIsNotLoggedIn(email);
 
-        StreamableSong song = new StreamableSong(songName, songsDirectory);
+        CatalogSong song = songCatalog.snapshot().find(songName);
 
-        songsPlayed.putIfAbsent(songName, 0);
-        songsPlayed.put(songName, songsPlayed.get(songName) + 1);
+        if (song != null) {
+            return StreamableSong.find(songName, song.path(), songHeaders);
+        }
 
-        return song;
+        return StreamableSong.find(songName, songsDirectory, songHeaders);
+    }
+
+    /**
+     * Reads the headers of every song in the catalog, taking those the catalog was restored with from its
+     * snapshot file, and writes the file again.
+     *
+     * @throws IOException if the snapshot file can't be written
+     */
+    public CatalogIndexReport indexSongs(Path snapshotFile) throws IOException {
+        return CatalogIndexer.index(songCatalog, songHeaders, snapshotFile);
+    }
+
+    /**
+     * Stops watching the music directory.
+     */
+    @Override
+    public void close() {
+        songCatalog.close();
+    }
+
+    /**
+     * @return the songs in the music directory, kept current as songs are added and removed
+     */
+    public SongCatalog getSongCatalog() {
+        return songCatalog;
+    }
+
+    /**
+     * @return the results of recent searches
+     */
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    /**
+     * @return the headers of the songs found so far, shared with the streams of the songs
+     */
+    public WavHeaderCache getSongHeaders() {
+        return songHeaders;
+    }
+
+    /**
+     * @return how many times the song has been played since the server started
+     */
+    public int getPlayCount(String songName) {
+        return songsPlayed.getOrDefault(songName, 0);
     }
 
     public Set<String> getLoggedInAccounts() {
@@ -225,34 +406,91 @@ public class DefaultSpotify implements Spotify {
         try (var reader = new BufferedReader(accountsIn)) {
             return reader.lines()
                     .map(Account::create)
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toCollection(ConcurrentHashMap::newKeySet));
         } catch (IOException e) {
             throw new ServerSideException("There was a problem accessing the accounts", e);
         }
     }
 
-    private Set<String> getSongsContainingKeywords(Collection<String> keywords) {
-        try (Stream<Path> songsStream = Files.walk(Path.of(songsDirectory))) {
-            return songsStream
-                    .skip(1)
-                    .map(this::getSongName)
-                    .filter(song -> doesSongContainKeyword(song.toLowerCase(), keywords))
-                    .collect(Collectors.toSet());
-        } catch (IOException e) {
-            throw new UncheckedIOException("A problem occurred while accessing the song dataset.", e);
+    /**
+     * Playlists share a fixed set of locks, picked by name, so the locks don't grow with the playlists.
+     */
+    private static Object[] createPlaylistLocks() {
+        Object[] locks = new Object[PLAYLIST_LOCK_STRIPES];
+        Arrays.setAll(locks, stripe -> new Object());
+
+        return locks;
+    }
+
+    private Object getPlaylistLock(String playlistName) {
+        return playlistLocks[Math.floorMod(playlistName.toLowerCase().hashCode(), playlistLocks.length)];
+    }
+
+    /**
+     * @return the suggestions for the catalog, built again only when songs were added or removed. Plays
+     * aren't held up by the build, the ones it may have missed are applied before the new trie is used
+     */
+    private SuggestionTrie getSuggestions(CatalogSnapshot catalog) {
+        SuggestionTrie trie = suggestions;
+
+        if (trie != null && trie.version() >= catalog.version()) {
+            return trie;
+        }
+
+        synchronized (suggestionsBuildLock) {
+            trie = suggestions;
+
+            if (trie != null && trie.version() >= catalog.version()) {
+                return trie;
+            }
+
+            synchronized (suggestionsLock) {
+                playedDuringBuild = new HashSet<>();
+            }
+
+            trie = SuggestionTrie.build(catalog, name -> songsPlayed.getOrDefault(name, 0));
+
+            synchronized (suggestionsLock) {
+                for (String name : playedDuringBuild) {
+                    trie.played(name, songsPlayed.getOrDefault(name, 0));
+                }
+
+                playedDuringBuild = null;
+                suggestions = trie;
+            }
+
+            return trie;
         }
     }
 
-    private String getSongName(Path songPath) {
-        String songName = songPath.getFileName().toString().strip();
+    private Set<String> getSongsContainingKeywords(Collection<String> keywords) {
+        CatalogSnapshot catalog = songCatalog.snapshot();
+
+        return Arrays.stream(find(catalog, keywords, SearchMode.SUBSTRING))
+                .mapToObj(id -> catalog.songs().get(id).name())
+                .collect(Collectors.toSet());
+    }
 
-        return songName.substring(0, songName.length() - StreamableSong.EXTENSION.length());
+    private int[] find(CatalogSnapshot catalog, Collection<String> keywords, SearchMode mode) {
+        return searchCache.get(SearchKey.of(mode, keywords), catalog.version(), () -> switch (mode) {
+            case SUBSTRING -> catalog.trigramIndex().search(keywords);
+            case ALL -> catalog.tokenIndex().all(keywords);
+            case ANY -> catalog.tokenIndex().any(keywords);
+            case FUZZY -> catalog.fuzzyIndex().search(keywords);
+        });
     }
 
-    private boolean doesSongContainKeyword(String songName, Collection<String> keywords) {
-        return keywords.stream()
-                .map(keyword -> keyword.strip().toLowerCase())
-                .anyMatch(songName::contains);
+    /**
+     * Leaves out songs with the same name as the one before them, which songs in different directories
+     * can have. Songs with the same name are next to each other in every order searches find songs in.
+     */
+    private int[] withDistinctNames(CatalogSnapshot catalog, int[] ids) {
+        List<CatalogSong> songs = catalog.songs();
+
+        return IntStream.range(0, ids.length)
+                .filter(i -> i == 0 || !songs.get(ids[i - 1]).name().equals(songs.get(ids[i]).name()))
+                .map(i -> ids[i])
+                .toArray();
     }
 
     private boolean doesPlaylistExists(String name) {
@@ -311,6 +549,13 @@ public class DefaultSpotify implements Spotify {
         }
     }
 
+    private void checkPage(int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("When searching, the offset can't be negative and the limit must be " +
+                    "positive.");
+        }
+    }
+
     private void checkNegative(int number) {
         if (number < 0) {
             throw new IllegalArgumentException("When trying to get the top songs, a positive number must be provided.");
@@ -1,5 +1,7 @@
 package uni.fmi.mjt.project.spotify;
 
+import uni.fmi.mjt.project.spotify.catalog.SearchMode;
+import uni.fmi.mjt.project.spotify.catalog.SearchPage;
 import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
 import uni.fmi.mjt.project.spotify.exception.SpotifyException;
 
@@ -16,8 +18,27 @@ public interface Spotify {
 
     Set<String> search(Collection<String> keywords, String email) throws SpotifyException;
 
+    /**
+     * Searches like {@link #search(Collection, String)} does in {@link SearchMode#SUBSTRING} mode and by
+     * the words of the song names in the other modes. In {@link SearchMode#FUZZY} mode the songs are
+     * ordered best match first.
+     */
+    Set<String> search(Collection<String> keywords, SearchMode mode, String email) throws SpotifyException;
+
+    /**
+     * Searches like {@link #search(Collection, SearchMode, String)} does and returns the songs found from the
+     * offset on, at most limit of them, in name order or best match first in {@link SearchMode#FUZZY} mode.
+     */
+    SearchPage search(Collection<String> keywords, SearchMode mode, int offset, int limit, String email)
+            throws SpotifyException;
+
     List<String> top(int number, String email) throws SpotifyException;
 
+    /**
+     * @return the most played songs whose names start with the prefix, ignoring case, the most played first
+     */
+    List<String> suggest(String prefix, String email) throws SpotifyException;
+
     void createPlaylist(String name, String email) throws SpotifyException;
 
     void addSongToPlaylist(String playlistName, String songName, String email) throws SpotifyException;
@@ -25,4 +46,10 @@ public interface Spotify {
     List<String> showPlaylist(String playlistName, String email) throws SpotifyException;
 
     StreamableSong streamSong(String songName, String email) throws SpotifyException;
+
+    /**
+     * Looks a song up like {@link #streamSong} does, but doesn't count it as played. Used for seeking in
+     * a song the user is already listening to.
+     */
+    StreamableSong findSong(String songName, String email) throws SpotifyException;
 }
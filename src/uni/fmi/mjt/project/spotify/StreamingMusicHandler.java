@@ -1,37 +1,75 @@
 package uni.fmi.mjt.project.spotify;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.FileInputStream;
+import uni.fmi.mjt.project.spotify.exception.ServerSideException;
+import uni.fmi.mjt.project.spotify.streaming.SongSource;
+import uni.fmi.mjt.project.spotify.streaming.StreamHandle;
+import uni.fmi.mjt.project.spotify.streaming.StreamPacer;
+
 import java.io.IOException;
-import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Streams a song to a client with {@link SongSource#transferTo}, so the bytes go from the page cache or
+ * a shared mapping to the socket without being copied through the heap. The song is sent in regions of
+ * at most {@code chunkSize} bytes. Cancelling the stream closes the socket, which ends the transfer right away.
+ * A paced stream parks its thread between chunks while it is ahead of the playback rate.
+ */
 public class StreamingMusicHandler implements Runnable {
-    private final Socket musicStreamingClientSocket;
+    private final SocketChannel musicStreamingClientChannel;
+    private final StreamHandle handle;
     private final String songPath;
-    private final int bufferSize;
+    private final int chunkSize;
+    private final StreamPacer pacer;
 
-    public StreamingMusicHandler(Socket musicStreamingClientSocket, String songPath, int bufferSize) {
-        this.musicStreamingClientSocket = musicStreamingClientSocket;
-        this.songPath = songPath;
-        this.bufferSize = bufferSize;
+    public StreamingMusicHandler(SocketChannel musicStreamingClientChannel, StreamHandle handle, int chunkSize,
+                                 StreamPacer pacer) {
+        this.musicStreamingClientChannel = musicStreamingClientChannel;
+        this.handle = handle;
+        this.songPath = handle.getSongPath();
+        this.chunkSize = chunkSize;
+        this.pacer = pacer;
     }
 
     @Override
     public void run() {
-        byte[] music = new byte[bufferSize];
-        try (var musicFile = new BufferedInputStream(new FileInputStream(songPath));
-             var send = new BufferedOutputStream(musicStreamingClientSocket.getOutputStream())) {
+        long position = handle.getStartOffset();
+        long size = 0;
+
+        handle.onCancel(this::closeChannel);
+
+        try (var send = musicStreamingClientChannel) {
+            SongSource source = handle.openSource();
 
             System.out.println("Streaming music " + songPath);
 
-            int bytesRead;
+            size = Math.min(handle.getEndOffset(), source.size());
 
-            while ((bytesRead = musicFile.read(music, 0, bufferSize)) != -1) {
-                send.write(music, 0, bytesRead);
+            while (position < size) {
+                long chunk = Math.min(chunkSize, size - position);
+                LockSupport.parkNanos(pacer.delayNanos(chunk));
+
+                long sent = source.transferTo(position, chunk, send);
+                position += sent;
+                pacer.consume(sent);
+                handle.recordSent(sent);
+            }
+        } catch (IOException e) {
+            if (!handle.isCancelled()) {
+                throw new ServerSideException("A problem occurred while streaming " + songPath, e);
             }
+
+            handle.recordCancelledBytes(Math.max(0, size - position));
+        } finally {
+            handle.release();
+        }
+    }
+
+    private void closeChannel() {
+        try {
+            musicStreamingClientChannel.close();
         } catch (IOException e) {
-            throw new RuntimeException("Stream server didnt start", e);
+            System.out.println("A problem occurred while closing a stream connection: " + e.getMessage());
         }
     }
 }
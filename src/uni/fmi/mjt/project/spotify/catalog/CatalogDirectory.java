@@ -0,0 +1,11 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * @param modified the modification time of the directory right before it was listed
+ */
+record CatalogDirectory(FileTime modified, List<CatalogSong> songs, List<Path> subdirectories) {
+}
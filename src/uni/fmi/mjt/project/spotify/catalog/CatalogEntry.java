@@ -0,0 +1,11 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import uni.fmi.mjt.project.spotify.utility.WavHeader;
+
+import java.nio.file.Path;
+
+/**
+ * @param modifiedNanos the modification time of the file in nanoseconds since the epoch
+ */
+record CatalogEntry(Path path, long size, long modifiedNanos, WavHeader header) {
+}
@@ -0,0 +1,231 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+import uni.fmi.mjt.project.spotify.utility.WavHeader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The directories and song headers of the catalog, kept on disk between runs of the server.
+ * <pre>
+ * int magic, int version, int directories, Directory * directories, int entries, Entry * entries
+ * Directory: string path, long modifiedNanos, int songs, string * songFileNames,
+ *            int subdirectories, string * subdirectoryNames
+ * Entry: string path, long size, long modifiedNanos, int blockAlign, long dataOffset, long dataLength,
+ *        byte hasFormat, [string encoding, float sampleRate, int sampleBits, int channels, int frameSize,
+ *        float frameRate, byte bigEndian]
+ * </pre>
+ * A string is its length in UTF-8 bytes as an int followed by the bytes.
+ */
+final class CatalogFile {
+    private static final int MAGIC = 0x53504354;
+    private static final int VERSION = 2;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private CatalogFile() {
+    }
+
+    /**
+     * @return the directories and entries in the file, none if there is no file or it can't be read
+     */
+    static Contents read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return Contents.EMPTY;
+        }
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+
+            if (buffer.remaining() < 3 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Contents.EMPTY;
+            }
+
+            int directoryCount = buffer.getInt();
+            Map<Path, CatalogDirectory> directories = new HashMap<>();
+
+            for (int i = 0; i < directoryCount; i++) {
+                Path path = Path.of(readString(buffer));
+                directories.put(path, readDirectory(buffer, path));
+            }
+
+            int entryCount = buffer.getInt();
+            Map<Path, CatalogEntry> entries = new HashMap<>();
+
+            for (int i = 0; i < entryCount; i++) {
+                CatalogEntry entry = readEntry(buffer);
+                entries.put(entry.path(), entry);
+            }
+
+            return new Contents(directories, entries);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            System.out.println("The catalog snapshot " + file + " couldn't be read: " + e.getMessage());
+            return Contents.EMPTY;
+        }
+    }
+
+    static void write(Path file, Map<Path, CatalogDirectory> directories, Collection<CatalogEntry> entries)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(directories.size());
+
+            for (Map.Entry<Path, CatalogDirectory> directory : directories.entrySet()) {
+                writeString(out, directory.getKey().toString());
+                writeDirectory(out, directory.getValue());
+            }
+
+            out.writeInt(entries.size());
+
+            for (CatalogEntry entry : entries) {
+                writeEntry(out, entry);
+            }
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), TEMPORARY_SUFFIX);
+
+        try {
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    private static CatalogDirectory readDirectory(ByteBuffer in, Path path) {
+        FileTime modified = FileTime.from(in.getLong(), TimeUnit.NANOSECONDS);
+        List<CatalogSong> songs = new ArrayList<>();
+        List<Path> subdirectories = new ArrayList<>();
+
+        for (int songCount = readCount(in); songCount > 0; songCount--) {
+            songs.add(CatalogSong.of(path.resolve(readString(in))));
+        }
+
+        for (int subdirectoryCount = readCount(in); subdirectoryCount > 0; subdirectoryCount--) {
+            subdirectories.add(path.resolve(readString(in)));
+        }
+
+        return new CatalogDirectory(modified, List.copyOf(songs), List.copyOf(subdirectories));
+    }
+
+    private static void writeDirectory(DataOutputStream out, CatalogDirectory directory) throws IOException {
+        out.writeLong(directory.modified().to(TimeUnit.NANOSECONDS));
+        out.writeInt(directory.songs().size());
+
+        for (CatalogSong song : directory.songs()) {
+            writeString(out, song.path().getFileName().toString());
+        }
+
+        out.writeInt(directory.subdirectories().size());
+
+        for (Path subdirectory : directory.subdirectories()) {
+            writeString(out, subdirectory.getFileName().toString());
+        }
+    }
+
+    private static int readCount(ByteBuffer in) {
+        int count = in.getInt();
+
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Invalid count " + count);
+        }
+
+        return count;
+    }
+
+    private static CatalogEntry readEntry(ByteBuffer in) {
+        Path path = Path.of(readString(in));
+        long size = in.getLong();
+        long modifiedNanos = in.getLong();
+        int blockAlign = in.getInt();
+        long dataOffset = in.getLong();
+        long dataLength = in.getLong();
+        Format format = in.get() != 0 ? readFormat(in) : null;
+
+        return new CatalogEntry(path, size, modifiedNanos, new WavHeader(blockAlign, dataOffset, dataLength, format));
+    }
+
+    private static Format readFormat(ByteBuffer in) {
+        String encoding = readString(in);
+        float sampleRate = in.getFloat();
+        int sampleBits = in.getInt();
+        int channels = in.getInt();
+        int frameSize = in.getInt();
+        float frameRate = in.getFloat();
+
+        return new Format(encoding, sampleRate, sampleBits, channels, frameSize, frameRate, in.get() != 0);
+    }
+
+    private static void writeEntry(DataOutputStream out, CatalogEntry entry) throws IOException {
+        WavHeader header = entry.header();
+        Format format = header.format();
+
+        writeString(out, entry.path().toString());
+        out.writeLong(entry.size());
+        out.writeLong(entry.modifiedNanos());
+        out.writeInt(header.blockAlign());
+        out.writeLong(header.dataOffset());
+        out.writeLong(header.dataLength());
+        out.writeBoolean(format != null);
+
+        if (format != null) {
+            writeString(out, format.getEncoding());
+            out.writeFloat(format.getSampleRate());
+            out.writeInt(format.getSampleBits());
+            out.writeInt(format.getChannels());
+            out.writeInt(format.getFrameSize());
+            out.writeFloat(format.getFrameRate());
+            out.writeBoolean(format.isBigEndian());
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @param directories the directories the songs were listed from, by path
+     * @param entries     the headers of the songs, by path
+     */
+    record Contents(Map<Path, CatalogDirectory> directories, Map<Path, CatalogEntry> entries) {
+        static final Contents EMPTY = new Contents(Map.of(), Map.of());
+    }
+}
@@ -0,0 +1,18 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+/**
+ * @param reused      the songs whose headers were taken from the catalog snapshot
+ * @param parsed      the songs that were new since the snapshot was written
+ * @param failed      the files that aren't WAV files or couldn't be read
+ * @param directories the directories taken from the catalog snapshot
+ * @param listed      the directories that were modified since the snapshot was written and were listed again
+ */
+public record CatalogIndexReport(int songs, int reused, int parsed, int failed, int directories, int listed,
+                                 long millis) {
+    @Override
+    public String toString() {
+        return "Indexed " + songs + " songs: " + reused + " from the snapshot, " + parsed + " parsed, " +
+                failed + " unreadable, " + listed + " of " + directories + " directories listed again in " +
+                millis + " ms";
+    }
+}
@@ -0,0 +1,116 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import uni.fmi.mjt.project.spotify.utility.WavHeader;
+import uni.fmi.mjt.project.spotify.utility.WavHeaderCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the headers of the catalog's songs in parallel, parsing only those missing from the snapshot the
+ * catalog was opened from. A song changed since is parsed again by the header cache once it is looked up.
+ */
+public final class CatalogIndexer {
+    private static final int SONGS_PER_TASK = 64;
+
+    private CatalogIndexer() {
+    }
+
+    /**
+     * @throws IOException if the snapshot file can't be written
+     */
+    public static CatalogIndexReport index(SongCatalog catalog, WavHeaderCache headers, Path snapshotFile)
+            throws IOException {
+        long started = System.currentTimeMillis();
+        CatalogSnapshot snapshot = catalog.snapshot();
+        List<CatalogSong> songs = snapshot.songs();
+        Map<Path, CatalogEntry> previous = catalog.takeRestoredEntries();
+        CatalogEntry[] entries = new CatalogEntry[songs.size()];
+        boolean[] reused = new boolean[songs.size()];
+
+        ForkJoinPool.commonPool().invoke(new IndexTask(songs, headers, previous, entries, reused, 0, songs.size()));
+
+        List<CatalogEntry> indexed = Arrays.stream(entries).filter(Objects::nonNull).toList();
+        int reusedCount = 0;
+
+        for (boolean isReused : reused) {
+            reusedCount += isReused ? 1 : 0;
+        }
+
+        CatalogFile.write(snapshotFile, snapshot.directories(), indexed);
+
+        return new CatalogIndexReport(songs.size(), reusedCount, indexed.size() - reusedCount,
+                songs.size() - indexed.size(), catalog.getRestoredDirectories(), catalog.getChangedDirectories(),
+                System.currentTimeMillis() - started);
+    }
+
+    private static final class IndexTask extends RecursiveAction {
+        private final List<CatalogSong> songs;
+        private final WavHeaderCache headers;
+        private final Map<Path, CatalogEntry> previous;
+        private final CatalogEntry[] entries;
+        private final boolean[] reused;
+        private final int from;
+        private final int to;
+
+        private IndexTask(List<CatalogSong> songs, WavHeaderCache headers, Map<Path, CatalogEntry> previous,
+                          CatalogEntry[] entries, boolean[] reused, int from, int to) {
+            this.songs = songs;
+            this.headers = headers;
+            this.previous = previous;
+            this.entries = entries;
+            this.reused = reused;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SONGS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    index(i);
+                }
+
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new IndexTask(songs, headers, previous, entries, reused, from, middle),
+                    new IndexTask(songs, headers, previous, entries, reused, middle, to));
+        }
+
+        private void index(int song) {
+            Path path = songs.get(song).path();
+
+            CatalogEntry entry = previous.get(path);
+
+            if (entry != null) {
+                headers.put(path, entry.header(), entry.size(),
+                        FileTime.from(entry.modifiedNanos(), TimeUnit.NANOSECONDS));
+                entries[song] = entry;
+                reused[song] = true;
+                return;
+            }
+
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                WavHeader header = headers.get(path);
+
+                entries[song] = new CatalogEntry(path, attributes.size(),
+                        attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), header);
+            } catch (IOException e) {
+                // not a song that can be played, it is reported when someone tries to
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Lists a directory tree in parallel, one fork-join task per directory.
+ */
+final class CatalogScanner {
+    private CatalogScanner() {
+    }
+
+    /**
+     * @param onDirectory called with every directory before it is listed, from any thread
+     * @throws UncheckedIOException if a directory can't be listed
+     */
+    static Map<Path, CatalogDirectory> scan(Path root, Consumer<Path> onDirectory) {
+        Map<Path, CatalogDirectory> directories = new ConcurrentHashMap<>();
+        ForkJoinPool.commonPool().invoke(new ListTask(root, onDirectory, directories));
+
+        return directories;
+    }
+
+    /**
+     * @return the songs and subdirectories of the directory, or null if it doesn't exist anymore
+     */
+    static CatalogDirectory list(Path directory) {
+        FileTime modified;
+        List<CatalogSong> songs = new ArrayList<>();
+        List<Path> subdirectories = new ArrayList<>();
+
+        try {
+            modified = Files.getLastModifiedTime(directory);
+        } catch (IOException e) {
+            return null;
+        }
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry)) {
+                    subdirectories.add(entry);
+                } else if (CatalogSong.isSong(entry) && Files.isRegularFile(entry)) {
+                    songs.add(CatalogSong.of(entry));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("A problem occurred while accessing the song dataset.", e);
+        }
+
+        return new CatalogDirectory(modified, List.copyOf(songs), List.copyOf(subdirectories));
+    }
+
+    private static final class ListTask extends RecursiveAction {
+        private final Path directory;
+        private final Consumer<Path> onDirectory;
+        private final Map<Path, CatalogDirectory> directories;
+
+        private ListTask(Path directory, Consumer<Path> onDirectory, Map<Path, CatalogDirectory> directories) {
+            this.directory = directory;
+            this.onDirectory = onDirectory;
+            this.directories = directories;
+        }
+
+        @Override
+        protected void compute() {
+            onDirectory.accept(directory);
+
+            CatalogDirectory listed = list(directory);
+
+            if (listed == null) {
+                return;
+            }
+
+            directories.put(directory, listed);
+
+            List<ListTask> subtasks = new ArrayList<>();
+
+            for (Path subdirectory : listed.subdirectories()) {
+                subtasks.add(new ListTask(subdirectory, onDirectory, directories));
+            }
+
+            invokeAll(subtasks);
+        }
+    }
+}
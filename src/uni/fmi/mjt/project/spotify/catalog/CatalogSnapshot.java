@@ -0,0 +1,160 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The songs of the catalog at one point in time. A song's position in {@link #songs()} is its id in the indexes.
+ */
+public final class CatalogSnapshot {
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, List.of(), Map.of());
+
+    private final long version;
+    private final List<CatalogSong> songs;
+    private final Map<Path, CatalogDirectory> directories;
+    private volatile TokenIndex tokenIndex;
+    private volatile TrigramIndex trigramIndex;
+    private volatile FuzzyIndex fuzzyIndex;
+
+    private CatalogSnapshot(long version, List<CatalogSong> songs, Map<Path, CatalogDirectory> directories) {
+        this.version = version;
+        this.songs = songs;
+        this.directories = directories;
+    }
+
+    static CatalogSnapshot of(long version, Map<Path, CatalogDirectory> directories) {
+        List<CatalogSong> songs = directories.values().stream()
+                .flatMap(directory -> directory.songs().stream())
+                .sorted(Comparator.comparing(CatalogSong::name).thenComparing(CatalogSong::path))
+                .toList();
+
+        return new CatalogSnapshot(version, songs, Map.copyOf(directories));
+    }
+
+    /**
+     * @return a snapshot with the same songs, version and indexes, listed from the directories
+     */
+    CatalogSnapshot withDirectories(Map<Path, CatalogDirectory> directories) {
+        CatalogSnapshot snapshot = new CatalogSnapshot(version, songs, Map.copyOf(directories));
+        snapshot.tokenIndex = tokenIndex;
+        snapshot.trigramIndex = trigramIndex;
+        snapshot.fuzzyIndex = fuzzyIndex;
+
+        return snapshot;
+    }
+
+    /**
+     * @return increased whenever songs are added to or removed from the catalog
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return every song in the catalog, ordered by name
+     */
+    public List<CatalogSong> songs() {
+        return songs;
+    }
+
+    /**
+     * @return the song with the name closest to the music directory, or null if there is none
+     */
+    public CatalogSong find(String name) {
+        int low = 0;
+        int high = songs.size();
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (songs.get(middle).name().compareTo(name) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        CatalogSong found = null;
+
+        for (int i = low; i < songs.size() && songs.get(i).name().equals(name); i++) {
+            if (found == null || songs.get(i).path().getNameCount() < found.path().getNameCount()) {
+                found = songs.get(i);
+            }
+        }
+
+        return found;
+    }
+
+    public int size() {
+        return songs.size();
+    }
+
+    /**
+     * @return the index of the words in the song names
+     */
+    public TokenIndex tokenIndex() {
+        TokenIndex index = tokenIndex;
+
+        if (index == null) {
+            synchronized (this) {
+                index = tokenIndex;
+
+                if (index == null) {
+                    index = TokenIndex.build(songs);
+                    tokenIndex = index;
+                }
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * @return the index of the substrings of the song names
+     */
+    public TrigramIndex trigramIndex() {
+        TrigramIndex index = trigramIndex;
+
+        if (index == null) {
+            synchronized (this) {
+                index = trigramIndex;
+
+                if (index == null) {
+                    index = TrigramIndex.build(songs);
+                    trigramIndex = index;
+                }
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * @return the index of the words in the song names by their misspellings
+     */
+    public FuzzyIndex fuzzyIndex() {
+        FuzzyIndex index = fuzzyIndex;
+
+        if (index == null) {
+            synchronized (this) {
+                index = fuzzyIndex;
+
+                if (index == null) {
+                    index = FuzzyIndex.build(tokenIndex());
+                    fuzzyIndex = index;
+                }
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * @return the directories the songs were listed from
+     */
+    Map<Path, CatalogDirectory> directories() {
+        return directories;
+    }
+}
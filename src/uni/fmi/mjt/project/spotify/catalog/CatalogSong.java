@@ -0,0 +1,27 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+
+import java.nio.file.Path;
+
+/**
+ * @param name the file name without its extension
+ */
+public record CatalogSong(String name, Path path) {
+    /**
+     * @return whether the file is a WAV file, whatever the case of its extension
+     */
+    public static boolean isSong(Path path) {
+        String fileName = path.getFileName().toString().strip();
+        int extension = fileName.length() - StreamableSong.EXTENSION.length();
+
+        return extension > 0 && fileName.regionMatches(true, extension, StreamableSong.EXTENSION, 0,
+                StreamableSong.EXTENSION.length());
+    }
+
+    public static CatalogSong of(Path path) {
+        String fileName = path.getFileName().toString().strip();
+
+        return new CatalogSong(fileName.substring(0, fileName.length() - StreamableSong.EXTENSION.length()), path);
+    }
+}
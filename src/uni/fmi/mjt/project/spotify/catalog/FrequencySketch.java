@@ -0,0 +1,78 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+/**
+ * A count-min sketch of 4-bit counters that estimates how often keys were seen recently.
+ */
+final class FrequencySketch {
+    private static final int COUNTERS_PER_LONG = 16;
+    private static final int COUNTER_BITS = 4;
+    private static final long MAX_COUNTER = 15;
+    private static final long HALF_MASK = 0x7777_7777_7777_7777L;
+    private static final int SAMPLE_FACTOR = 10;
+    private static final long[] SEEDS = {
+        0x97cb_3127_85c4_d2a3L, 0xb492_b66f_be98_f273L, 0x9ae1_6a3b_2f90_404fL, 0xcbf2_9ce4_8422_2325L};
+
+    private final long[] table;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedKeys) {
+        int size = Integer.highestOneBit(Math.max(expectedKeys, COUNTERS_PER_LONG) * 2 - 1);
+        table = new long[Math.max(1, size / COUNTERS_PER_LONG) * COUNTER_BITS];
+        sampleSize = SAMPLE_FACTOR * Math.max(expectedKeys, 1);
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = index(hash, i);
+            int offset = offset(hash, i);
+
+            if (((table[index] >>> offset) & MAX_COUNTER) < MAX_COUNTER) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+
+        if (added && ++additions == sampleSize) {
+            halve();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        long frequency = MAX_COUNTER;
+
+        for (int i = 0; i < SEEDS.length; i++) {
+            frequency = Math.min(frequency, (table[index(hash, i)] >>> offset(hash, i)) & MAX_COUNTER);
+        }
+
+        return (int) frequency;
+    }
+
+    private void halve() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & HALF_MASK;
+        }
+
+        additions /= 2;
+    }
+
+    private int index(int hash, int i) {
+        long mixed = (hash + SEEDS[i]) * SEEDS[i];
+        return (int) ((mixed ^ (mixed >>> 32)) & (table.length - 1));
+    }
+
+    private static int offset(int hash, int i) {
+        return ((hash >>> (i * 8)) & (COUNTERS_PER_LONG - 1)) * COUNTER_BITS;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 17;
+        hash *= 0xed5a_d4bb;
+        hash ^= hash >>> 11;
+        return hash;
+    }
+}
@@ -0,0 +1,280 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the songs whose names have words within a few edits of the words of a query.
+ */
+public final class FuzzyIndex {
+    static final int MAX_DISTANCE = 2;
+    static final int PREFIX = 7;
+    private static final int EXACT_LENGTH = 2;
+    private static final int SHORT_LENGTH = 5;
+    private static final int[] NONE = new int[0];
+
+    private final TokenIndex tokenIndex;
+    private final String[] words;
+    private final Map<String, int[]> deletes;
+
+    private FuzzyIndex(TokenIndex tokenIndex, String[] words, Map<String, int[]> deletes) {
+        this.tokenIndex = tokenIndex;
+        this.words = words;
+        this.deletes = deletes;
+    }
+
+    static FuzzyIndex build(TokenIndex tokenIndex) {
+        String[] words = tokenIndex.words().toArray(String[]::new);
+        Map<String, PostingsBuilder> builders = new HashMap<>();
+
+        for (int id = 0; id < words.length; id++) {
+            for (String delete : deletes(prefix(words[id]), MAX_DISTANCE)) {
+                builders.computeIfAbsent(delete, key -> new PostingsBuilder()).add(id);
+            }
+        }
+
+        Map<String, int[]> deletes = new HashMap<>(builders.size() * 4 / 3 + 1);
+        builders.forEach((delete, builder) -> deletes.put(delete, builder.toArray()));
+
+        return new FuzzyIndex(tokenIndex, words, deletes);
+    }
+
+    /**
+     * @return the ids of the songs with a word close to every keyword, fewest edits first
+     */
+    public int[] search(Collection<String> keywords) {
+        Matches found = null;
+
+        for (String keyword : keywords) {
+            for (String token : TokenIndex.tokens(keyword)) {
+                Matches matches = songsCloseTo(token);
+                found = found == null ? matches : found.intersect(matches);
+
+                if (found.ids.length == 0) {
+                    return NONE;
+                }
+            }
+        }
+
+        return found == null ? NONE : found.ranked();
+    }
+
+    /**
+     * @return the words of the catalog close to the word with their distance to it
+     */
+    public Map<String, Integer> wordsCloseTo(String word) {
+        int maxDistance = maxDistance(word);
+        Map<String, Integer> close = new HashMap<>();
+        BitSet checked = new BitSet(words.length);
+
+        for (String delete : deletes(prefix(word), maxDistance)) {
+            for (int id : deletes.getOrDefault(delete, NONE)) {
+                if (!checked.get(id)) {
+                    checked.set(id);
+                    int distance = distance(word, words[id], maxDistance);
+
+                    if (distance <= maxDistance) {
+                        close.put(words[id], distance);
+                    }
+                }
+            }
+        }
+
+        return close;
+    }
+
+    /**
+     * @return the songs with a word close to the word, with the fewest edits of any of their words
+     */
+    private Matches songsCloseTo(String word) {
+        int[][] byDistance = new int[maxDistance(word) + 1][];
+        Arrays.fill(byDistance, NONE);
+
+        wordsCloseTo(word).forEach((close, distance) ->
+                byDistance[distance] = TokenIndex.union(byDistance[distance], tokenIndex.postings(close)));
+
+        Matches songs = new Matches(NONE, NONE);
+
+        for (int distance = 0; distance < byDistance.length; distance++) {
+            songs = songs.with(byDistance[distance], distance);
+        }
+
+        return songs;
+    }
+
+    static int maxDistance(String word) {
+        if (word.length() <= EXACT_LENGTH) {
+            return 0;
+        }
+
+        return word.length() <= SHORT_LENGTH ? 1 : MAX_DISTANCE;
+    }
+
+    private static String prefix(String word) {
+        return word.length() > PREFIX ? word.substring(0, PREFIX) : word;
+    }
+
+    /**
+     * @return the word and every string made by deleting up to the given number of its characters
+     */
+    static Set<String> deletes(String word, int count) {
+        Set<String> deletes = new HashSet<>();
+        deletes.add(word);
+
+        List<String> current = List.of(word);
+
+        for (int round = 0; round < count; round++) {
+            List<String> next = new ArrayList<>();
+
+            for (String text : current) {
+                for (int i = 0; i < text.length(); i++) {
+                    String delete = text.substring(0, i) + text.substring(i + 1);
+
+                    if (deletes.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+
+            current = next;
+        }
+
+        return deletes;
+    }
+
+    /**
+     * @return the optimal string alignment distance, or {@code limit + 1} if it is larger
+     */
+    static int distance(String first, String second, int limit) {
+        if (Math.abs(first.length() - second.length()) > limit) {
+            return limit + 1;
+        }
+
+        int[] beforePrevious = new int[second.length() + 1];
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        Arrays.setAll(previous, j -> j);
+
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+                        && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+
+            if (rowMinimum > limit) {
+                return limit + 1;
+            }
+
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+
+        return Math.min(previous[second.length()], limit + 1);
+    }
+
+    /**
+     * Songs sorted by id, each with the edits its words are away from the words searched for.
+     */
+    private record Matches(int[] ids, int[] distances) {
+        /**
+         * @return these songs and the ones of the sorted ids that aren't among them, which get the distance
+         */
+        Matches with(int[] others, int distance) {
+            int[] mergedIds = new int[ids.length + others.length];
+            int[] mergedDistances = new int[mergedIds.length];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+
+            while (i < ids.length || j < others.length) {
+                if (j == others.length || i < ids.length && ids[i] <= others[j]) {
+                    if (j < others.length && ids[i] == others[j]) {
+                        j++;
+                    }
+
+                    mergedIds[size] = ids[i];
+                    mergedDistances[size++] = distances[i++];
+                } else {
+                    mergedIds[size] = others[j++];
+                    mergedDistances[size++] = distance;
+                }
+            }
+
+            return new Matches(Arrays.copyOf(mergedIds, size), Arrays.copyOf(mergedDistances, size));
+        }
+
+        /**
+         * @return the songs found by both, with the edits of both added up
+         */
+        Matches intersect(Matches other) {
+            int[] commonIds = new int[Math.min(ids.length, other.ids.length)];
+            int[] commonDistances = new int[commonIds.length];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+
+            while (i < ids.length && j < other.ids.length) {
+                if (ids[i] < other.ids[j]) {
+                    i++;
+                } else if (ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    commonIds[size] = ids[i];
+                    commonDistances[size++] = distances[i++] + other.distances[j++];
+                }
+            }
+
+            return new Matches(Arrays.copyOf(commonIds, size), Arrays.copyOf(commonDistances, size));
+        }
+
+        /**
+         * Orders the songs with a counting sort, as the distances are no more than a few edits per word.
+         *
+         * @return the ids by distance, and by id among songs at the same distance
+         */
+        int[] ranked() {
+            int maxDistance = 0;
+
+            for (int distance : distances) {
+                maxDistance = Math.max(maxDistance, distance);
+            }
+
+            int[] starts = new int[maxDistance + 2];
+
+            for (int distance : distances) {
+                starts[distance + 1]++;
+            }
+
+            for (int distance = 1; distance < starts.length; distance++) {
+                starts[distance] += starts[distance - 1];
+            }
+
+            int[] ranked = new int[ids.length];
+
+            for (int i = 0; i < ids.length; i++) {
+                ranked[starts[distances[i]]++] = ids[i];
+            }
+
+            return ranked;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Collects the ids of a posting list, which are added in increasing order, possibly more than once.
+ */
+final class PostingsBuilder {
+    private int[] ids = new int[2];
+    private int size;
+
+    void add(int id) {
+        if (size > 0 && ids[size - 1] == id) {
+            return;
+        }
+
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+
+        ids[size++] = id;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+}
@@ -0,0 +1,218 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the song ids found by recent searches of one catalog version, evicting them with W-TinyLFU.
+ */
+public final class SearchCache {
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 4L * 1024 * 1024;
+
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+    private static final int PERCENT = 100;
+    private static final int ENTRY_WEIGHT = 16;
+    private static final int MAX_SKETCHED_KEYS = 1 << 20;
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long mainMaximum;
+    private final long protectedMaximum;
+    private final FrequencySketch sketch;
+
+    private final Map<SearchKey, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<SearchKey, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<SearchKey, Entry> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+    private long version = -1;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumWeight how many song ids the kept results may have in total
+     */
+    public SearchCache(long maximumWeight) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("The maximum weight of the search cache must be positive");
+        }
+
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight * WINDOW_PERCENT / PERCENT);
+        this.mainMaximum = maximumWeight - windowMaximum;
+        this.protectedMaximum = mainMaximum * PROTECTED_PERCENT / PERCENT;
+        this.sketch = new FrequencySketch((int) Math.min(MAX_SKETCHED_KEYS, maximumWeight / ENTRY_WEIGHT));
+    }
+
+    /**
+     * @param search finds the ids of the songs if they aren't kept, outside of any lock
+     * @return the ids of the songs found, which must not be changed
+     */
+    public int[] get(SearchKey key, long catalogVersion, Supplier<int[]> search) {
+        synchronized (this) {
+            if (catalogVersion > version) {
+                clear();
+                version = catalogVersion;
+            }
+
+            if (catalogVersion == version) {
+                sketch.increment(key);
+
+                Entry entry = find(key);
+
+                if (entry != null) {
+                    hits.increment();
+                    return entry.ids;
+                }
+            }
+        }
+
+        misses.increment();
+
+        int[] ids = search.get();
+
+        synchronized (this) {
+            if (catalogVersion == version) {
+                add(new Entry(key, ids));
+            }
+        }
+
+        return ids;
+    }
+
+    public synchronized SearchCacheMetrics getMetrics() {
+        int entries = window.size() + probation.size() + protectedEntries.size();
+
+        return new SearchCacheMetrics(entries, windowWeight + probationWeight + protectedWeight,
+                hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private Entry find(SearchKey key) {
+        Entry entry = window.get(key);
+
+        if (entry != null) {
+            return entry;
+        }
+
+        entry = protectedEntries.get(key);
+
+        if (entry != null) {
+            return entry;
+        }
+
+        entry = probation.remove(key);
+
+        if (entry != null) {
+            probationWeight -= entry.weight;
+            protectedEntries.put(key, entry);
+            protectedWeight += entry.weight;
+
+            demoteProtected();
+        }
+
+        return entry;
+    }
+
+    private void add(Entry entry) {
+        if (entry.weight > mainMaximum || contains(entry.key)) {
+            return;
+        }
+
+        window.put(entry.key, entry);
+        windowWeight += entry.weight;
+
+        Iterator<Entry> oldest = window.values().iterator();
+
+        while (windowWeight > windowMaximum && oldest.hasNext()) {
+            Entry candidate = oldest.next();
+            oldest.remove();
+            windowWeight -= candidate.weight;
+
+            admit(candidate);
+        }
+    }
+
+    private void admit(Entry candidate) {
+        long excess = probationWeight + protectedWeight + candidate.weight - mainMaximum;
+        List<Entry> victims = new ArrayList<>();
+
+        if (excess > 0) {
+            int frequency = sketch.frequency(candidate.key);
+            Iterator<Entry> probationOldest = probation.values().iterator();
+            Iterator<Entry> protectedOldest = protectedEntries.values().iterator();
+
+            while (excess > 0) {
+                Entry victim = probationOldest.hasNext() ? probationOldest.next() : protectedOldest.next();
+
+                if (sketch.frequency(victim.key) >= frequency) {
+                    evictions.increment();
+                    return;
+                }
+
+                victims.add(victim);
+                excess -= victim.weight;
+            }
+        }
+
+        for (Entry victim : victims) {
+            if (probation.remove(victim.key) != null) {
+                probationWeight -= victim.weight;
+            } else {
+                protectedEntries.remove(victim.key);
+                protectedWeight -= victim.weight;
+            }
+
+            evictions.increment();
+        }
+
+        probation.put(candidate.key, candidate);
+        probationWeight += candidate.weight;
+    }
+
+    private void demoteProtected() {
+        Iterator<Entry> oldest = protectedEntries.values().iterator();
+
+        while (protectedWeight > protectedMaximum && oldest.hasNext()) {
+            Entry entry = oldest.next();
+            oldest.remove();
+            protectedWeight -= entry.weight;
+
+            probation.put(entry.key, entry);
+            probationWeight += entry.weight;
+        }
+    }
+
+    private boolean contains(SearchKey key) {
+        return window.containsKey(key) || probation.containsKey(key) || protectedEntries.containsKey(key);
+    }
+
+    private void clear() {
+        window.clear();
+        probation.clear();
+        protectedEntries.clear();
+        windowWeight = 0;
+        probationWeight = 0;
+        protectedWeight = 0;
+    }
+
+    private static final class Entry {
+        private final SearchKey key;
+        private final int[] ids;
+        private final long weight;
+
+        private Entry(SearchKey key, int[] ids) {
+            this.key = key;
+            this.ids = ids;
+            this.weight = ENTRY_WEIGHT + key.weight() + ids.length;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+public record SearchCacheMetrics(int entries, long weight, long hits, long misses, long evictions) {
+    public double hitRatio() {
+        long searches = hits + misses;
+
+        return searches == 0 ? 0 : (double) hits / searches;
+    }
+
+    public double missRatio() {
+        long searches = hits + misses;
+
+        return searches == 0 ? 0 : (double) misses / searches;
+    }
+
+    @Override
+    public String toString() {
+        return "entries=" + entries + ", weight=" + weight + ", hits=" + hits + ", misses=" + misses +
+                String.format(", hitRatio=%.3f, missRatio=%.3f", hitRatio(), missRatio()) + ", evictions=" + evictions;
+    }
+}
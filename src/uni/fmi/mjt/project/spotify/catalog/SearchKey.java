@@ -0,0 +1,29 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A search reduced to what its results depend on, so the same search written differently shares them.
+ */
+public record SearchKey(SearchMode mode, List<String> keywords) {
+    public static SearchKey of(SearchMode mode, Collection<String> keywords) {
+        Stream<String> normalized = mode == SearchMode.SUBSTRING
+                ? keywords.stream().map(keyword -> keyword.strip().toLowerCase())
+                : keywords.stream().flatMap(keyword -> TokenIndex.tokens(keyword).stream());
+
+        if (mode != SearchMode.FUZZY) {
+            normalized = normalized.distinct();
+        }
+
+        return new SearchKey(mode, normalized.sorted().toList());
+    }
+
+    /**
+     * @return roughly how many ids the key takes to keep, by the characters of its keywords
+     */
+    int weight() {
+        return keywords.stream().mapToInt(keyword -> 1 + keyword.length() / Integer.BYTES).sum();
+    }
+}
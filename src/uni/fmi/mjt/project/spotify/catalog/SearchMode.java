@@ -0,0 +1,26 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+/**
+ * How the keywords of a search are matched against song names.
+ */
+public enum SearchMode {
+    /**
+     * Songs whose name contains any of the keywords, as in {@code search queen rock}.
+     */
+    SUBSTRING,
+
+    /**
+     * Songs whose name has every word of the keywords, as in {@code search --all queen rock}.
+     */
+    ALL,
+
+    /**
+     * Songs whose name has any word of the keywords, as in {@code search --any queen rock}.
+     */
+    ANY,
+
+    /**
+     * Songs whose name has a word close to every keyword, as in {@code search --fuzzy bohemain}.
+     */
+    FUZZY
+}
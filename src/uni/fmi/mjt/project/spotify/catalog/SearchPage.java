@@ -0,0 +1,23 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.util.List;
+
+/**
+ * @param offset how many of the songs found come before the page
+ * @param total  how many songs the search found
+ */
+public record SearchPage(List<String> songs, int offset, int total) {
+    /**
+     * @return whether songs were found after the page
+     */
+    public boolean hasMore() {
+        return nextOffset() < total;
+    }
+
+    /**
+     * @return the offset of the page after this one
+     */
+    public int nextOffset() {
+        return offset + songs.size();
+    }
+}
@@ -0,0 +1,316 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The songs in the music directory and its subdirectories, kept current by a thread that lists again the
+ * directories a {@link WatchService} reports as changed, or that polls their modification times if there is
+ * no watch service. Reading the catalog touches neither the file system nor a lock.
+ */
+public class SongCatalog implements AutoCloseable {
+    private static final String WATCHER_THREAD_NAME = "spotify-catalog-watcher";
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private final Path root;
+    private final WatchService watcher;
+    private final Map<WatchKey, Path> watchedDirectories;
+    private final Map<Path, WatchKey> watchKeys;
+    private volatile CatalogSnapshot snapshot;
+    private volatile boolean closed;
+    private Map<Path, CatalogEntry> restoredEntries;
+    private int restoredDirectories;
+    private int changedDirectories;
+
+    private SongCatalog(Path root, WatchService watcher) {
+        this.root = root;
+        this.watcher = watcher;
+        this.watchedDirectories = new ConcurrentHashMap<>();
+        this.watchKeys = new ConcurrentHashMap<>();
+        this.snapshot = CatalogSnapshot.EMPTY;
+        this.restoredEntries = Map.of();
+    }
+
+    /**
+     * @throws UncheckedIOException if the directory can't be listed
+     */
+    public static SongCatalog open(Path root) {
+        return open(root, CatalogFile.Contents.EMPTY);
+    }
+
+    /**
+     * Starts from the directories in the snapshot file written by {@link CatalogIndexer} and lists again only
+     * those modified since, so a restart costs a stat per directory instead of a listing of the whole tree.
+     * Without a readable snapshot of the directory, the whole tree is listed.
+     *
+     * @throws UncheckedIOException if a directory can't be listed
+     */
+    public static SongCatalog open(Path root, Path snapshotFile) {
+        return open(root, CatalogFile.read(snapshotFile));
+    }
+
+    private static SongCatalog open(Path root, CatalogFile.Contents restored) {
+        SongCatalog catalog = new SongCatalog(root, Files.isDirectory(root) ? newWatchService() : null);
+
+        if (restored.directories().containsKey(root)) {
+            catalog.snapshot = CatalogSnapshot.of(1, catalog.restore(restored.directories()));
+            catalog.restoredEntries = restored.entries();
+        } else {
+            catalog.snapshot = CatalogSnapshot.of(1, CatalogScanner.scan(root, catalog::watch));
+        }
+
+        Thread.ofPlatform()
+                .name(WATCHER_THREAD_NAME)
+                .daemon()
+                .start(catalog.watcher != null ? catalog::watch : catalog::poll);
+
+        return catalog;
+    }
+
+    /**
+     * @return the songs as of the last change the watcher thread picked up
+     */
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                System.out.println("A problem occurred while closing the catalog watcher: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the song headers of the snapshot the catalog was opened from, handed out only once
+     */
+    Map<Path, CatalogEntry> takeRestoredEntries() {
+        Map<Path, CatalogEntry> entries = restoredEntries;
+        restoredEntries = Map.of();
+
+        return entries;
+    }
+
+    /**
+     * @return how many directories were taken from the snapshot the catalog was opened from
+     */
+    int getRestoredDirectories() {
+        return restoredDirectories;
+    }
+
+    /**
+     * @return how many directories were listed when the catalog was opened
+     */
+    int getChangedDirectories() {
+        return changedDirectories;
+    }
+
+    private Map<Path, CatalogDirectory> restore(Map<Path, CatalogDirectory> restored) {
+        Map<Path, CatalogDirectory> directories = new HashMap<>();
+        List<Path> changed = new ArrayList<>();
+
+        for (Map.Entry<Path, CatalogDirectory> directory : restored.entrySet()) {
+            if (!directory.getKey().startsWith(root)) {
+                continue;
+            }
+
+            directories.put(directory.getKey(), directory.getValue());
+            watch(directory.getKey());
+
+            if (!directory.getValue().modified().equals(modifiedTime(directory.getKey()))) {
+                changed.add(directory.getKey());
+            }
+        }
+
+        restoredDirectories = directories.size();
+        changedDirectories = changed.size();
+
+        for (Path directory : changed) {
+            if (directories.containsKey(directory)) {
+                list(directory, directories);
+            }
+        }
+
+        return directories;
+    }
+
+    private List<Path> staleDirectories(CatalogSnapshot current) {
+        Set<Path> candidates = new HashSet<>(current.directories().keySet());
+        candidates.add(root);
+        List<Path> stale = new ArrayList<>();
+
+        for (Path directory : candidates) {
+            CatalogDirectory listed = current.directories().get(directory);
+
+            if (!Objects.equals(modifiedTime(directory), listed == null ? null : listed.modified())) {
+                stale.add(directory);
+            }
+        }
+
+        return stale;
+    }
+
+    private void refresh(List<Path> directories, boolean force) {
+        CatalogSnapshot current = snapshot;
+        Map<Path, CatalogDirectory> updated = new HashMap<>(current.directories());
+
+        for (Path directory : directories) {
+            CatalogDirectory listed = updated.get(directory);
+
+            if (force || listed == null || !listed.modified().equals(modifiedTime(directory))) {
+                list(directory, updated);
+            }
+        }
+
+        snapshot = hasSameSongs(current.directories(), updated)
+                ? current.withDirectories(updated)
+                : CatalogSnapshot.of(current.version() + 1, updated);
+    }
+
+    private static boolean hasSameSongs(Map<Path, CatalogDirectory> current, Map<Path, CatalogDirectory> updated) {
+        return songsOf(current).equals(songsOf(updated));
+    }
+
+    private static Set<CatalogSong> songsOf(Map<Path, CatalogDirectory> directories) {
+        Set<CatalogSong> songs = new HashSet<>();
+        directories.values().forEach(directory -> songs.addAll(directory.songs()));
+
+        return songs;
+    }
+
+    private void list(Path directory, Map<Path, CatalogDirectory> directories) {
+        CatalogDirectory previous = directories.remove(directory);
+        watch(directory);
+        CatalogDirectory listed = CatalogScanner.list(directory);
+
+        if (listed == null) {
+            forget(directory, previous, directories);
+            return;
+        }
+
+        directories.put(directory, listed);
+
+        for (Path subdirectory : listed.subdirectories()) {
+            if (!directories.containsKey(subdirectory)) {
+                list(subdirectory, directories);
+            }
+        }
+
+        if (previous != null) {
+            for (Path subdirectory : previous.subdirectories()) {
+                if (!listed.subdirectories().contains(subdirectory)) {
+                    forget(subdirectory, directories.remove(subdirectory), directories);
+                }
+            }
+        }
+    }
+
+    private void forget(Path directory, CatalogDirectory listed, Map<Path, CatalogDirectory> directories) {
+        WatchKey key = watchKeys.remove(directory);
+
+        if (key != null) {
+            key.cancel();
+            watchedDirectories.remove(key);
+        }
+
+        if (listed != null) {
+            for (Path subdirectory : listed.subdirectories()) {
+                forget(subdirectory, directories.remove(subdirectory), directories);
+            }
+        }
+    }
+
+    private void watch(Path directory) {
+        if (watcher == null || watchKeys.containsKey(directory)) {
+            return;
+        }
+
+        try {
+            WatchKey key = directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+
+            watchKeys.put(directory, key);
+            watchedDirectories.put(key, directory);
+        } catch (IOException | ClosedWatchServiceException e) {
+            System.out.println("A problem occurred while watching " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                key.pollEvents();
+                key.reset();
+
+                Path directory = watchedDirectories.get(key);
+
+                if (directory != null) {
+                    refresh(List.of(directory), true);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // the catalog was closed
+        } catch (UncheckedIOException e) {
+            System.out.println("The catalog stopped watching " + root + ": " + e.getMessage());
+        }
+    }
+
+    private void poll() {
+        try {
+            while (!closed) {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+                List<Path> stale = staleDirectories(snapshot);
+
+                if (!stale.isEmpty()) {
+                    refresh(stale, false);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (UncheckedIOException e) {
+            System.out.println("The catalog stopped polling " + root + ": " + e.getMessage());
+        }
+    }
+
+    private static FileTime modifiedTime(Path directory) {
+        try {
+            return Files.getLastModifiedTime(directory);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static WatchService newWatchService() {
+        try {
+            return FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            System.out.println("Songs won't be watched for changes: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Suggests the {@value #SUGGESTIONS} most played songs whose names start with a prefix, ignoring case.
+ */
+public final class SuggestionTrie {
+    public static final int SUGGESTIONS = 10;
+    private static final int NONE = -1;
+
+    private final long version;
+    private final String[] names;
+    private final String[] lowercaseNames;
+    private final int[] plays;
+
+    private final int[] labelSong;
+    private final int[] labelStart;
+    private final int[] labelEnd;
+    private final char[] firstCharacter;
+    private final int[] childStart;
+    private final int[] childCount;
+    private final int[] top;
+    private final int nodes;
+
+    private final StampedLock lock = new StampedLock();
+
+    private SuggestionTrie(long version, String[] names, int[] plays) {
+        this.version = version;
+        this.names = names;
+        this.plays = plays;
+
+        lowercaseNames = new String[names.length];
+        Arrays.setAll(lowercaseNames, id -> lowercase(names[id]));
+
+        int capacity = Math.max(1, 2 * names.length);
+        labelSong = new int[capacity];
+        labelStart = new int[capacity];
+        labelEnd = new int[capacity];
+        firstCharacter = new char[capacity];
+        childStart = new int[capacity];
+        childCount = new int[capacity];
+        top = new int[capacity * SUGGESTIONS];
+        Arrays.fill(top, NONE);
+
+        Integer[] boxed = new Integer[names.length];
+        Arrays.setAll(boxed, id -> id);
+        Arrays.sort(boxed, (first, second) -> {
+            int compared = lowercaseNames[first].compareTo(lowercaseNames[second]);
+            return compared != 0 ? compared : Integer.compare(first, second);
+        });
+        int[] order = Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+
+        nodes = names.length == 0 ? 0 : build(order);
+    }
+
+    /**
+     * @param plays how many times a song with the given name has been played
+     */
+    public static SuggestionTrie build(CatalogSnapshot catalog, ToIntFunction<String> plays) {
+        String[] names = catalog.songs().stream()
+                .map(CatalogSong::name)
+                .distinct()
+                .toArray(String[]::new);
+        int[] counts = new int[names.length];
+
+        for (int id = 0; id < names.length; id++) {
+            counts[id] = plays.applyAsInt(names[id]);
+        }
+
+        return new SuggestionTrie(catalog.version(), names, counts);
+    }
+
+    /**
+     * @return the version of the catalog the trie was built from
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return the name with the id
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return how many ids of suggested songs were put into the array, the most played first
+     */
+    public int suggest(CharSequence prefix, int[] into) {
+        long stamp = lock.tryOptimisticRead();
+        int count = read(prefix, into);
+
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+
+            try {
+                count = read(prefix, into);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Records that the song with the name has now been played the given number of times, no less than before.
+     */
+    public void played(String name, int count) {
+        int id = Arrays.binarySearch(names, name);
+
+        if (id < 0) {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+
+        try {
+            plays[id] = Math.max(plays[id], count);
+            offerAlongPath(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the number of nodes of the trie
+     */
+    public int size() {
+        return nodes;
+    }
+
+    private int read(CharSequence prefix, int[] into) {
+        int node = find(prefix);
+
+        if (node == NONE) {
+            return 0;
+        }
+
+        int count = 0;
+
+        while (count < SUGGESTIONS && count < into.length) {
+            int id = top[node * SUGGESTIONS + count];
+
+            if (id == NONE) {
+                break;
+            }
+
+            into[count++] = id;
+        }
+
+        return count;
+    }
+
+    private int find(CharSequence prefix) {
+        if (nodes == 0) {
+            return NONE;
+        }
+
+        int node = 0;
+        int typed = 0;
+
+        while (true) {
+            String label = lowercaseNames[labelSong[node]];
+
+            for (int i = labelStart[node]; i < labelEnd[node]; i++, typed++) {
+                if (typed == prefix.length()) {
+                    return node;
+                }
+
+                if (label.charAt(i) != Character.toLowerCase(prefix.charAt(typed))) {
+                    return NONE;
+                }
+            }
+
+            if (typed == prefix.length()) {
+                return node;
+            }
+
+            node = child(node, Character.toLowerCase(prefix.charAt(typed)));
+
+            if (node == NONE) {
+                return NONE;
+            }
+        }
+    }
+
+    private int child(int node, char character) {
+        int low = childStart[node];
+        int high = low + childCount[node] - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if (firstCharacter[middle] < character) {
+                low = middle + 1;
+            } else if (firstCharacter[middle] > character) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return NONE;
+    }
+
+    private void offerAlongPath(int id) {
+        String name = lowercaseNames[id];
+        int node = 0;
+
+        while (true) {
+            offer(node, id);
+
+            if (labelEnd[node] == name.length()) {
+                return;
+            }
+
+            node = child(node, name.charAt(labelEnd[node]));
+        }
+    }
+
+    private void offer(int node, int id) {
+        int from = node * SUGGESTIONS;
+        int position = from;
+        int end = from + SUGGESTIONS;
+
+        while (position < end && top[position] != NONE && top[position] != id) {
+            position++;
+        }
+
+        if (position == end) {
+            if (!isBetter(id, top[end - 1])) {
+                return;
+            }
+
+            position = end - 1;
+        }
+
+        while (position > from && (top[position - 1] == NONE || isBetter(id, top[position - 1]))) {
+            top[position] = top[position - 1];
+            position--;
+        }
+
+        top[position] = id;
+    }
+
+    private boolean isBetter(int first, int second) {
+        return plays[first] > plays[second] || plays[first] == plays[second] && first < second;
+    }
+
+    private int build(int[] order) {
+        int[] from = new int[labelSong.length];
+        int[] to = new int[labelSong.length];
+        int count = 1;
+
+        from[0] = 0;
+        to[0] = order.length;
+        labelStart[0] = 0;
+
+        for (int node = 0; node < count; node++) {
+            String first = lowercaseNames[order[from[node]]];
+            String last = lowercaseNames[order[to[node] - 1]];
+            int end = labelStart[node];
+
+            while (end < first.length() && end < last.length() && first.charAt(end) == last.charAt(end)) {
+                end++;
+            }
+
+            labelSong[node] = order[from[node]];
+            labelEnd[node] = end;
+            childStart[node] = count;
+
+            int i = from[node];
+
+            while (i < to[node]) {
+                if (lowercaseNames[order[i]].length() == end) {
+                    offer(node, order[i++]);
+                    continue;
+                }
+
+                char character = lowercaseNames[order[i]].charAt(end);
+                int groupEnd = i;
+
+                while (groupEnd < to[node] && lowercaseNames[order[groupEnd]].charAt(end) == character) {
+                    groupEnd++;
+                }
+
+                firstCharacter[count] = character;
+                labelStart[count] = end;
+                from[count] = i;
+                to[count] = groupEnd;
+                count++;
+                i = groupEnd;
+            }
+
+            childCount[node] = count - childStart[node];
+        }
+
+        for (int node = count - 1; node >= 0; node--) {
+            for (int child = childStart[node]; child < childStart[node] + childCount[node]; child++) {
+                for (int slot = child * SUGGESTIONS; slot < (child + 1) * SUGGESTIONS && top[slot] != NONE; slot++) {
+                    offer(node, top[slot]);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static String lowercase(String name) {
+        char[] characters = name.toCharArray();
+
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = Character.toLowerCase(characters[i]);
+        }
+
+        return new String(characters);
+    }
+}
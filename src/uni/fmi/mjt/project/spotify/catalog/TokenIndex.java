@@ -0,0 +1,187 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An inverted index from the lowercased words of song names to the sorted ids of the songs that have them.
+ */
+public final class TokenIndex {
+    private static final int[] NONE = new int[0];
+
+    private final Map<String, int[]> postings;
+
+    private TokenIndex(Map<String, int[]> postings) {
+        this.postings = postings;
+    }
+
+    static TokenIndex build(List<CatalogSong> songs) {
+        Map<String, PostingsBuilder> builders = new HashMap<>();
+
+        for (int id = 0; id < songs.size(); id++) {
+            for (String token : tokens(songs.get(id).name())) {
+                builders.computeIfAbsent(token, key -> new PostingsBuilder()).add(id);
+            }
+        }
+
+        Map<String, int[]> postings = new HashMap<>(builders.size() * 4 / 3 + 1);
+        builders.forEach((token, builder) -> postings.put(token, builder.toArray()));
+
+        return new TokenIndex(postings);
+    }
+
+    /**
+     * @return the words of the text in order, lowercased
+     */
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        String lowercase = text.toLowerCase();
+        int start = -1;
+
+        for (int i = 0; i <= lowercase.length(); i++) {
+            boolean wordCharacter = i < lowercase.length() && Character.isLetterOrDigit(lowercase.charAt(i));
+
+            if (wordCharacter && start < 0) {
+                start = i;
+            } else if (!wordCharacter && start >= 0) {
+                tokens.add(lowercase.substring(start, i));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    /**
+     * @return the sorted ids of the songs that have the word
+     */
+    public int[] postings(String token) {
+        return postings.getOrDefault(token, NONE);
+    }
+
+    /**
+     * @return the sorted ids of the songs that have every word of the keywords, none if the keywords have no words
+     */
+    public int[] all(Collection<String> keywords) {
+        List<int[]> lists = lists(keywords);
+
+        if (lists.isEmpty()) {
+            return NONE;
+        }
+
+        lists.sort(Comparator.comparingInt(list -> list.length));
+
+        int[] result = lists.get(0);
+
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the sorted ids of the songs that have any word of the keywords
+     */
+    public int[] any(Collection<String> keywords) {
+        int[] result = NONE;
+
+        for (int[] list : lists(keywords)) {
+            result = union(result, list);
+        }
+
+        return result;
+    }
+
+    public int size() {
+        return postings.size();
+    }
+
+    /**
+     * @return every word of the song names
+     */
+    Set<String> words() {
+        return postings.keySet();
+    }
+
+    private List<int[]> lists(Collection<String> keywords) {
+        List<int[]> lists = new ArrayList<>();
+
+        for (String keyword : keywords) {
+            for (String token : tokens(keyword)) {
+                lists.add(postings(token));
+            }
+        }
+
+        return lists;
+    }
+
+    static int[] intersect(int[] shorter, int[] longer) {
+        int[] result = new int[shorter.length];
+        int size = 0;
+        int low = 0;
+
+        for (int id : shorter) {
+            int step = 1;
+            int high = low;
+
+            while (high < longer.length && longer[high] < id) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+
+            int found = Arrays.binarySearch(longer, low, Math.min(high + 1, longer.length), id);
+
+            if (found >= 0) {
+                result[size++] = id;
+                low = found + 1;
+            } else {
+                low = -found - 1;
+            }
+
+            if (low >= longer.length) {
+                break;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    static int[] union(int[] first, int[] second) {
+        int[] result = new int[first.length + second.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+
+        while (i < first.length && j < second.length) {
+            int next = Math.min(first[i], second[j]);
+
+            if (first[i] == next) {
+                i++;
+            }
+
+            if (second[j] == next) {
+                j++;
+            }
+
+            result[size++] = next;
+        }
+
+        while (i < first.length) {
+            result[size++] = first[i++];
+        }
+
+        while (j < second.length) {
+            result[size++] = second[j++];
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,136 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the three character substrings of the lowercased song names, for substring searches.
+ */
+public final class TrigramIndex {
+    private static final int[] NONE = new int[0];
+    private static final int GRAM = 3;
+    private static final int CHARACTER_BITS = Character.SIZE + 1;
+    private static final long LAST_CHARACTER = (1L << CHARACTER_BITS) - 1;
+
+    private final String[] names;
+    private final long[] grams;
+    private final int[][] postings;
+
+    private TrigramIndex(String[] names, long[] grams, int[][] postings) {
+        this.names = names;
+        this.grams = grams;
+        this.postings = postings;
+    }
+
+    static TrigramIndex build(List<CatalogSong> songs) {
+        String[] names = new String[songs.size()];
+        Map<Long, PostingsBuilder> builders = new HashMap<>();
+
+        for (int id = 0; id < names.length; id++) {
+            names[id] = songs.get(id).name().toLowerCase();
+
+            for (int i = 0; i < names[id].length(); i++) {
+                builders.computeIfAbsent(gram(names[id], i), key -> new PostingsBuilder()).add(id);
+            }
+        }
+
+        long[] grams = builders.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int[][] postings = new int[grams.length][];
+
+        for (int i = 0; i < grams.length; i++) {
+            postings[i] = builders.get(grams[i]).toArray();
+        }
+
+        return new TrigramIndex(names, grams, postings);
+    }
+
+    /**
+     * @return the sorted ids of the songs whose lowercased name contains any of the keywords
+     */
+    public int[] search(Collection<String> keywords) {
+        int[] result = NONE;
+
+        for (String keyword : keywords) {
+            result = TokenIndex.union(result, search(keyword.strip().toLowerCase()));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of distinct grams
+     */
+    public int size() {
+        return grams.length;
+    }
+
+    private int[] search(String keyword) {
+        if (keyword.isEmpty()) {
+            int[] all = new int[names.length];
+            Arrays.setAll(all, id -> id);
+            return all;
+        }
+
+        int[] candidates = keyword.length() < GRAM ? withPrefix(keyword) : withGrams(keyword);
+        int size = 0;
+
+        for (int id : candidates) {
+            if (names[id].contains(keyword)) {
+                candidates[size++] = id;
+            }
+        }
+
+        return Arrays.copyOf(candidates, size);
+    }
+
+    private int[] withGrams(String keyword) {
+        int[][] lists = new int[keyword.length() - GRAM + 1][];
+
+        for (int i = 0; i < lists.length; i++) {
+            int found = Arrays.binarySearch(grams, gram(keyword, i));
+
+            if (found < 0) {
+                return NONE;
+            }
+
+            lists[i] = postings[found];
+        }
+
+        Arrays.sort(lists, (first, second) -> Integer.compare(first.length, second.length));
+
+        int[] result = lists[0].clone();
+
+        for (int i = 1; i < lists.length && result.length > 0; i++) {
+            result = TokenIndex.intersect(result, lists[i]);
+        }
+
+        return result;
+    }
+
+    private int[] withPrefix(String keyword) {
+        int shift = CHARACTER_BITS * (GRAM - keyword.length());
+        long low = gram(keyword, 0);
+        long high = low | ((1L << shift) - 1);
+        int from = Arrays.binarySearch(grams, low);
+        int[] result = NONE;
+
+        for (int i = from < 0 ? -from - 1 : from; i < grams.length && grams[i] <= high; i++) {
+            result = TokenIndex.union(result, postings[i]);
+        }
+
+        return result;
+    }
+
+    private static long gram(String text, int from) {
+        long gram = 0;
+
+        for (int i = from; i < from + GRAM; i++) {
+            gram = (gram << CHARACTER_BITS) | (i < text.length() ? (text.charAt(i) + 1) & LAST_CHARACTER : 0);
+        }
+
+        return gram;
+    }
+}
@@ -1,8 +1,23 @@
 package uni.fmi.mjt.project.spotify.client;
 
+import uni.fmi.mjt.project.spotify.dto.song.format.AudioQuality;
+import uni.fmi.mjt.project.spotify.utility.codec.CodecType;
+
 public class ClientStarter {
+    private static final String CODEC_PROPERTY = "spotify.codec";
+    private static final String DEFAULT_CODEC = "binary";
+    private static final String TRANSPORT_PROPERTY = "spotify.transport";
+    private static final String DEFAULT_TRANSPORT = "socket";
+    private static final String QUALITY_PROPERTY = "spotify.quality";
+    private static final String DEFAULT_QUALITY = "high";
+    private static final String LOSSLESS_PROPERTY = "spotify.lossless";
+
     public static void main(String[] args) {
-        SpotifyClient client = new SpotifyClient();
+        CodecType codecType = CodecType.fromName(System.getProperty(CODEC_PROPERTY, DEFAULT_CODEC));
+        StreamTransport transport = StreamTransport.fromName(System.getProperty(TRANSPORT_PROPERTY, DEFAULT_TRANSPORT));
+        AudioQuality quality = AudioQuality.fromName(System.getProperty(QUALITY_PROPERTY, DEFAULT_QUALITY));
+        boolean lossless = Boolean.getBoolean(LOSSLESS_PROPERTY);
+        SpotifyClient client = new SpotifyClient(codecType.getCodec(), transport, quality, lossless);
 
         client.start();
     }
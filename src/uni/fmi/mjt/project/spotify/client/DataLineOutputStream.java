@@ -0,0 +1,25 @@
+package uni.fmi.mjt.project.spotify.client;
+
+import javax.sound.sampled.SourceDataLine;
+import java.io.OutputStream;
+
+/**
+ * Plays the bytes written to it on a data line, blocking while the line's buffer is full.
+ */
+class DataLineOutputStream extends OutputStream {
+    private final SourceDataLine line;
+
+    DataLineOutputStream(SourceDataLine line) {
+        this.line = line;
+    }
+
+    @Override
+    public void write(int b) {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        line.write(bytes, offset, length);
+    }
+}
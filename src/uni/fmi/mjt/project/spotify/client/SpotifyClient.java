@@ -1,11 +1,18 @@
 package uni.fmi.mjt.project.spotify.client;
 
 import uni.fmi.mjt.project.spotify.command.CommandType;
+import uni.fmi.mjt.project.spotify.command.PlayOptions;
 import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
 import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+import uni.fmi.mjt.project.spotify.dto.song.format.AudioQuality;
 import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+import uni.fmi.mjt.project.spotify.dto.song.format.StreamEncoding;
 import uni.fmi.mjt.project.spotify.utility.ErrorLogger;
-import uni.fmi.mjt.project.spotify.utility.ObjectByteConvertor;
+import uni.fmi.mjt.project.spotify.utility.Frame;
+import uni.fmi.mjt.project.spotify.utility.MessageFrame;
+import uni.fmi.mjt.project.spotify.utility.StreamToken;
+import uni.fmi.mjt.project.spotify.utility.codec.MessageCodec;
+import uni.fmi.mjt.project.spotify.utility.lossless.LosslessDecoder;
 
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.DataLine;
@@ -14,14 +21,16 @@ import javax.sound.sampled.SourceDataLine;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 
 public class SpotifyClient {
     private static final String ERROR_LOGS_PATH = "Error_logs" + File.separator + "client_%s_error_logs.txt";
@@ -29,14 +38,52 @@ public class SpotifyClient {
     private static final int STREAM_PORT = 44_445;
     private static final String HOST = "localhost";
     private static final int BUFFER_SIZE = 1024;
-    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
-    private SourceDataLine dataLine = null;
+    private static final String READER_THREAD_NAME = "spotify-server-reader";
+    private static final ServerResponse CONNECTION_LOST =
+            ServerResponse.builder(CommandType.ERROR, "Server closed the connection").build();
+    private final MessageCodec codec;
+    private final StreamTransport transport;
+    private final AudioQuality quality;
+    private final boolean lossless;
+    private final BlockingQueue<ServerResponse> replies;
+    private volatile SourceDataLine dataLine = null;
+    private OutputStream audioOutput = null;
     private String user = "";
 
+    public SpotifyClient(MessageCodec codec) {
+        this(codec, StreamTransport.SOCKET);
+    }
+
+    public SpotifyClient(MessageCodec codec, StreamTransport transport) {
+        this(codec, transport, AudioQuality.HIGH);
+    }
+
+    public SpotifyClient(MessageCodec codec, StreamTransport transport, AudioQuality quality) {
+        this(codec, transport, quality, false);
+    }
+
+    /**
+     * @param quality  the quality songs are requested in, see {@link AudioQuality}
+     * @param lossless whether songs are requested in the lossless codec, which needs less bandwidth
+     *                 but has to be decoded
+     */
+    public SpotifyClient(MessageCodec codec, StreamTransport transport, AudioQuality quality, boolean lossless) {
+        this.codec = codec;
+        this.transport = transport;
+        this.quality = quality;
+        this.lossless = lossless;
+        this.replies = new LinkedBlockingQueue<>();
+    }
+
     public void start() {
         try (SocketChannel socketChannel = SocketChannel.open()) {
             connectClientToServer(socketChannel);
 
+            Thread.ofPlatform()
+                    .name(READER_THREAD_NAME)
+                    .daemon()
+                    .start(() -> readFromServer(socketChannel));
+
             communicateWithServer(socketChannel);
         } catch (UncheckedIOException e) {
             System.out.println(e.getMessage());
@@ -84,15 +131,21 @@ public class SpotifyClient {
 
                 if (response.getType().equals(CommandType.LOGIN) || response.getType().equals(CommandType.REGISTER)) {
                     user = response.getEmail();
-                } else if (response.getType().equals(CommandType.PLAY)) {
+                } else if (startsSong(response.getType()) && transport == StreamTransport.SOCKET) {
                     stopSongIfNeeded();
                     Format songFormat = response.getSong().getFormat();
-                    executor.submit(() -> streamSong(songFormat));
+                    String streamToken = response.getStreamToken();
+                    StreamEncoding encoding = response.getStreamEncoding();
+                    executor.submit(() -> streamSong(songFormat, streamToken, encoding));
                 }
             }
         }
     }
 
+    private boolean startsSong(CommandType type) {
+        return type.equals(CommandType.PLAY) || type.equals(CommandType.SEEK);
+    }
+
     private String readClientInput(Scanner scanner) {
         String input = "";
 
@@ -104,44 +157,161 @@ public class SpotifyClient {
     }
 
     private ServerResponse sendServerRequest(SocketChannel socketChannel, String commandMessage) {
-        ClientRequest input = new ClientRequest(user, commandMessage);
-        writeToServer(socketChannel, ObjectByteConvertor.convertObjectToByteArray(input));
+        ClientRequest input = new ClientRequest(user, addStreamOptions(commandMessage));
+        writeToServer(socketChannel, codec.encodeRequest(input));
 
-        return (ServerResponse) ObjectByteConvertor.convertByteArrayToObject(getServerReply(socketChannel));
+        return getServerReply();
+    }
+
+    private String addStreamOptions(String commandMessage) {
+        String commandName = commandMessage.strip().split(" ", 2)[0];
+
+        boolean startsSong = commandName.equalsIgnoreCase(CommandType.PLAY.name()) ||
+                commandName.equalsIgnoreCase(CommandType.SEEK.name());
+
+        if (!startsSong) {
+            return commandMessage;
+        }
+
+        String message = commandMessage;
+
+        if (transport == StreamTransport.MULTIPLEXED) {
+            message += " " + PlayOptions.MULTIPLEXED;
+        }
+
+        if (quality != AudioQuality.HIGH) {
+            message += " " + PlayOptions.QUALITY + quality.name().toLowerCase();
+        }
+
+        if (lossless) {
+            message += " " + PlayOptions.LOSSLESS;
+        }
+
+        return message;
     }
 
     private void writeToServer(SocketChannel socketChannel, byte[] bytes) {
         try {
-            buffer.clear();
-            buffer.put(bytes);
-            buffer.flip();
-            socketChannel.write(buffer);
+            MessageFrame.writeFrame(socketChannel, bytes);
         } catch (IOException e) {
             throw new UncheckedIOException(
                     "There was a problem with the server receiving data! Please restart and try again.", e);
         }
     }
 
-    private byte[] getServerReply(SocketChannel socketChannel) {
+    private ServerResponse getServerReply() {
         try {
-            buffer.clear();
-            socketChannel.read(buffer);
-            buffer.flip();
+            ServerResponse reply = replies.take();
 
-            byte[] reply = new byte[buffer.remaining()];
-            buffer.get(reply);
+            if (reply == CONNECTION_LOST) {
+                throw new IOException(CONNECTION_LOST.getMessage());
+            }
 
             return reply;
         } catch (IOException e) {
             throw new UncheckedIOException(
                     "There was a problem with retrieving data from the server! Please restart and try again.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while waiting for the server", e);
+        }
+    }
+
+    /**
+     * Reads every frame the server sends: responses are handed to the thread waiting for them and audio
+     * frames of a multiplexed song go straight to the data line.
+     */
+    private void readFromServer(SocketChannel socketChannel) {
+        try {
+            Frame frame;
+
+            while ((frame = MessageFrame.readFrame(socketChannel)) != null) {
+                switch (frame.type()) {
+                    case MessageFrame.TYPE_MESSAGE -> receiveReply(codec.decodeResponse(frame.payload()));
+                    case MessageFrame.TYPE_AUDIO -> playAudio(frame.payload());
+                    case MessageFrame.TYPE_AUDIO_END -> finishAudio();
+                    default -> throw new IOException("Server sent a frame of unknown type " + frame.type());
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            if (socketChannel.isOpen()) {
+                ErrorLogger.writeErrorLogsToFile(e, String.format(ERROR_LOGS_PATH, user));
+            }
+        } finally {
+            replies.add(CONNECTION_LOST);
+        }
+    }
+
+    private void receiveReply(ServerResponse reply) {
+        if (transport == StreamTransport.MULTIPLEXED && startsSong(reply.getType())) {
+            startMultiplexedSong(reply.getSong().getFormat(), reply.getStreamEncoding());
+        }
+
+        replies.add(reply);
+    }
+
+    /**
+     * Switches the data line before the response is handed over, as the first audio frames of the song
+     * follow right after it.
+     */
+    private void startMultiplexedSong(Format format, StreamEncoding encoding) {
+        closeDataLine(dataLine);
+
+        try {
+            SourceDataLine line = getDataLine(format);
+
+            line.open();
+            line.start();
+
+            audioOutput = getAudioOutput(line, format, encoding);
+            dataLine = line;
+        } catch (IOException | LineUnavailableException e) {
+            System.out.println("The song couldn't be played on this device");
+        }
+    }
+
+    private void playAudio(byte[] audio) {
+        SourceDataLine line = dataLine;
+
+        if (line != null && line.isOpen()) {
+            try {
+                audioOutput.write(audio);
+            } catch (IOException e) {
+                System.out.println("The song couldn't be decoded: " + e.getMessage());
+                closeDataLine(line);
+            }
+        }
+    }
+
+    private void finishAudio() {
+        SourceDataLine line = dataLine;
+
+        if (line != null) {
+            Thread.ofVirtual().start(() -> {
+                line.drain();
+                closeDataLine(line);
+            });
+        }
+    }
+
+    private synchronized void closeDataLine(SourceDataLine line) {
+        if (line != null && line == dataLine) {
+            dataLine = null;
+            line.close();
         }
     }
 
     private boolean stopSongIfNeeded() {
-        if (dataLine != null && dataLine.isRunning()) {
-            dataLine.stop();
-            dataLine.flush();
+        SourceDataLine line = dataLine;
+
+        if (line != null && line.isRunning()) {
+            line.stop();
+            line.flush();
+
+            if (transport == StreamTransport.MULTIPLEXED) {
+                closeDataLine(line);
+            }
 
             return true;
         }
@@ -155,19 +325,32 @@ public class SpotifyClient {
         return (SourceDataLine) AudioSystem.getLine(info);
     }
 
-    private void streamSong(Format format) {
+    /**
+     * @return where the bytes of a stream go to be played, through a decoder if they are encoded
+     */
+    private OutputStream getAudioOutput(SourceDataLine line, Format format, StreamEncoding encoding) {
+        OutputStream output = new DataLineOutputStream(line);
+
+        return encoding == StreamEncoding.LOSSLESS ? new LosslessDecoder(format, output) : output;
+    }
+
+    private void streamSong(Format format, String streamToken, StreamEncoding encoding) {
         try (var streamSocket = new Socket(HOST, STREAM_PORT)) {
+            streamSocket.getOutputStream().write(StreamToken.toBytes(streamToken).array());
+
             dataLine = getDataLine(format);
 
             dataLine.open();
             dataLine.start();
 
+            OutputStream output = getAudioOutput(dataLine, format, encoding);
+
             try (var reader = new BufferedInputStream(streamSocket.getInputStream())) {
                 byte[] music = new byte[BUFFER_SIZE];
                 int readBytes;
 
                 while ((readBytes = reader.read(music)) != -1) {
-                    dataLine.write(music, 0, readBytes);
+                    output.write(music, 0, readBytes);
                 }
 
                 dataLine = null;
@@ -0,0 +1,22 @@
+package uni.fmi.mjt.project.spotify.client;
+
+public enum StreamTransport {
+    /**
+     * Every song is received on its own connection to the stream port.
+     */
+    SOCKET,
+
+    /**
+     * Songs are received as audio frames on the command connection, between the responses.
+     */
+    MULTIPLEXED;
+
+    public static StreamTransport fromName(String name) {
+        try {
+            return StreamTransport.valueOf(name.strip().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown stream transport '" + name + "', expected one of socket, " +
+                    "multiplexed", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package uni.fmi.mjt.project.spotify.command;
 
 import uni.fmi.mjt.project.spotify.Spotify;
+import uni.fmi.mjt.project.spotify.catalog.SearchPage;
 import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
 import uni.fmi.mjt.project.spotify.exception.ServerSideException;
 import uni.fmi.mjt.project.spotify.exception.login.UserAlreadyLoggedInException;
@@ -17,13 +18,20 @@ import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 public class CommandExecutor {
+    /**
+     * How many songs a search shows at most, however many it finds or are asked for, so that a broad search
+     * can't build a huge response.
+     */
+    public static final int MAX_SEARCH_RESULTS = 100;
+
     private static final String ERROR_MESSAGE_PATTERN = "There was an error!" + System.lineSeparator() + "%s";
     private static final String ERROR_MESSAGE_INSUFFICIENT_ARGUMENTS = "Insufficient arguments when trying to %s, " +
             "expected %d argument\\s: %s";
+    private static final String SEARCH_MORE_PATTERN = "Showing %d-%d of %d songs, search with %s%d for more";
+
     private final Spotify spotify;
 
     public CommandExecutor(Spotify spotify) {
@@ -37,11 +45,13 @@ public class CommandExecutor {
             case LOGIN -> login(command.arguments());
             case DISCONNECT -> disconnect(email);
             case SEARCH -> search(command.arguments(), email);
+            case SUGGEST -> suggest(command.arguments(), email);
             case TOP -> top(command.arguments(), email);
             case CREATE_PLAYLIST -> createPlaylist(command.arguments(), email);
             case ADD_SONG_TO -> addSongToPlaylist(command.arguments(), email);
             case SHOW_PLAYLIST -> showPlaylist(command.arguments(), email);
             case PLAY -> play(command.arguments(), email);
+            case SEEK -> seek(command.arguments(), email);
             case STOP -> stop();
             default -> ServerResponse.builder(CommandType.ERROR, "Not a valid command").build();
         };
@@ -117,8 +127,17 @@ public class CommandExecutor {
         return ServerResponse.builder(CommandType.DISCONNECT, "Disconnected").build();
     }
 
-    private ServerResponse search(List<String> keywords, String email) {
-        if (keywords.isEmpty()) {
+    private ServerResponse search(List<String> arguments, String email) {
+        SearchOptions options;
+
+        try {
+            options = SearchOptions.from(arguments);
+        } catch (IllegalArgumentException e) {
+            return ServerResponse.builder(CommandType.ERROR,
+                    String.format(ERROR_MESSAGE_PATTERN, e.getMessage())).build();
+        }
+
+        if (options.keywords().isEmpty()) {
             String errorMessage = String.format(ERROR_MESSAGE_INSUFFICIENT_ARGUMENTS,
                     "search for songs", 1, "keywords");
 
@@ -126,19 +145,30 @@ public class CommandExecutor {
                     String.format(ERROR_MESSAGE_PATTERN, errorMessage)).build();
         }
 
+        int limit = options.limit() == SearchOptions.DEFAULT_LIMIT
+                ? MAX_SEARCH_RESULTS
+                : Math.min(options.limit(), MAX_SEARCH_RESULTS);
+
         CommandType type;
         String message;
 
         try {
-            Set<String> songs = this.spotify.search(keywords, email);
+            SearchPage page = this.spotify.search(options.keywords(), options.mode(), options.offset(), limit, email);
 
             type = CommandType.SEARCH;
 
-            if (songs.isEmpty()) {
+            if (page.total() == 0) {
                 message = "No songs were found containing the keywords";
+            } else if (page.songs().isEmpty()) {
+                message = "No more songs were found, the search found " + page.total();
             } else {
                 message = "These are the songs that were found using the keywords:" +
-                        System.lineSeparator() + '\t' + getCollectionAsString(songs);
+                        System.lineSeparator() + '\t' + getCollectionAsString(page.songs());
+            }
+
+            if (page.hasMore()) {
+                message += System.lineSeparator() + String.format(SEARCH_MORE_PATTERN,
+                        page.offset() + 1, page.nextOffset(), page.total(), SearchOptions.OFFSET, page.nextOffset());
             }
         } catch (IllegalArgumentException | UserNotLoggedInException e) {
             type = CommandType.ERROR;
@@ -150,6 +180,41 @@ public class CommandExecutor {
         return ServerResponse.builder(type, message).build();
     }
 
+    private ServerResponse suggest(List<String> arguments, String email) {
+        if (arguments.isEmpty()) {
+            String errorMessage = String.format(ERROR_MESSAGE_INSUFFICIENT_ARGUMENTS,
+                    "suggest songs", 1, "beginning of a song name");
+
+            return ServerResponse.builder(CommandType.ERROR,
+                    String.format(ERROR_MESSAGE_PATTERN, errorMessage)).build();
+        }
+
+        String prefix = String.join(" ", arguments);
+
+        CommandType type;
+        String message;
+
+        try {
+            List<String> songs = this.spotify.suggest(prefix, email);
+
+            type = CommandType.SUGGEST;
+
+            if (songs.isEmpty()) {
+                message = "No songs start with '" + prefix + "'";
+            } else {
+                message = "Songs starting with '" + prefix + "':" +
+                        System.lineSeparator() + '\t' + getCollectionAsString(songs);
+            }
+        } catch (IllegalArgumentException | UserNotLoggedInException e) {
+            type = CommandType.ERROR;
+            message = String.format(ERROR_MESSAGE_PATTERN, e.getMessage());
+        } catch (Exception e) {
+            throw new ServerSideException("A problem occurred while trying to suggest songs", e);
+        }
+
+        return ServerResponse.builder(type, message).build();
+    }
+
     private ServerResponse top(List<String> arguments, String email) {
         if (arguments.isEmpty()) {
             String errorMessage = String.format(ERROR_MESSAGE_INSUFFICIENT_ARGUMENTS,
@@ -295,6 +360,7 @@ public class CommandExecutor {
         String songName = arguments.get(0).strip();
 
         try {
+            PlayOptions.from(new Command(CommandType.PLAY, arguments));
             StreamableSong song = spotify.streamSong(songName, email);
 
             String message = "Playing song \"" + songName + "\"";
@@ -308,6 +374,33 @@ public class CommandExecutor {
         }
     }
 
+    private ServerResponse seek(List<String> arguments, String email) {
+        if (arguments.size() < 2) {
+            String errorMessage = String.format(ERROR_MESSAGE_INSUFFICIENT_ARGUMENTS,
+                    "seek in a song", 2, "song name and time");
+
+            return ServerResponse.builder(CommandType.ERROR,
+                    String.format(ERROR_MESSAGE_PATTERN, errorMessage)).build();
+        }
+
+        String songName = arguments.get(0).strip();
+        String time = arguments.get(1).strip();
+
+        try {
+            PlayOptions.from(new Command(CommandType.SEEK, arguments));
+            StreamableSong song = spotify.findSong(songName, email);
+
+            String message = "Playing song \"" + songName + "\" from " + time;
+
+            return ServerResponse.builder(CommandType.SEEK, message).setSong(song).build();
+        } catch (IllegalArgumentException | UserNotLoggedInException | SongDoesntExistException e) {
+            return ServerResponse.builder(CommandType.ERROR,
+                    String.format(ERROR_MESSAGE_PATTERN, e.getMessage())).build();
+        } catch (Exception e) {
+            throw new ServerSideException("A problem occurred while trying to seek in a song", e);
+        }
+    }
+
     private ServerResponse stop() {
         return ServerResponse.builder(CommandType.STOP, "Song stopped").build();
     }
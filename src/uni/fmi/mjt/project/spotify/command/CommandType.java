@@ -1,15 +1,50 @@
 package uni.fmi.mjt.project.spotify.command;
 
+/**
+ * The type of a command and of its response. Every type has a fixed code it is sent as in binary messages,
+ * so clients and servers of different versions agree on the types they both know.
+ */
 public enum CommandType {
-    REGISTER,
-    LOGIN,
-    DISCONNECT,
-    SEARCH,
-    TOP,
-    CREATE_PLAYLIST,
-    ADD_SONG_TO,
-    SHOW_PLAYLIST,
-    PLAY,
-    STOP,
-    ERROR
+    REGISTER(0),
+    LOGIN(1),
+    DISCONNECT(2),
+    SEARCH(3),
+    TOP(4),
+    CREATE_PLAYLIST(5),
+    ADD_SONG_TO(6),
+    SHOW_PLAYLIST(7),
+    PLAY(8),
+    STOP(9),
+    ERROR(10),
+    SEEK(11),
+    SUGGEST(12);
+
+    private static final CommandType[] BY_CODE = new CommandType[values().length];
+
+    static {
+        for (CommandType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    CommandType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no type has the code
+     */
+    public static CommandType fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("Unknown command type " + code);
+        }
+
+        return BY_CODE[code];
+    }
 }
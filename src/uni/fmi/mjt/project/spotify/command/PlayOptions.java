@@ -0,0 +1,85 @@
+package uni.fmi.mjt.project.spotify.command;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.AudioQuality;
+
+import java.util.List;
+
+/**
+ * Options of a command that starts a stream, given after its positional arguments, e.g.
+ * {@code play "Rock Star" --multiplexed} or {@code seek "Rock Star" 1:30 --quality=low --lossless}.
+ * Unknown options are ignored, so older servers and clients keep understanding each other.
+ *
+ * @param startSeconds where in the song the stream starts, in seconds of playback
+ * @param quality      the tier the song is transcoded to before it is streamed
+ * @param lossless     whether the client can decode the lossless codec, which the song is sent in if it
+ *                     isn't transcoded
+ */
+public record PlayOptions(boolean multiplexed, double startSeconds, AudioQuality quality, boolean lossless) {
+    public static final String MULTIPLEXED = "--multiplexed";
+    public static final String QUALITY = "--quality=";
+    public static final String LOSSLESS = "--lossless";
+
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int MAX_TIME_PARTS = 3;
+
+    /**
+     * @throws IllegalArgumentException if the seek time or the quality is malformed
+     */
+    public static PlayOptions from(Command command) {
+        List<String> arguments = command.arguments();
+        boolean seek = command.type() == CommandType.SEEK;
+        int positional = seek ? 2 : 1;
+
+        boolean multiplexed = false;
+        AudioQuality quality = AudioQuality.HIGH;
+        boolean lossless = false;
+
+        for (String argument : arguments.subList(Math.min(positional, arguments.size()), arguments.size())) {
+            String option = argument.strip();
+
+            if (option.equalsIgnoreCase(MULTIPLEXED)) {
+                multiplexed = true;
+            } else if (option.regionMatches(true, 0, QUALITY, 0, QUALITY.length())) {
+                quality = AudioQuality.fromName(option.substring(QUALITY.length()));
+            } else if (option.equalsIgnoreCase(LOSSLESS)) {
+                lossless = true;
+            }
+        }
+
+        double startSeconds = seek && arguments.size() >= 2 ? parseTime(arguments.get(1)) : 0;
+
+        return new PlayOptions(multiplexed, startSeconds, quality, lossless);
+    }
+
+    /**
+     * Parses a time given as seconds ({@code 95.5}), minutes and seconds ({@code 1:35.5}) or hours,
+     * minutes and seconds ({@code 1:01:35}).
+     *
+     * @throws IllegalArgumentException if the time is malformed or negative
+     */
+    public static double parseTime(String time) {
+        String[] parts = time.strip().split(":");
+
+        if (parts.length > MAX_TIME_PARTS) {
+            throw new IllegalArgumentException("Invalid time \"" + time + "\", expected seconds or m:ss");
+        }
+
+        double seconds = 0;
+
+        try {
+            for (String part : parts) {
+                double value = Double.parseDouble(part);
+
+                if (value < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+                    throw new NumberFormatException();
+                }
+
+                seconds = seconds * SECONDS_PER_MINUTE + value;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time \"" + time + "\", expected seconds or m:ss", e);
+        }
+
+        return seconds;
+    }
+}
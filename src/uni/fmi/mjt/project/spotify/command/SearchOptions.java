@@ -0,0 +1,69 @@
+package uni.fmi.mjt.project.spotify.command;
+
+import uni.fmi.mjt.project.spotify.catalog.SearchMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options of a search, given among its keywords, e.g. {@code search --all queen rock --offset=20}. Without
+ * any the search matches song names containing any of the keywords and shows the first page of them.
+ *
+ * @param mode     how the keywords are matched
+ * @param keywords the arguments of the search that aren't options
+ * @param offset   how many of the songs found to skip
+ * @param limit    how many of the songs found to show at most, {@link #DEFAULT_LIMIT} for as many as the
+ *                 server shows
+ */
+public record SearchOptions(SearchMode mode, List<String> keywords, int offset, int limit) {
+    public static final String ALL = "--all";
+    public static final String ANY = "--any";
+    public static final String FUZZY = "--fuzzy";
+    public static final String OFFSET = "--offset=";
+    public static final String LIMIT = "--limit=";
+    public static final int DEFAULT_LIMIT = 0;
+
+    /**
+     * @throws IllegalArgumentException if the offset is negative or the limit isn't positive
+     */
+    public static SearchOptions from(List<String> arguments) {
+        SearchMode mode = SearchMode.SUBSTRING;
+        List<String> keywords = new ArrayList<>();
+        int offset = 0;
+        int limit = DEFAULT_LIMIT;
+
+        for (String argument : arguments) {
+            String option = argument.strip();
+
+            if (option.equalsIgnoreCase(ALL)) {
+                mode = SearchMode.ALL;
+            } else if (option.equalsIgnoreCase(ANY)) {
+                mode = SearchMode.ANY;
+            } else if (option.equalsIgnoreCase(FUZZY)) {
+                mode = SearchMode.FUZZY;
+            } else if (option.regionMatches(true, 0, OFFSET, 0, OFFSET.length())) {
+                offset = parseNumber(option.substring(OFFSET.length()), 0, "offset");
+            } else if (option.regionMatches(true, 0, LIMIT, 0, LIMIT.length())) {
+                limit = parseNumber(option.substring(LIMIT.length()), 1, "limit");
+            } else {
+                keywords.add(argument);
+            }
+        }
+
+        return new SearchOptions(mode, keywords, offset, limit);
+    }
+
+    private static int parseNumber(String number, int minimum, String name) {
+        try {
+            int value = Integer.parseInt(number);
+
+            if (value >= minimum) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + " \"" + number + "\", expected a number", e);
+        }
+
+        throw new IllegalArgumentException("Invalid " + name + " \"" + number + "\", expected at least " + minimum);
+    }
+}
@@ -2,6 +2,7 @@ package uni.fmi.mjt.project.spotify.dto.response;
 
 import uni.fmi.mjt.project.spotify.command.CommandType;
 import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+import uni.fmi.mjt.project.spotify.dto.song.format.StreamEncoding;
 
 import java.io.Serializable;
 
@@ -11,12 +12,16 @@ public class ServerResponse implements Serializable {
 
     private final String email;
     private final StreamableSong song;
+    private final String streamToken;
+    private final StreamEncoding streamEncoding;
 
     private ServerResponse(ResponseBuilder builder) {
         this.type = builder.type;
         this.message = builder.message;
         this.email = builder.email;
         this.song = builder.song;
+        this.streamToken = builder.streamToken;
+        this.streamEncoding = builder.streamEncoding;
     }
 
     public String getMessage() {
@@ -35,21 +40,45 @@ public class ServerResponse implements Serializable {
         return song;
     }
 
+    public String getStreamToken() {
+        return streamToken;
+    }
+
+    public StreamEncoding getStreamEncoding() {
+        return streamEncoding;
+    }
+
     public static ResponseBuilder builder(CommandType type, String message) {
         return new ResponseBuilder(type, message);
     }
 
+    public ResponseBuilder toBuilder() {
+        return new ResponseBuilder(type, message)
+                .setEmail(email)
+                .setSong(song)
+                .setStreamToken(streamToken)
+                .setStreamEncoding(streamEncoding);
+    }
+
     public static class ResponseBuilder implements Serializable {
         private final CommandType type;
-        private final String message;
+        private String message;
         private String email = "";
         private StreamableSong song = null;
+        private String streamToken = null;
+        private StreamEncoding streamEncoding = StreamEncoding.PCM;
 
         private ResponseBuilder(CommandType type, String message) {
             this.type = type;
             this.message = message;
         }
 
+        public ResponseBuilder setMessage(String message) {
+            this.message = message;
+
+            return this;
+        }
+
         public ResponseBuilder setEmail(String email) {
             this.email = email;
 
@@ -62,6 +91,18 @@ public class ServerResponse implements Serializable {
             return this;
         }
 
+        public ResponseBuilder setStreamToken(String streamToken) {
+            this.streamToken = streamToken;
+
+            return this;
+        }
+
+        public ResponseBuilder setStreamEncoding(StreamEncoding streamEncoding) {
+            this.streamEncoding = streamEncoding;
+
+            return this;
+        }
+
         public ServerResponse build() {
             return new ServerResponse(this);
         }
@@ -2,13 +2,13 @@ package uni.fmi.mjt.project.spotify.dto.song;
 
 import uni.fmi.mjt.project.spotify.dto.song.format.Format;
 import uni.fmi.mjt.project.spotify.exception.song.SongDoesntExistException;
+import uni.fmi.mjt.project.spotify.utility.WavHeader;
+import uni.fmi.mjt.project.spotify.utility.WavHeaderCache;
 
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Path;
 
 public class StreamableSong implements Serializable {
     public static final String EXTENSION = ".wav";
@@ -19,15 +19,21 @@ public class StreamableSong implements Serializable {
 
     public StreamableSong(String name, String songsDirectory) throws SongDoesntExistException {
         this.name = name;
-        this.path = String.format(SONG_PATH_PATTERN, songsDirectory, name);
+        this.path = pathOf(name, songsDirectory);
 
         try {
-            this.format = getSongFormat(this.path);
-        } catch (IOException | UnsupportedAudioFileException e) {
-            throw new SongDoesntExistException("Sorry, song " + name + " doesn't exist in the dataset!", e);
+            this.format = formatOf(name, WavHeader.read(Path.of(path)));
+        } catch (IOException e) {
+            throw doesntExist(name, e);
         }
     }
 
+    public StreamableSong(String name, String path, Format format) {
+        this.name = name;
+        this.path = path;
+        this.format = format;
+    }
+
     public String getName() {
         return name;
     }
@@ -40,9 +46,44 @@ public class StreamableSong implements Serializable {
         return format;
     }
 
-    private Format getSongFormat(String path) throws UnsupportedAudioFileException, IOException {
-        AudioFormat audioFormat = AudioSystem.getAudioInputStream(new File(path)).getFormat();
+    /**
+     * Finds the song in the directory through the cached headers, so a known song is found without
+     * opening its file.
+     *
+     * @throws SongDoesntExistException if there is no such song or it isn't in a format that can be played
+     */
+    public static StreamableSong find(String name, String songsDirectory, WavHeaderCache headers)
+            throws SongDoesntExistException {
+        return find(name, Path.of(pathOf(name, songsDirectory)), headers);
+    }
+
+    /**
+     * Finds the song in the file, for a song listed in a subdirectory of the music directory.
+     *
+     * @throws SongDoesntExistException if there is no such file or it isn't in a format that can be played
+     */
+    public static StreamableSong find(String name, Path path, WavHeaderCache headers)
+            throws SongDoesntExistException {
+        try {
+            return new StreamableSong(name, path.toString(), formatOf(name, headers.get(path)));
+        } catch (IOException e) {
+            throw doesntExist(name, e);
+        }
+    }
+
+    public static String pathOf(String name, String songsDirectory) {
+        return String.format(SONG_PATH_PATTERN, songsDirectory, name);
+    }
+
+    private static Format formatOf(String name, WavHeader header) throws SongDoesntExistException {
+        if (header.format() == null) {
+            throw doesntExist(name, null);
+        }
+
+        return header.format();
+    }
 
-        return new Format(audioFormat);
+    private static SongDoesntExistException doesntExist(String name, Exception cause) {
+        return new SongDoesntExistException("Sorry, song " + name + " doesn't exist in the dataset!", cause);
     }
 }
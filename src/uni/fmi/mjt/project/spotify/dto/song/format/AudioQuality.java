@@ -0,0 +1,95 @@
+package uni.fmi.mjt.project.spotify.dto.song.format;
+
+/**
+ * The quality a song is streamed in. The lower tiers are transcoded from the original PCM on the fly
+ * and need a fraction of its bandwidth: mono halves a stereo song, 8-bit samples halve it again and
+ * the lowest tier also halves the sample rate, the only resampling there is. Only 16-bit signed PCM
+ * is transcoded, songs in any other format are always streamed as they are.
+ */
+public enum AudioQuality {
+    /**
+     * The original format of the song.
+     */
+    HIGH(false, false, 1),
+
+    /**
+     * The channels are mixed down to one.
+     */
+    MEDIUM(true, false, 1),
+
+    /**
+     * Mono with 8-bit samples.
+     */
+    LOW(true, true, 1),
+
+    /**
+     * Mono with 8-bit samples at half the sample rate.
+     */
+    MINIMAL(true, true, 2);
+
+    private static final String PCM_SIGNED = "PCM_SIGNED";
+    private static final int TRANSCODED_SAMPLE_BITS = 16;
+    private static final int NARROW_SAMPLE_BITS = 8;
+
+    private final boolean mono;
+    private final boolean eightBit;
+    private final int decimation;
+
+    AudioQuality(boolean mono, boolean eightBit, int decimation) {
+        this.mono = mono;
+        this.eightBit = eightBit;
+        this.decimation = decimation;
+    }
+
+    public boolean isMono() {
+        return mono;
+    }
+
+    public boolean isEightBit() {
+        return eightBit;
+    }
+
+    /**
+     * @return how many frames of the original are averaged into one streamed frame
+     */
+    public int getDecimation() {
+        return decimation;
+    }
+
+    /**
+     * @return true if a song in the format has to be transcoded to be streamed in this quality
+     */
+    public boolean transcodes(Format format) {
+        if (format == null || !PCM_SIGNED.equals(format.getEncoding()) ||
+                format.getSampleBits() != TRANSCODED_SAMPLE_BITS ||
+                format.getFrameSize() != format.getChannels() * Short.BYTES) {
+            return false;
+        }
+
+        return mono && format.getChannels() > 1 || eightBit || decimation > 1;
+    }
+
+    /**
+     * @return the format a song in the given format is streamed in
+     */
+    public Format transform(Format format) {
+        if (!transcodes(format)) {
+            return format;
+        }
+
+        int channels = mono ? 1 : format.getChannels();
+        int sampleBits = eightBit ? NARROW_SAMPLE_BITS : TRANSCODED_SAMPLE_BITS;
+
+        return new Format(PCM_SIGNED, format.getSampleRate() / decimation, sampleBits, channels,
+                channels * sampleBits / Byte.SIZE, format.getFrameRate() / decimation, format.isBigEndian());
+    }
+
+    public static AudioQuality fromName(String name) {
+        try {
+            return AudioQuality.valueOf(name.strip().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown quality '" + name + "', expected one of high, medium, " +
+                    "low, minimal", e);
+        }
+    }
+}
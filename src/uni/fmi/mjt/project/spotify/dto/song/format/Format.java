@@ -2,6 +2,7 @@ package uni.fmi.mjt.project.spotify.dto.song.format;
 
 import javax.sound.sampled.AudioFormat;
 import java.io.Serializable;
+import java.util.Objects;
 
 public class Format implements Serializable {
     private final String encoding;
@@ -22,6 +23,77 @@ public class Format implements Serializable {
         this.isBigEndian = audioFormat.isBigEndian();
     }
 
+    public Format(String encoding, float sampleRate, int sampleBits, int channels, int frameSize, float frameRate,
+                  boolean isBigEndian) {
+        this.encoding = encoding;
+        this.sampleRate = sampleRate;
+        this.sampleBits = sampleBits;
+        this.channels = channels;
+        this.frameSize = frameSize;
+        this.frameRate = frameRate;
+        this.isBigEndian = isBigEndian;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public float getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getSampleBits() {
+        return sampleBits;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public float getFrameRate() {
+        return frameRate;
+    }
+
+    public boolean isBigEndian() {
+        return isBigEndian;
+    }
+
+    /**
+     * @return the number of bytes played per second or 0 if the format doesn't define a frame rate
+     */
+    public long getByteRate() {
+        if (frameRate <= 0 || frameSize <= 0) {
+            return 0;
+        }
+
+        return (long) (frameRate * frameSize);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof Format format)) {
+            return false;
+        }
+
+        return Float.compare(sampleRate, format.sampleRate) == 0 && sampleBits == format.sampleBits &&
+                channels == format.channels && frameSize == format.frameSize &&
+                Float.compare(frameRate, format.frameRate) == 0 && isBigEndian == format.isBigEndian &&
+                Objects.equals(encoding, format.encoding);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(encoding, sampleRate, sampleBits, channels, frameSize, frameRate, isBigEndian);
+    }
+
     public AudioFormat getAsAudioFormat() {
         return new AudioFormat(new AudioFormat.Encoding(encoding), this.sampleRate, this.sampleBits,
                 this.channels, this.frameSize, this.frameRate, this.isBigEndian);
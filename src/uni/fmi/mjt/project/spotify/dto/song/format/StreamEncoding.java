@@ -0,0 +1,16 @@
+package uni.fmi.mjt.project.spotify.dto.song.format;
+
+/**
+ * How the samples of a song are encoded on the stream, in the format the play response carries.
+ */
+public enum StreamEncoding {
+    /**
+     * The samples as they are played.
+     */
+    PCM,
+
+    /**
+     * Blocks of the lossless codec, which the client decodes back into the samples.
+     */
+    LOSSLESS
+}
@@ -0,0 +1,177 @@
+package uni.fmi.mjt.project.spotify.server;
+
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+import uni.fmi.mjt.project.spotify.streaming.MultiplexedStream;
+import uni.fmi.mjt.project.spotify.streaming.PacingPolicy;
+import uni.fmi.mjt.project.spotify.streaming.StreamHandle;
+import uni.fmi.mjt.project.spotify.utility.Frame;
+import uni.fmi.mjt.project.spotify.utility.MessageFrame;
+import uni.fmi.mjt.project.spotify.utility.codec.MessageCodec;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves a single command connection with blocking I/O. Meant to run on its own virtual thread, so
+ * requests of one client are naturally executed and answered in order.
+ * <p>
+ * A multiplexed song is written by a second virtual thread, one audio frame at a time. Both threads
+ * write whole frames under a fair lock, so a response waits for at most one audio frame. A paced song
+ * parks its thread, without holding the lock, while it is ahead of its playback rate.
+ */
+public class BlockingClientHandler implements Runnable {
+    private final SocketChannel clientChannel;
+    private final MessageCodec codec;
+    private final RequestHandler handler;
+    private final int streamChunkSize;
+    private final PacingPolicy pacing;
+    private final Lock writeLock;
+    private MultiplexedStream audioStream;
+
+    public BlockingClientHandler(SocketChannel clientChannel, MessageCodec codec, RequestHandler handler,
+                                 int streamChunkSize, PacingPolicy pacing) {
+        this.clientChannel = clientChannel;
+        this.codec = codec;
+        this.handler = handler;
+        this.streamChunkSize = streamChunkSize;
+        this.pacing = pacing;
+        this.writeLock = new ReentrantLock(true);
+    }
+
+    @Override
+    public void run() {
+        try (clientChannel) {
+            Frame frame;
+
+            while ((frame = MessageFrame.readFrame(clientChannel)) != null) {
+                if (!frame.isMessage()) {
+                    throw new IllegalArgumentException("Clients may only send message frames, got type " +
+                            frame.type());
+                }
+
+                ClientRequest request = codec.decodeRequest(frame.payload());
+                RequestContext context = new RequestContext();
+                ServerResponse response = handler.handle(request, context);
+
+                respond(codec.encodeResponse(response), context.getMultiplexedStream());
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Client sent a malformed frame: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Connection to a client was lost: " + e.getMessage());
+        } finally {
+            cancelAudioStream();
+        }
+
+        System.out.println("Client has disconnected");
+    }
+
+    private void respond(byte[] response, StreamHandle multiplexedStream) throws IOException {
+        writeLock.lock();
+
+        try {
+            MessageFrame.writeFrame(clientChannel, response);
+
+            if (multiplexedStream != null) {
+                cancelAudioStream();
+                startAudioStream(multiplexedStream);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void startAudioStream(StreamHandle handle) {
+        try {
+            MultiplexedStream stream = new MultiplexedStream(handle, streamChunkSize,
+                    handle.createPacer(pacing, streamChunkSize));
+            audioStream = stream;
+            handle.onCancel(() -> cancelAudioStream(stream));
+
+            Thread.ofVirtual().start(() -> sendAudio(stream));
+        } catch (IOException e) {
+            System.out.println("A problem occurred while opening " + handle.getSongPath() + ": " + e.getMessage());
+            handle.release();
+        }
+    }
+
+    private void cancelAudioStream(MultiplexedStream stream) {
+        writeLock.lock();
+
+        try {
+            if (!stream.isFinished()) {
+                stream.getHandle().recordCancelledBytes(stream.remaining());
+                stream.cancel();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void cancelAudioStream() {
+        writeLock.lock();
+
+        try {
+            if (audioStream != null) {
+                audioStream.cancel();
+                audioStream = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void sendAudio(MultiplexedStream stream) {
+        try {
+            do {
+                long pause;
+
+                while ((pause = stream.pauseNanos()) > 0) {
+                    LockSupport.parkNanos(pause);
+                }
+            } while (writeAudioFrame(stream));
+        } catch (IOException e) {
+            System.out.println("A problem occurred while streaming " + stream.getSongPath() + ": " + e.getMessage());
+            stream.close();
+            closeChannel();
+        }
+    }
+
+    /**
+     * A frame that couldn't be written completely leaves the connection out of frame, so it is closed.
+     */
+    private void closeChannel() {
+        try {
+            clientChannel.close();
+        } catch (IOException e) {
+            System.out.println("A problem occurred while closing a client connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The channel blocks until the peer takes the whole frame, so the frame is written in one call.
+     *
+     * @return true if the stream has more frames to send
+     */
+    private boolean writeAudioFrame(MultiplexedStream stream) throws IOException {
+        writeLock.lock();
+
+        try {
+            if (stream.isFinished()) {
+                return false;
+            }
+
+            if (!stream.writeFrame(clientChannel)) {
+                throw new IOException("The song ended before its audio frame was written");
+            }
+
+            return !stream.isFinished();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package uni.fmi.mjt.project.spotify.server;
+
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.streaming.MultiplexedStream;
+import uni.fmi.mjt.project.spotify.streaming.PacingPolicy;
+import uni.fmi.mjt.project.spotify.streaming.StreamHandle;
+import uni.fmi.mjt.project.spotify.utility.Frame;
+import uni.fmi.mjt.project.spotify.utility.FrameDecoder;
+import uni.fmi.mjt.project.spotify.utility.MessageFrame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Per-connection state of the command channel: the partially received frames, the requests waiting
+ * for their turn on the worker pool and the frames that are waiting for the socket to become writable
+ * again. Only the owning event loop thread touches this state.
+ * <p>
+ * A connection can also carry a song as audio frames. Queued responses always go before the next audio
+ * frame, so a reply is delayed by at most the audio frame that is already on its way. A paced song that
+ * is ahead of its playback rate waits for a timer of the event loop instead of OP_WRITE.
+ */
+public class ClientConnection {
+    private final SocketChannel channel;
+    private final EventLoop eventLoop;
+    private final FrameDecoder decoder;
+    private final Queue<ByteBuffer> pendingWrites;
+    private final Deque<QueuedRequest> pendingRequests;
+    private final int streamChunkSize;
+    private final PacingPolicy pacing;
+    private SelectionKey key;
+    private int queuedRequests;
+    private boolean busy;
+    private boolean resumeScheduled;
+    private MultiplexedStream audioStream;
+    private MultiplexedStream nextAudioStream;
+
+    public ClientConnection(SocketChannel channel, EventLoop eventLoop, int streamChunkSize, PacingPolicy pacing) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.streamChunkSize = streamChunkSize;
+        this.pacing = pacing;
+        this.decoder = new FrameDecoder();
+        this.pendingWrites = new ArrayDeque<>();
+        this.pendingRequests = new ArrayDeque<>();
+        this.busy = false;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public EventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    public SelectionKey getKey() {
+        return key;
+    }
+
+    public void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    public boolean isBusy() {
+        return busy;
+    }
+
+    public void setBusy(boolean busy) {
+        this.busy = busy;
+    }
+
+    public void queueRequest(ClientRequest request) {
+        pendingRequests.add(new QueuedRequest(request));
+        queuedRequests++;
+    }
+
+    /**
+     * Queues the turn of a request that is answered with an error instead of being executed, so its reply
+     * still goes out after the replies of the requests sent before it.
+     */
+    public void queueRejection() {
+        QueuedRequest last = pendingRequests.peekLast();
+
+        if (last != null && last.request == null) {
+            last.rejections++;
+        } else {
+            QueuedRequest rejection = new QueuedRequest(null);
+            rejection.rejections = 1;
+            pendingRequests.add(rejection);
+        }
+    }
+
+    /**
+     * @return how many rejected requests were at the head of the queue
+     */
+    public int pollRejections() {
+        QueuedRequest first = pendingRequests.peek();
+
+        if (first == null || first.request != null) {
+            return 0;
+        }
+
+        pendingRequests.poll();
+        return first.rejections;
+    }
+
+    /**
+     * @return the request at the head of the queue, or null if there is none or rejections are ahead of it
+     */
+    public ClientRequest pollRequest() {
+        QueuedRequest first = pendingRequests.peek();
+
+        if (first == null || first.request == null) {
+            return null;
+        }
+
+        pendingRequests.poll();
+        queuedRequests--;
+        return first.request;
+    }
+
+    /**
+     * @return how many requests wait to be executed, not counting the rejected ones
+     */
+    public int getQueuedRequests() {
+        return queuedRequests;
+    }
+
+    /**
+     * Reads whatever is available on the channel and returns the frames that became complete.
+     *
+     * @return the complete frames or null if the client closed the connection
+     */
+    public List<Frame> readFrames() throws IOException {
+        List<Frame> frames = new ArrayList<>();
+
+        while (true) {
+            ByteBuffer buffer = decoder.writableBuffer();
+            int bytesRead = channel.read(buffer);
+
+            if (bytesRead < 0) {
+                return null;
+            }
+
+            boolean bufferFilled = !buffer.hasRemaining();
+            frames.addAll(decoder.drainFrames());
+
+            if (!bufferFilled) {
+                return frames;
+            }
+        }
+    }
+
+    public void enqueue(byte[] payload) {
+        pendingWrites.add(MessageFrame.wrap(payload));
+    }
+
+    /**
+     * Starts sending the song as audio frames once the frames queued so far are written. A song that is
+     * already being sent is cut off after its current frame, and so is this one once its handle is cancelled.
+     */
+    public void streamSong(StreamHandle handle) throws IOException {
+        MultiplexedStream stream = new MultiplexedStream(handle, streamChunkSize,
+                handle.createPacer(pacing, streamChunkSize));
+
+        if (nextAudioStream != null) {
+            nextAudioStream.close();
+        }
+
+        if (audioStream != null) {
+            audioStream.cancel();
+        }
+
+        nextAudioStream = stream;
+        handle.onCancel(() -> eventLoop.execute(() -> cancelAudio(stream)));
+    }
+
+    private void cancelAudio(MultiplexedStream stream) {
+        if (stream.isFinished()) {
+            return;
+        }
+
+        stream.getHandle().recordCancelledBytes(stream.remaining());
+
+        if (stream == nextAudioStream) {
+            nextAudioStream = null;
+            stream.close();
+        } else {
+            stream.cancel();
+        }
+
+        eventLoop.flush(this);
+    }
+
+    /**
+     * Writes as much of the queued frames as the socket accepts without blocking, followed by at most
+     * one audio frame, so a single connection can't keep its event loop busy with a whole song.
+     *
+     * @return true if every queued frame was written and nothing is to be written before the song's next
+     * pacing timer
+     */
+    public boolean flush() throws IOException {
+        if (audioStream != null && audioStream.isMidFrame() && !audioStream.writeFrame(channel)) {
+            return false;
+        }
+
+        while (!pendingWrites.isEmpty()) {
+            ByteBuffer frame = pendingWrites.peek();
+            channel.write(frame);
+
+            if (frame.hasRemaining()) {
+                return false;
+            }
+
+            pendingWrites.poll();
+        }
+
+        if (audioStream == null || audioStream.isFinished()) {
+            audioStream = nextAudioStream;
+            nextAudioStream = null;
+        }
+
+        if (audioStream == null) {
+            return true;
+        }
+
+        long pause = audioStream.pauseNanos();
+
+        if (pause > 0) {
+            scheduleResume(pause);
+            return true;
+        }
+
+        audioStream.writeFrame(channel);
+
+        if (audioStream.isFinished()) {
+            audioStream = null;
+            return true;
+        }
+
+        return false;
+    }
+
+    private void scheduleResume(long delayNanos) {
+        if (resumeScheduled) {
+            return;
+        }
+
+        resumeScheduled = true;
+        eventLoop.schedule(delayNanos, () -> {
+            resumeScheduled = false;
+            eventLoop.flush(this);
+        });
+    }
+
+    public boolean hasPendingWrites() {
+        return !pendingWrites.isEmpty() || audioStream != null || nextAudioStream != null;
+    }
+
+    /**
+     * Closes the channel together with the song files that were still being sent on it.
+     */
+    public void close() throws IOException {
+        if (audioStream != null) {
+            audioStream.close();
+            audioStream = null;
+        }
+
+        if (nextAudioStream != null) {
+            nextAudioStream.close();
+            nextAudioStream = null;
+        }
+
+        channel.close();
+    }
+
+    private static final class QueuedRequest {
+        private final ClientRequest request;
+        private int rejections;
+
+        private QueuedRequest(ClientRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package uni.fmi.mjt.project.spotify.server;
+
+import uni.fmi.mjt.project.spotify.command.CommandType;
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+import uni.fmi.mjt.project.spotify.streaming.StreamHandle;
+import uni.fmi.mjt.project.spotify.utility.codec.MessageCodec;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves command execution off the event loops. Requests are executed on a bounded worker pool and
+ * their responses are handed back to the event loop that owns the connection.
+ * <p>
+ * A connection has at most one request on the pool at a time. The next one is dispatched only after
+ * the previous response was queued, so every client gets its responses in the order it sent the
+ * requests. When the pool queue or the per-connection backlog is full, the request is counted as
+ * rejected and answered with an error in its turn.
+ */
+public class CommandDispatcher {
+    private static final String WORKER_THREAD_NAME = "spotify-worker-";
+    private static final String BUSY_MESSAGE = "The server is busy at the moment. Please try again.";
+
+    private final ThreadPoolExecutor workers;
+    private final RequestHandler handler;
+    private final MessageCodec codec;
+    private final int connectionBacklog;
+
+    private final LongAdder submitted;
+    private final LongAdder completed;
+    private final LongAdder rejected;
+
+    public CommandDispatcher(RequestHandler handler, MessageCodec codec, int workerThreads, int queueCapacity,
+                             int connectionBacklog) {
+        this.handler = handler;
+        this.codec = codec;
+        this.connectionBacklog = connectionBacklog;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> new Thread(task, WORKER_THREAD_NAME + threadCount.getAndIncrement()));
+
+        this.submitted = new LongAdder();
+        this.completed = new LongAdder();
+        this.rejected = new LongAdder();
+    }
+
+    /**
+     * Queues a request of the connection. Must be called on the event loop that owns the connection.
+     */
+    public void dispatch(ClientConnection connection, ClientRequest request) {
+        if (connection.getQueuedRequests() >= connectionBacklog) {
+            rejected.increment();
+            connection.queueRejection();
+        } else {
+            connection.queueRequest(request);
+        }
+
+        dispatchNext(connection);
+    }
+
+    public DispatchMetrics getMetrics() {
+        return new DispatchMetrics(submitted.sum(), completed.sum(), rejected.sum(), workers.getQueue().size());
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private void dispatchNext(ClientConnection connection) {
+        while (!connection.isBusy()) {
+            for (int rejections = connection.pollRejections(); rejections > 0; rejections--) {
+                reject(connection);
+            }
+
+            ClientRequest request = connection.pollRequest();
+
+            if (request == null) {
+                return;
+            }
+
+            try {
+                connection.setBusy(true);
+                workers.execute(() -> execute(connection, request));
+                submitted.increment();
+            } catch (RejectedExecutionException e) {
+                connection.setBusy(false);
+                rejected.increment();
+                reject(connection);
+            }
+        }
+    }
+
+    private void execute(ClientConnection connection, ClientRequest request) {
+        RequestContext context = new RequestContext();
+        byte[] response = codec.encodeResponse(handler.handle(request, context));
+
+        connection.getEventLoop().execute(() -> complete(connection, response, context));
+    }
+
+    private void complete(ClientConnection connection, byte[] response, RequestContext context) {
+        completed.increment();
+
+        if (!connection.isOpen()) {
+            if (context.getMultiplexedStream() != null) {
+                context.getMultiplexedStream().cancel();
+                context.getMultiplexedStream().release();
+            }
+
+            return;
+        }
+
+        connection.enqueue(response);
+        connection.setBusy(false);
+
+        if (context.getMultiplexedStream() != null) {
+            streamSong(connection, context.getMultiplexedStream());
+        }
+
+        dispatchNext(connection);
+        connection.getEventLoop().flush(connection);
+    }
+
+    private void streamSong(ClientConnection connection, StreamHandle stream) {
+        try {
+            connection.streamSong(stream);
+        } catch (IOException e) {
+            System.out.println("A problem occurred while opening " + stream.getSongPath() + ": " + e.getMessage());
+            stream.release();
+        }
+    }
+
+    private void reject(ClientConnection connection) {
+        connection.enqueue(codec.encodeResponse(ServerResponse.builder(CommandType.ERROR, BUSY_MESSAGE).build()));
+    }
+}
@@ -0,0 +1,9 @@
+package uni.fmi.mjt.project.spotify.server;
+
+public record DispatchMetrics(long submitted, long completed, long rejected, int queued) {
+    @Override
+    public String toString() {
+        return "submitted=" + submitted + ", completed=" + completed + ", rejected=" + rejected +
+                ", queued=" + queued;
+    }
+}
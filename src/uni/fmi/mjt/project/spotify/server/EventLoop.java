@@ -0,0 +1,235 @@
+package uni.fmi.mjt.project.spotify.server;
+
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.exception.ServerSideException;
+import uni.fmi.mjt.project.spotify.streaming.PacingPolicy;
+import uni.fmi.mjt.project.spotify.utility.Frame;
+import uni.fmi.mjt.project.spotify.utility.TimerQueue;
+import uni.fmi.mjt.project.spotify.utility.codec.MessageCodec;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One I/O event loop of the command plane. Every loop owns a selector and the connections that were
+ * handed to it by the acceptor, so reads, writes and the per-connection buffers are only ever
+ * touched by the loop thread. Other threads talk to the loop by submitting tasks through
+ * {@link #execute(Runnable)}.
+ */
+public class EventLoop implements Runnable {
+    private final Selector selector;
+    private final MessageCodec codec;
+    private final CommandDispatcher dispatcher;
+    private final int streamChunkSize;
+    private final PacingPolicy pacing;
+    private final TimerQueue timers;
+    private final Queue<SocketChannel> pendingRegistrations;
+    private final Queue<Runnable> pendingTasks;
+
+    private volatile boolean running;
+
+    public EventLoop(MessageCodec codec, CommandDispatcher dispatcher, int streamChunkSize, PacingPolicy pacing)
+            throws IOException {
+        this.selector = Selector.open();
+        this.codec = codec;
+        this.dispatcher = dispatcher;
+        this.streamChunkSize = streamChunkSize;
+        this.pacing = pacing;
+        this.timers = new TimerQueue();
+        this.pendingRegistrations = new ConcurrentLinkedQueue<>();
+        this.pendingTasks = new ConcurrentLinkedQueue<>();
+        this.running = true;
+    }
+
+    /**
+     * Hands an accepted connection over to this loop. Safe to call from any thread.
+     */
+    public void register(SocketChannel clientChannel) {
+        pendingRegistrations.add(clientChannel);
+        selector.wakeup();
+    }
+
+    /**
+     * Runs the task on the loop thread during its next iteration. Safe to call from any thread.
+     */
+    public void execute(Runnable task) {
+        pendingTasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Runs the task on the loop thread once the delay has passed. Must be called on the loop thread.
+     */
+    void schedule(long delayNanos, Runnable task) {
+        timers.schedule(delayNanos, task);
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                timers.select(selector);
+
+                timers.runDue();
+                registerPendingChannels();
+                runPendingTasks();
+                resolveRequests(selector.selectedKeys().iterator());
+            }
+        } catch (IOException e) {
+            throw new ServerSideException("A problem occurred in the event loop " +
+                    Thread.currentThread().getName(), e);
+        } catch (ClosedSelectorException e) {
+            System.out.println("Event loop " + Thread.currentThread().getName() + " was closed");
+        } finally {
+            closeSelector();
+        }
+    }
+
+    private void registerPendingChannels() {
+        SocketChannel clientChannel;
+
+        while ((clientChannel = pendingRegistrations.poll()) != null) {
+            try {
+                clientChannel.configureBlocking(false);
+
+                ClientConnection connection = new ClientConnection(clientChannel, this, streamChunkSize, pacing);
+                connection.setKey(clientChannel.register(selector, SelectionKey.OP_READ, connection));
+            } catch (IOException e) {
+                System.out.println("A problem occurred while registering a client connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void runPendingTasks() {
+        Runnable task;
+
+        while ((task = pendingTasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.out.println("A problem occurred while running a task of the event loop: " + e.getMessage());
+            }
+        }
+    }
+
+    private void resolveRequests(Iterator<SelectionKey> keyIterator) {
+        while (keyIterator.hasNext()) {
+            SelectionKey key = keyIterator.next();
+            keyIterator.remove();
+
+            if (key.isValid() && key.isReadable()) {
+                readRequests(key);
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                flushPendingWrites(key);
+            }
+        }
+    }
+
+    private void readRequests(SelectionKey key) {
+        ClientConnection connection = (ClientConnection) key.attachment();
+        List<ClientRequest> requests;
+
+        try {
+            requests = decodeRequests(connection.readFrames());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Client sent a malformed frame: " + e.getMessage());
+            requests = null;
+        } catch (IOException e) {
+            System.out.println("Connection to a client was lost: " + e.getMessage());
+            requests = null;
+        }
+
+        if (requests == null) {
+            closeConnection(key, connection);
+            return;
+        }
+
+        for (ClientRequest request : requests) {
+            dispatcher.dispatch(connection, request);
+        }
+
+        flushPendingWrites(key);
+    }
+
+    /**
+     * Writes the queued responses of a connection served by this loop. Must be called on the loop thread.
+     */
+    void flush(ClientConnection connection) {
+        SelectionKey key = connection.getKey();
+
+        if (key.isValid()) {
+            flushPendingWrites(key);
+        }
+    }
+
+    private List<ClientRequest> decodeRequests(List<Frame> frames) {
+        if (frames == null) {
+            return null;
+        }
+
+        return frames.stream()
+                .map(this::decodeRequest)
+                .toList();
+    }
+
+    private ClientRequest decodeRequest(Frame frame) {
+        if (!frame.isMessage()) {
+            throw new IllegalArgumentException("Clients may only send message frames, got type " + frame.type());
+        }
+
+        return codec.decodeRequest(frame.payload());
+    }
+
+    private void flushPendingWrites(SelectionKey key) {
+        ClientConnection connection = (ClientConnection) key.attachment();
+
+        try {
+            if (connection.flush()) {
+                key.interestOps(SelectionKey.OP_READ);
+            } else {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            System.out.println("Connection to a client was lost: " + e.getMessage());
+            closeConnection(key, connection);
+        }
+    }
+
+    private void closeConnection(SelectionKey key, ClientConnection connection) {
+        key.cancel();
+
+        try {
+            connection.close();
+        } catch (IOException e) {
+            System.out.println("A problem occurred while closing a client connection: " + e.getMessage());
+        }
+
+        System.out.println("Client has disconnected");
+    }
+
+    private void closeSelector() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+
+            selector.close();
+        } catch (IOException e) {
+            throw new ServerSideException("A problem occurred while closing the event loop selector", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package uni.fmi.mjt.project.spotify.server;
+
+import uni.fmi.mjt.project.spotify.streaming.StreamHandle;
+
+/**
+ * What a {@link RequestHandler} can ask of the connection a request came from, besides sending the
+ * response. A context lives for a single request and is read by the transport once the handler returns.
+ */
+public class RequestContext {
+    private volatile StreamHandle multiplexedStream;
+
+    /**
+     * Sends the song as audio frames on the command connection, starting right after the response.
+     * A song that is already being sent on the connection is cut off at its next frame boundary.
+     */
+    public void streamOnConnection(StreamHandle stream) {
+        this.multiplexedStream = stream;
+    }
+
+    /**
+     * @return the stream to multiplex on the connection or null if there is none
+     */
+    public StreamHandle getMultiplexedStream() {
+        return multiplexedStream;
+    }
+}
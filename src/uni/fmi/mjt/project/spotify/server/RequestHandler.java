@@ -0,0 +1,15 @@
+package uni.fmi.mjt.project.spotify.server;
+
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+
+@FunctionalInterface
+public interface RequestHandler {
+    /**
+     * Executes a decoded request. Called on a worker or a virtual thread, so it may block on the file system.
+     *
+     * @param context collects what the connection has to do after sending the response
+     * @return the response that is sent back on the connection the request came from
+     */
+    ServerResponse handle(ClientRequest request, RequestContext context);
+}
@@ -0,0 +1,260 @@
+package uni.fmi.mjt.project.spotify.server;
+
+import uni.fmi.mjt.project.spotify.streaming.PacingPolicy;
+import uni.fmi.mjt.project.spotify.utility.codec.CodecType;
+import uni.fmi.mjt.project.spotify.utility.codec.MessageCodec;
+
+public class ServerConfig {
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private final MessageCodec codec;
+    private final ServerMode mode;
+    private final int eventLoops;
+    private final int workerThreads;
+    private final int workerQueueCapacity;
+    private final int connectionBacklog;
+    private final int streamChunkSize;
+    private final int streamLoops;
+    private final long streamTokenTtlMillis;
+    private final long streamHandshakeTimeoutMillis;
+    private final int streamBroadcastChunks;
+    private final PacingPolicy streamPacing;
+    private final long songCacheBytes;
+    private final int metricsIntervalSeconds;
+
+    private ServerConfig(ConfigBuilder builder) {
+        this.codec = builder.codec;
+        this.mode = builder.mode;
+        this.eventLoops = builder.eventLoops;
+        this.workerThreads = builder.workerThreads;
+        this.workerQueueCapacity = builder.workerQueueCapacity;
+        this.connectionBacklog = builder.connectionBacklog;
+        this.streamChunkSize = builder.streamChunkSize;
+        this.streamLoops = builder.streamLoops;
+        this.streamTokenTtlMillis = builder.streamTokenTtlMillis;
+        this.streamHandshakeTimeoutMillis = builder.streamHandshakeTimeoutMillis;
+        this.streamBroadcastChunks = builder.streamBroadcastChunks;
+        this.streamPacing = new PacingPolicy(builder.streamPrerollMillis, builder.streamPacingPercent);
+        this.songCacheBytes = builder.songCacheMegabytes * BYTES_PER_MEGABYTE;
+        this.metricsIntervalSeconds = builder.metricsIntervalSeconds;
+    }
+
+    public MessageCodec getCodec() {
+        return codec;
+    }
+
+    public ServerMode getMode() {
+        return mode;
+    }
+
+    public int getEventLoops() {
+        return eventLoops;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public int getWorkerQueueCapacity() {
+        return workerQueueCapacity;
+    }
+
+    public int getConnectionBacklog() {
+        return connectionBacklog;
+    }
+
+    public int getStreamChunkSize() {
+        return streamChunkSize;
+    }
+
+    public int getStreamLoops() {
+        return streamLoops;
+    }
+
+    public long getStreamTokenTtlMillis() {
+        return streamTokenTtlMillis;
+    }
+
+    public long getStreamHandshakeTimeoutMillis() {
+        return streamHandshakeTimeoutMillis;
+    }
+
+    public int getStreamBroadcastChunks() {
+        return streamBroadcastChunks;
+    }
+
+    public PacingPolicy getStreamPacing() {
+        return streamPacing;
+    }
+
+    public long getSongCacheBytes() {
+        return songCacheBytes;
+    }
+
+    public int getMetricsIntervalSeconds() {
+        return metricsIntervalSeconds;
+    }
+
+    public static ConfigBuilder builder() {
+        return new ConfigBuilder();
+    }
+
+    public static class ConfigBuilder {
+        private MessageCodec codec = CodecType.BINARY.getCodec();
+        private ServerMode mode = ServerMode.NIO;
+        private int eventLoops = Runtime.getRuntime().availableProcessors();
+        private int workerThreads = 2 * Runtime.getRuntime().availableProcessors();
+        private int workerQueueCapacity = 1024;
+        private int connectionBacklog = 32;
+        private int streamChunkSize = 64 * 1024;
+        private int streamLoops = 2;
+        private long streamTokenTtlMillis = 30_000;
+        private long streamHandshakeTimeoutMillis = 10_000;
+        private int streamBroadcastChunks = 16;
+        private int streamPrerollMillis = 2_000;
+        private int streamPacingPercent = 105;
+        private int songCacheMegabytes = 256;
+        private int metricsIntervalSeconds = 60;
+
+        private ConfigBuilder() {
+        }
+
+        public ConfigBuilder setCodec(MessageCodec codec) {
+            this.codec = codec;
+
+            return this;
+        }
+
+        public ConfigBuilder setMode(ServerMode mode) {
+            this.mode = mode;
+
+            return this;
+        }
+
+        public ConfigBuilder setEventLoops(int eventLoops) {
+            checkPositive(eventLoops, "event loops");
+            this.eventLoops = eventLoops;
+
+            return this;
+        }
+
+        public ConfigBuilder setWorkerThreads(int workerThreads) {
+            checkPositive(workerThreads, "worker threads");
+            this.workerThreads = workerThreads;
+
+            return this;
+        }
+
+        public ConfigBuilder setWorkerQueueCapacity(int workerQueueCapacity) {
+            checkPositive(workerQueueCapacity, "queued commands");
+            this.workerQueueCapacity = workerQueueCapacity;
+
+            return this;
+        }
+
+        public ConfigBuilder setConnectionBacklog(int connectionBacklog) {
+            checkPositive(connectionBacklog, "commands waiting per connection");
+            this.connectionBacklog = connectionBacklog;
+
+            return this;
+        }
+
+        public ConfigBuilder setStreamChunkSize(int streamChunkSize) {
+            checkPositive(streamChunkSize, "bytes per stream chunk");
+            this.streamChunkSize = streamChunkSize;
+
+            return this;
+        }
+
+        public ConfigBuilder setStreamLoops(int streamLoops) {
+            checkPositive(streamLoops, "stream loops");
+            this.streamLoops = streamLoops;
+
+            return this;
+        }
+
+        public ConfigBuilder setStreamTokenTtlMillis(int streamTokenTtlMillis) {
+            checkPositive(streamTokenTtlMillis, "milliseconds a stream token is valid");
+            this.streamTokenTtlMillis = streamTokenTtlMillis;
+
+            return this;
+        }
+
+        /**
+         * Sets how long a stream connection may take to present its token before it is closed.
+         */
+        public ConfigBuilder setStreamHandshakeTimeoutMillis(int streamHandshakeTimeoutMillis) {
+            checkPositive(streamHandshakeTimeoutMillis, "milliseconds a stream connection has for its token");
+            this.streamHandshakeTimeoutMillis = streamHandshakeTimeoutMillis;
+
+            return this;
+        }
+
+        /**
+         * Sets how many chunks listeners of the same song may be apart and still share one read of it,
+         * 0 to stream every listener on its own.
+         */
+        public ConfigBuilder setStreamBroadcastChunks(int streamBroadcastChunks) {
+            checkNotNegative(streamBroadcastChunks, "chunks in a broadcast");
+            this.streamBroadcastChunks = streamBroadcastChunks;
+
+            return this;
+        }
+
+        /**
+         * Sets how much of a song, in milliseconds of playback, is sent right away before pacing kicks in.
+         */
+        public ConfigBuilder setStreamPrerollMillis(int streamPrerollMillis) {
+            checkNotNegative(streamPrerollMillis, "milliseconds of pre-roll");
+            this.streamPrerollMillis = streamPrerollMillis;
+
+            return this;
+        }
+
+        /**
+         * Sets the send rate of songs as a percentage of their playback rate, 0 to turn pacing off.
+         */
+        public ConfigBuilder setStreamPacingPercent(int streamPacingPercent) {
+            checkNotNegative(streamPacingPercent, "percents of the playback rate");
+            this.streamPacingPercent = streamPacingPercent;
+
+            return this;
+        }
+
+        /**
+         * Sets how many megabytes of the most played songs stay mapped, 0 to turn the cache off.
+         */
+        public ConfigBuilder setSongCacheMegabytes(int songCacheMegabytes) {
+            checkNotNegative(songCacheMegabytes, "megabytes of cached songs");
+            this.songCacheMegabytes = songCacheMegabytes;
+
+            return this;
+        }
+
+        /**
+         * Sets how often, in seconds, the server prints its metrics, 0 to print them only when it stops.
+         */
+        public ConfigBuilder setMetricsIntervalSeconds(int metricsIntervalSeconds) {
+            checkNotNegative(metricsIntervalSeconds, "seconds between metric reports");
+            this.metricsIntervalSeconds = metricsIntervalSeconds;
+
+            return this;
+        }
+
+        public ServerConfig build() {
+            return new ServerConfig(this);
+        }
+
+        private static void checkPositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("The number of " + name + " must be positive, got " + value);
+            }
+        }
+
+        private static void checkNotNegative(int value, String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException("The number of " + name + " can't be negative, got " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package uni.fmi.mjt.project.spotify.server;
+
+public enum ServerMode {
+    /**
+     * Event loops multiplexing non-blocking connections and a fixed worker pool for the commands.
+     */
+    NIO,
+
+    /**
+     * One virtual thread with blocking I/O per connection and per song stream.
+     */
+    VIRTUAL_THREADS;
+
+    public static ServerMode fromName(String name) {
+        try {
+            return ServerMode.valueOf(name.strip().replace('-', '_').toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown server mode '" + name + "', expected one of nio, " +
+                    "virtual-threads", e);
+        }
+    }
+}
@@ -1,15 +1,51 @@
 package uni.fmi.mjt.project.spotify.server;
 
 import uni.fmi.mjt.project.spotify.utility.ErrorLogger;
+import uni.fmi.mjt.project.spotify.utility.codec.CodecType;
 
 import java.io.File;
+import java.util.function.IntConsumer;
 
 public class ServerStarter {
     private static final String ERROR_LOGS_PATH = "Error_logs" + File.separator + "server_error_logs.txt";
+    private static final String CODEC_PROPERTY = "spotify.codec";
+    private static final String DEFAULT_CODEC = "binary";
+    private static final String MODE_PROPERTY = "spotify.mode";
+    private static final String DEFAULT_MODE = "nio";
+    private static final String EVENT_LOOPS_PROPERTY = "spotify.eventLoops";
+    private static final String WORKER_THREADS_PROPERTY = "spotify.workerThreads";
+    private static final String WORKER_QUEUE_PROPERTY = "spotify.workerQueue";
+    private static final String STREAM_CHUNK_SIZE_PROPERTY = "spotify.streamChunkSize";
+    private static final String STREAM_LOOPS_PROPERTY = "spotify.streamLoops";
+    private static final String STREAM_TOKEN_TTL_PROPERTY = "spotify.streamTokenTtlMillis";
+    private static final String STREAM_HANDSHAKE_TIMEOUT_PROPERTY = "spotify.streamHandshakeTimeoutMillis";
+    private static final String STREAM_BROADCAST_PROPERTY = "spotify.streamBroadcastChunks";
+    private static final String STREAM_PREROLL_PROPERTY = "spotify.streamPrerollMillis";
+    private static final String STREAM_PACING_PROPERTY = "spotify.streamPacingPercent";
+    private static final String SONG_CACHE_PROPERTY = "spotify.songCacheMegabytes";
+    private static final String METRICS_INTERVAL_PROPERTY = "spotify.metricsIntervalSeconds";
 
     public static void main(String[] args) {
         try {
-            SpotifyServer server = new SpotifyServer();
+            CodecType codecType = CodecType.fromName(System.getProperty(CODEC_PROPERTY, DEFAULT_CODEC));
+            ServerConfig.ConfigBuilder config = ServerConfig.builder()
+                    .setCodec(codecType.getCodec())
+                    .setMode(ServerMode.fromName(System.getProperty(MODE_PROPERTY, DEFAULT_MODE)));
+
+            setIfPresent(EVENT_LOOPS_PROPERTY, config::setEventLoops);
+            setIfPresent(WORKER_THREADS_PROPERTY, config::setWorkerThreads);
+            setIfPresent(WORKER_QUEUE_PROPERTY, config::setWorkerQueueCapacity);
+            setIfPresent(STREAM_CHUNK_SIZE_PROPERTY, config::setStreamChunkSize);
+            setIfPresent(STREAM_LOOPS_PROPERTY, config::setStreamLoops);
+            setIfPresent(STREAM_TOKEN_TTL_PROPERTY, config::setStreamTokenTtlMillis);
+            setIfPresent(STREAM_HANDSHAKE_TIMEOUT_PROPERTY, config::setStreamHandshakeTimeoutMillis);
+            setIfPresent(STREAM_BROADCAST_PROPERTY, config::setStreamBroadcastChunks);
+            setIfPresent(STREAM_PREROLL_PROPERTY, config::setStreamPrerollMillis);
+            setIfPresent(STREAM_PACING_PROPERTY, config::setStreamPacingPercent);
+            setIfPresent(SONG_CACHE_PROPERTY, config::setSongCacheMegabytes);
+            setIfPresent(METRICS_INTERVAL_PROPERTY, config::setMetricsIntervalSeconds);
+
+            SpotifyServer server = new SpotifyServer(config.build());
 
             server.start();
         } catch (Exception e) {
@@ -18,4 +54,12 @@ public class ServerStarter {
             ErrorLogger.writeErrorLogsToFile(e, ERROR_LOGS_PATH);
         }
     }
+
+    private static void setIfPresent(String property, IntConsumer setter) {
+        Integer value = Integer.getInteger(property);
+
+        if (value != null) {
+            setter.accept(value);
+        }
+    }
 }
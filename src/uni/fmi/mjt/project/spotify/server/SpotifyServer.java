@@ -1,48 +1,87 @@
 package uni.fmi.mjt.project.spotify.server;
 
 import uni.fmi.mjt.project.spotify.DefaultSpotify;
-import uni.fmi.mjt.project.spotify.StreamingMusicHandler;
+import uni.fmi.mjt.project.spotify.catalog.SearchCache;
 import uni.fmi.mjt.project.spotify.command.Command;
 import uni.fmi.mjt.project.spotify.command.CommandCreator;
 import uni.fmi.mjt.project.spotify.command.CommandExecutor;
 import uni.fmi.mjt.project.spotify.command.CommandType;
+import uni.fmi.mjt.project.spotify.command.PlayOptions;
 import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
 import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+import uni.fmi.mjt.project.spotify.dto.song.format.StreamEncoding;
 import uni.fmi.mjt.project.spotify.exception.command.NoSuchCommandException;
 import uni.fmi.mjt.project.spotify.exception.ServerSideException;
-import uni.fmi.mjt.project.spotify.utility.ObjectByteConvertor;
+import uni.fmi.mjt.project.spotify.streaming.ActiveStreams;
+import uni.fmi.mjt.project.spotify.streaming.EncodedSong;
+import uni.fmi.mjt.project.spotify.streaming.LosslessCache;
+import uni.fmi.mjt.project.spotify.streaming.SongCache;
+import uni.fmi.mjt.project.spotify.streaming.SongSource;
+import uni.fmi.mjt.project.spotify.streaming.StreamHandle;
+import uni.fmi.mjt.project.spotify.streaming.StreamSessions;
+import uni.fmi.mjt.project.spotify.streaming.StreamingEngine;
+import uni.fmi.mjt.project.spotify.streaming.StreamingService;
+import uni.fmi.mjt.project.spotify.streaming.TranscodedSongSource;
+import uni.fmi.mjt.project.spotify.streaming.VirtualThreadStreamingService;
+import uni.fmi.mjt.project.spotify.utility.ErrorLogger;
+import uni.fmi.mjt.project.spotify.utility.WavHeader;
+import uni.fmi.mjt.project.spotify.utility.WavHeaderCache;
+import uni.fmi.mjt.project.spotify.utility.codec.MessageCodec;
+import uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.nio.ByteBuffer;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.util.Iterator;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class SpotifyServer {
     private static final String ACCOUNTS_FILE_PATH = "Accounts" + File.separator + "Accounts.txt";
+    private static final String ERROR_LOGS_PATH = "Error_logs" + File.separator + "server_error_logs.txt";
+    private static final String LOSSLESS_CACHE_PATH = "Cache" + File.separator + "Lossless";
+    private static final String CATALOG_SNAPSHOT_PATH = "Cache" + File.separator + "catalog.snapshot";
+    private static final String FAILURE_MESSAGE = "The server couldn't complete the command. Please try again.";
+    private static final String SEEK_PAST_END_MESSAGE = "There was an error!" + System.lineSeparator() +
+            "Song \"%s\" is only %d:%02d long";
+    private static final int SECONDS_PER_MINUTE = 60;
     private static final String HOST = "localhost";
     private static final int PORT = 44_444;
     private static final int STREAM_PORT = 44_445;
-    private static final int BUFFER_SIZE = 1024;
-    private static final int NUM_OF_THREADS = 10;
-    private ByteBuffer buffer;
-    private Selector selector;
+    private static final String EVENT_LOOP_THREAD_NAME = "spotify-event-loop-";
+    private static final String METRICS_THREAD_NAME = "spotify-metrics";
+    private final ServerConfig config;
+    private final DefaultSpotify spotify;
     private final CommandExecutor commandExecutor;
-    private final ExecutorService executor;
+    private final MessageCodec codec;
+    private final StreamingService streamingService;
+    private final ActiveStreams activeStreams;
+    private final SongCache songCache;
+    private final LosslessCache losslessCache;
+    private final WavHeaderCache songHeaders;
+    private final SearchCache searchCache;
     private final FileReader accountsFileReader;
     private final FileWriter accountsFileWriter;
+    private final List<EventLoop> eventLoops;
+    private final CommandDispatcher dispatcher;
 
     public SpotifyServer() {
+        this(ServerConfig.builder().build());
+    }
+
+    public SpotifyServer(ServerConfig config) {
+        this.config = config;
+        this.codec = config.getCodec();
+
         try {
             accountsFileReader = new FileReader(ACCOUNTS_FILE_PATH);
             accountsFileWriter = new FileWriter(ACCOUNTS_FILE_PATH, true);
@@ -50,154 +89,311 @@ public class SpotifyServer {
             throw new ServerSideException("Accounts file is inaccessible", e);
         }
 
-        commandExecutor = new CommandExecutor(new DefaultSpotify(accountsFileReader, accountsFileWriter));
-        executor = Executors.newFixedThreadPool(NUM_OF_THREADS + 1);
+        spotify = new DefaultSpotify(accountsFileReader, accountsFileWriter, Path.of(CATALOG_SNAPSHOT_PATH));
+        indexSongs();
+
+        commandExecutor = new CommandExecutor(spotify);
+        streamingService = createStreamingService(config);
+        activeStreams = new ActiveStreams();
+        songCache = new SongCache(config.getSongCacheBytes(), spotify::getPlayCount);
+        losslessCache = new LosslessCache(Path.of(LOSSLESS_CACHE_PATH));
+        songHeaders = spotify.getSongHeaders();
+        searchCache = spotify.getSearchCache();
+        eventLoops = new ArrayList<>();
+        dispatcher = new CommandDispatcher(this::resolveClientRequest, codec, config.getWorkerThreads(),
+                config.getWorkerQueueCapacity(), config.getConnectionBacklog());
     }
 
+    /**
+     * Starts serving clients. The metrics are printed every configured interval and once more when the
+     * server stops, including when the process is terminated.
+     */
     public void start() {
-        try (var serverChannel = ServerSocketChannel.open();
-             var musicStreamingSocket = new ServerSocket(STREAM_PORT)) {
-            selector = Selector.open();
-            configureServerChannel(serverChannel);
+        ScheduledExecutorService metricsReporter = startMetricsReporter();
+        Thread metricsOnExit = new Thread(this::printMetrics, METRICS_THREAD_NAME);
+        Runtime.getRuntime().addShutdownHook(metricsOnExit);
 
-            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (var serverChannel = ServerSocketChannel.open();
+             var streamingChannel = ServerSocketChannel.open()) {
+            streamingChannel.bind(new InetSocketAddress(STREAM_PORT));
+            streamingService.start(streamingChannel);
 
-            while (true) {
-                int channelsReady = selector.select();
+            serverChannel.bind(new InetSocketAddress(HOST, PORT));
 
-                if (channelsReady == 0) {
-                    continue;
+            switch (config.getMode()) {
+                case NIO -> {
+                    startEventLoops();
+                    acceptClients(serverChannel);
                 }
-
-                Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
-                resolveRequests(keyIterator, musicStreamingSocket);
+                case VIRTUAL_THREADS -> acceptBlockingClients(serverChannel);
             }
         } catch (IOException e) {
             throw new ServerSideException("A problem occurred while opening the server sockets", e);
         } finally {
-            executor.shutdown();
+            eventLoops.forEach(EventLoop::shutdown);
+            dispatcher.shutdown();
+            streamingService.shutdown();
+
+            if (metricsReporter != null) {
+                metricsReporter.shutdownNow();
+            }
+
+            if (removeShutdownHook(metricsOnExit)) {
+                printMetrics();
+            }
+
+            spotify.close();
             closeWritersAndReaders();
         }
     }
 
-    private void closeWritersAndReaders() {
+    private ScheduledExecutorService startMetricsReporter() {
+        int interval = config.getMetricsIntervalSeconds();
+
+        if (interval == 0) {
+            return null;
+        }
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, METRICS_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::printMetrics, interval, interval, TimeUnit.SECONDS);
+
+        return reporter;
+    }
+
+    /**
+     * @return false if the process is already shutting down and the hook runs on its own
+     */
+    private static boolean removeShutdownHook(Thread hook) {
         try {
-            accountsFileReader.close();
-            accountsFileWriter.close();
+            return Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private void printMetrics() {
+        System.out.println("Command dispatcher: " + dispatcher.getMetrics());
+        System.out.println("Streams: " + activeStreams.getMetrics());
+        activeStreams.getStreamRates().forEach(rate -> System.out.println("  " + rate));
+        System.out.println("Song cache: " + songCache.getMetrics());
+        System.out.println("Song headers: hits=" + songHeaders.getHits() + ", misses=" + songHeaders.getMisses());
+        System.out.println("Search cache: " + searchCache.getMetrics());
+    }
+
+    private void indexSongs() {
+        try {
+            System.out.println(spotify.indexSongs(Path.of(CATALOG_SNAPSHOT_PATH)));
         } catch (IOException e) {
-            throw new ServerSideException("A problem occurred while closing the reader and writer" +
-                    "for the file with the accounts", e);
+            System.out.println("A problem occurred while writing the catalog snapshot: " + e.getMessage());
         }
     }
 
-    private void resolveRequests(Iterator<SelectionKey> keyIterator, ServerSocket musicStreamingSocket)
-            throws IOException {
-        while (keyIterator.hasNext()) {
-            SelectionKey key = keyIterator.next();
+    private void startEventLoops() throws IOException {
+        for (int i = 0; i < config.getEventLoops(); i++) {
+            EventLoop eventLoop = new EventLoop(codec, dispatcher, config.getStreamChunkSize(),
+                    config.getStreamPacing());
+            eventLoops.add(eventLoop);
+
+            Thread thread = new Thread(eventLoop, EVENT_LOOP_THREAD_NAME + i);
+            thread.start();
+        }
+    }
+
+    /**
+     * Accepts connections on the calling thread and spreads them over the event loops in a round-robin
+     * fashion. From then on the connection is served only by the loop it was assigned to.
+     */
+    private void acceptClients(ServerSocketChannel serverChannel) throws IOException {
+        int next = 0;
+
+        while (true) {
+            SocketChannel clientChannel = serverChannel.accept();
+
+            eventLoops.get(next).register(clientChannel);
+            next = (next + 1) % eventLoops.size();
+
+            System.out.println("Client has connected!");
+        }
+    }
+
+    /**
+     * Serves every accepted connection on its own virtual thread with blocking I/O.
+     */
+    private void acceptBlockingClients(ServerSocketChannel serverChannel) throws IOException {
+        try (ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                SocketChannel clientChannel = serverChannel.accept();
+
+                connections.submit(new BlockingClientHandler(clientChannel, codec, this::resolveClientRequest,
+                        config.getStreamChunkSize(), config.getStreamPacing()));
 
-            if (key.isAcceptable()) {
-                acceptClient(key);
                 System.out.println("Client has connected!");
-            } else if (key.isReadable()) {
-                completeClientCommunication(key, musicStreamingSocket);
             }
-
-            keyIterator.remove();
         }
     }
 
-    private void completeClientCommunication(SelectionKey key, ServerSocket musicStreamingSocket)
-            throws IOException {
-        SocketChannel clientChannel = (SocketChannel) key.channel();
+    private StreamingService createStreamingService(ServerConfig config) {
+        StreamSessions sessions = new StreamSessions(config.getStreamTokenTtlMillis());
 
-        ClientRequest clientRequest = getClientInput(clientChannel);
+        return switch (config.getMode()) {
+            case NIO -> new StreamingEngine(config.getStreamLoops(), config.getStreamChunkSize(),
+                    config.getStreamBroadcastChunks(), config.getStreamHandshakeTimeoutMillis(), sessions,
+                    config.getStreamPacing());
+            case VIRTUAL_THREADS -> new VirtualThreadStreamingService(config.getStreamChunkSize(), sessions,
+                    config.getStreamPacing());
+        };
+    }
 
-        if (clientRequest == null) {
-            System.out.println("Client has disconnected");
-            return;
+    private void closeWritersAndReaders() {
+        try {
+            accountsFileReader.close();
+            accountsFileWriter.close();
+        } catch (IOException e) {
+            throw new ServerSideException("A problem occurred while closing the reader and writer" +
+                    "for the file with the accounts", e);
         }
+    }
 
+    private ServerResponse resolveClientRequest(ClientRequest clientRequest, RequestContext context) {
         try {
             Command command = CommandCreator.createCommand(clientRequest.message());
             ServerResponse result = commandExecutor.execute(command, clientRequest.userEmail());
 
-            if (result.getType().equals(CommandType.PLAY)) {
-                streamSong(clientChannel, result, musicStreamingSocket);
-            } else {
-                writeToClient(clientChannel, ObjectByteConvertor.convertObjectToByteArray(result));
+            if (result.getType().equals(CommandType.PLAY) || result.getType().equals(CommandType.SEEK)) {
+                return streamSong(result, clientRequest.userEmail(), PlayOptions.from(command), context);
             }
+
+            if (result.getType().equals(CommandType.STOP) || result.getType().equals(CommandType.DISCONNECT)) {
+                activeStreams.cancel(clientRequest.userEmail());
+            }
+
+            return result;
         } catch (NoSuchCommandException e) {
-            ServerResponse wrongServerResponse = ServerResponse.builder(CommandType.ERROR, e.getMessage()).build();
+            return ServerResponse.builder(CommandType.ERROR, e.getMessage()).build();
+        } catch (RuntimeException e) {
+            System.out.println("A problem occurred while executing a command: " + e.getMessage());
+            ErrorLogger.writeErrorLogsToFile(e, ERROR_LOGS_PATH);
 
-            writeToClient(clientChannel, ObjectByteConvertor.convertObjectToByteArray(wrongServerResponse));
+            return ServerResponse.builder(CommandType.ERROR, FAILURE_MESSAGE).build();
         }
     }
 
-    private void streamSongBytes(ServerSocket streamMusicServerSocket, String songPath) {
-        Socket musicStreamingClientSocket;
+    /**
+     * Opening the stream cancels the one the user was listening to, so a new play also stops the previous song.
+     * Only the samples are streamed, starting at the frame that plays at the requested time, which can't be
+     * past the end of the song. Hot songs are sent from their shared mapping in the song cache. A song
+     * streamed in a lower quality is transcoded on the way and the response carries the format the client
+     * receives. A client that can decode the lossless codec gets any other song in it, sent from the
+     * encoding kept on disk, and the response tells how much smaller it is. A song that isn't encoded yet is
+     * sent as it is meanwhile.
+     */
+    private ServerResponse streamSong(ServerResponse result, String email, PlayOptions options,
+                                      RequestContext context) {
+        StreamableSong song = result.getSong();
+        double duration = durationOf(song);
+
+        if (options.startSeconds() > duration) {
+            return ServerResponse.builder(CommandType.ERROR,
+                    String.format(SEEK_PAST_END_MESSAGE, song.getName(), (long) duration / SECONDS_PER_MINUTE,
+                            (long) duration % SECONDS_PER_MINUTE)).build();
+        }
+
+        SongSource source = openSource(song);
+        StreamHandle stream;
+
         try {
-            musicStreamingClientSocket = streamMusicServerSocket.accept();
+            WavHeader header = songHeaders.get(Path.of(song.getPath()));
+            long start = header.offsetOf(options.startSeconds(), song.getFormat());
 
-            StreamingMusicHandler handler =
-                    new StreamingMusicHandler(musicStreamingClientSocket, songPath, BUFFER_SIZE);
+            boolean transcoded = source != null && options.quality().transcodes(song.getFormat());
+            EncodedSong encoded = !transcoded && options.lossless() ? encodeLossless(song, header) : null;
 
-            executor.submit(handler);
-        } catch (IOException e) {
-            throw new ServerSideException("A problem occurred while trying to stream a song!", e);
-        }
-    }
+            if (transcoded) {
+                TranscodedSongSource transcodedSource =
+                        new TranscodedSongSource(source, header, song.getFormat(), options.quality());
+                song = new StreamableSong(song.getName(), song.getPath(), transcodedSource.getFormat());
+                result = result.toBuilder().setSong(song).build();
 
-    private void streamSong(SocketChannel clientChannel, ServerResponse result, ServerSocket musicStreamingSocket) {
-        try {
-            writeToClient(clientChannel, ObjectByteConvertor.convertObjectToByteArray(result));
+                stream = activeStreams.open(email, song, transcodedSource, transcodedSource.offsetOf(start),
+                        transcodedSource.size());
+            } else if (encoded != null) {
+                SongSource losslessSource = encoded.openSource();
 
-            executor.submit(() -> streamSongBytes(musicStreamingSocket, result.getSong().getPath()));
+                if (source != null) {
+                    source.close();
+                }
+
+                StreamableSong encodedSong =
+                        new StreamableSong(song.getName(), encoded.getFile().toString(), song.getFormat());
+                result = result.toBuilder()
+                        .setMessage(result.getMessage() + ", losslessly compressed to " +
+                                encoded.getRatioPercent() + "% of its size")
+                        .setStreamEncoding(StreamEncoding.LOSSLESS)
+                        .build();
+
+                stream = activeStreams.open(email, encodedSong, losslessSource, encoded.offsetOf(start),
+                        encoded.getEnd());
+            } else {
+                stream = activeStreams.open(email, song, source, start, header.dataEnd());
+            }
         } catch (IOException e) {
-            throw new ServerSideException("A problem occurred while trying to send the client message!", e);
+            System.out.println("Streaming the whole file of " + song.getName() + ": " + e.getMessage());
+            stream = activeStreams.open(email, song, source, 0, Long.MAX_VALUE);
         }
-    }
-
-    private void writeToClient(SocketChannel clientChannel, byte[] array) throws IOException {
-        buffer.clear();
-        buffer.put(array);
-        buffer.flip();
 
-        clientChannel.write(buffer);
-    }
+        if (options.multiplexed()) {
+            context.streamOnConnection(stream);
+            return result;
+        }
 
-    private ClientRequest getClientInput(SocketChannel clientChannel) throws IOException {
-        buffer.clear();
-        int bytesRead = clientChannel.read(buffer);
+        String streamToken = streamingService.streamSong(stream);
 
-        if (bytesRead < 0) {
-            clientChannel.close();
+        return result.toBuilder()
+                .setStreamToken(streamToken)
+                .build();
+    }
 
+    /**
+     * @return the lossless encoding of the song, or null if it isn't encoded yet or can't be and has to be
+     * streamed as it is
+     */
+    private EncodedSong encodeLossless(StreamableSong song, WavHeader header) {
+        if (!LosslessFormat.supports(song.getFormat())) {
             return null;
         }
 
-        buffer.flip();
-        byte[] clientInput = new byte[buffer.remaining()];
-        buffer.get(clientInput);
-
-        return (ClientRequest) ObjectByteConvertor.convertByteArrayToObject(clientInput);
+        try {
+            return losslessCache.openOrEncodeLater(song, header);
+        } catch (IOException e) {
+            System.out.println("A problem occurred while encoding " + song.getName() + ": " + e.getMessage());
+            return null;
+        }
     }
 
-    private void acceptClient(SelectionKey key) {
+    /**
+     * @return the source to stream the song from, or null to let the stream open the song file itself
+     */
+    /**
+     * @return how long the song plays for, infinite if its header can't be read and the whole file is streamed
+     */
+    private double durationOf(StreamableSong song) {
         try {
-            ServerSocketChannel serverChannel = (ServerSocketChannel) key.channel();
-            SocketChannel clientChannel = serverChannel.accept();
-
-            clientChannel.configureBlocking(false);
-            clientChannel.register(selector, SelectionKey.OP_READ);
+            return songHeaders.get(Path.of(song.getPath())).durationOf(song.getFormat());
         } catch (IOException e) {
-            throw new ServerSideException("A problem occurred while accepting a connection!", e);
+            return Double.POSITIVE_INFINITY;
         }
     }
 
-    private void configureServerChannel(ServerSocketChannel serverChannel) throws IOException {
-        serverChannel.bind(new InetSocketAddress(HOST, PORT));
-        serverChannel.configureBlocking(false);
-        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
-
+    private SongSource openSource(StreamableSong song) {
+        try {
+            return songCache.open(song);
+        } catch (IOException e) {
+            System.out.println("A problem occurred while caching " + song.getName() + ": " + e.getMessage());
+            return null;
+        }
     }
 }
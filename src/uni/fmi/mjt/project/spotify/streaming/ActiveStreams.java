@@ -0,0 +1,98 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The stream each user is currently listening to. A user has at most one: opening a new stream
+ * cancels the previous one, so skipping through songs doesn't leave the old ones running to the end.
+ */
+public class ActiveStreams {
+    private final Map<String, StreamHandle> streams;
+    private final LongAdder cancelled;
+    private final LongAdder cancelledBytes;
+
+    public ActiveStreams() {
+        this.streams = new ConcurrentHashMap<>();
+        this.cancelled = new LongAdder();
+        this.cancelledBytes = new LongAdder();
+    }
+
+    /**
+     * Starts tracking a new stream of the whole song file and cancels the one the user was listening to.
+     */
+    public StreamHandle open(String email, StreamableSong song) {
+        return open(email, song, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Starts tracking a new stream of the bytes between the offsets and cancels the one the user was
+     * listening to.
+     */
+    public StreamHandle open(String email, StreamableSong song, long startOffset, long endOffset) {
+        return open(email, song, null, startOffset, endOffset);
+    }
+
+    /**
+     * Starts tracking a new stream of the bytes between the offsets, sent from the given source, and
+     * cancels the one the user was listening to. Without a source the stream opens the song file.
+     */
+    public StreamHandle open(String email, StreamableSong song, SongSource source, long startOffset,
+                             long endOffset) {
+        StreamHandle handle = new StreamHandle(this, email, song, source, startOffset, endOffset);
+        StreamHandle previous = streams.put(email, handle);
+
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        return handle;
+    }
+
+    /**
+     * @return true if the user had a stream that was cancelled
+     */
+    public boolean cancel(String email) {
+        StreamHandle handle = streams.get(email);
+
+        if (handle == null) {
+            return false;
+        }
+
+        handle.cancel();
+        return true;
+    }
+
+    public int size() {
+        return streams.size();
+    }
+
+    /**
+     * @return how fast each active stream is being sent compared to its target rate
+     */
+    public List<StreamRate> getStreamRates() {
+        return streams.values().stream()
+                .map(StreamHandle::getRate)
+                .toList();
+    }
+
+    public StreamMetrics getMetrics() {
+        return new StreamMetrics(streams.size(), cancelled.sum(), cancelledBytes.sum());
+    }
+
+    void remove(StreamHandle handle) {
+        streams.remove(handle.getEmail(), handle);
+    }
+
+    void recordCancelled() {
+        cancelled.increment();
+    }
+
+    void recordCancelledBytes(long bytes) {
+        cancelledBytes.add(bytes);
+    }
+}
@@ -0,0 +1,159 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * One read of a song shared by every listener of the same part of it on a stream loop. The song is
+ * read a chunk at a time into a ring of buffers, and every subscriber sends the chunks from the ring at
+ * its own pace. Reading a new chunk overwrites the oldest one, so a subscriber that is still behind it
+ * has to leave the broadcast and continue on its own. A listener can join while the first chunk is
+ * still in the ring. Used only by the thread of its loop.
+ */
+class Broadcast {
+    private final Key key;
+    private final SongSource source;
+    private final int chunkSize;
+    private final long start;
+    private final long end;
+    private final long chunks;
+    private final ByteBuffer[] slots;
+    private final long[] slotChunks;
+    private final List<BroadcastSubscriber> subscribers;
+    private long nextChunk;
+    private int listeners;
+
+    /**
+     * Streams share a broadcast if they send the same bytes of the same song in the same format.
+     */
+    record Key(String songPath, Format format, long startOffset, long endOffset) {
+        static Key of(StreamHandle handle) {
+            return new Key(handle.getSongPath(), handle.getSong().getFormat(), handle.getStartOffset(),
+                    handle.getEndOffset());
+        }
+    }
+
+    private Broadcast(Key key, SongSource source, int chunkSize, int ringChunks) throws IOException {
+        this.key = key;
+        this.source = source;
+        this.chunkSize = chunkSize;
+        this.end = Math.min(key.endOffset(), source.size());
+        this.start = Math.min(key.startOffset(), end);
+        this.chunks = (end - start + chunkSize - 1) / chunkSize;
+        this.slots = new ByteBuffer[ringChunks];
+        this.slotChunks = new long[ringChunks];
+        this.subscribers = new ArrayList<>();
+
+        for (int i = 0; i < ringChunks; i++) {
+            slots[i] = ByteBuffer.allocateDirect(chunkSize);
+            slotChunks[i] = -1;
+        }
+    }
+
+    /**
+     * Starts a broadcast read from the source, which it closes once its last subscriber leaves.
+     */
+    static Broadcast open(Key key, SongSource source, int chunkSize, int ringChunks) throws IOException {
+        try {
+            return new Broadcast(key, source, chunkSize, ringChunks);
+        } catch (IOException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    Key getKey() {
+        return key;
+    }
+
+    /**
+     * @return true while the first chunk of the song is still in the ring
+     */
+    boolean isJoinable() {
+        return nextChunk <= slots.length;
+    }
+
+    void join(BroadcastSubscriber subscriber) {
+        subscribers.add(subscriber);
+        listeners++;
+    }
+
+    void leave(BroadcastSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    boolean isEmpty() {
+        return subscribers.isEmpty();
+    }
+
+    long getChunks() {
+        return chunks;
+    }
+
+    long getEnd() {
+        return end;
+    }
+
+    long positionOf(long chunk) {
+        return Math.min(start + chunk * chunkSize, end);
+    }
+
+    int lengthOf(long chunk) {
+        return (int) (positionOf(chunk + 1) - positionOf(chunk));
+    }
+
+    /**
+     * Gets a chunk of the song, reading it into the ring if it is the next one. The subscribers that
+     * still need the chunk it replaces are handed to {@code overrun} before it is overwritten, and are
+     * expected to leave the broadcast.
+     *
+     * @return a view of the chunk with its own position, or null if it is no longer in the ring
+     */
+    ByteBuffer chunk(long chunk, Consumer<BroadcastSubscriber> overrun) throws IOException {
+        int slot = (int) (chunk % slots.length);
+
+        if (chunk == nextChunk) {
+            long replaced = chunk - slots.length;
+
+            List.copyOf(subscribers).stream()
+                    .filter(subscriber -> subscriber.getChunk() <= replaced)
+                    .forEach(overrun);
+
+            read(chunk, slots[slot]);
+            slotChunks[slot] = chunk;
+            nextChunk++;
+        }
+
+        if (slotChunks[slot] != chunk) {
+            return null;
+        }
+
+        return slots[slot].duplicate();
+    }
+
+    void close() {
+        source.close();
+        System.out.println("Broadcast of " + key.songPath() + " ended: listeners=" + listeners +
+                ", chunks read=" + nextChunk + " of " + chunks);
+    }
+
+    private void read(long chunk, ByteBuffer buffer) throws IOException {
+        long position = positionOf(chunk);
+
+        buffer.clear();
+        buffer.limit(lengthOf(chunk));
+
+        int read = 0;
+
+        while (buffer.hasRemaining() && read >= 0) {
+            read = source.read(buffer, position + buffer.position());
+        }
+
+        buffer.flip();
+    }
+}
@@ -0,0 +1,108 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.function.Consumer;
+
+/**
+ * A listener of a {@link Broadcast}: how far into the shared chunks its connection has been served.
+ */
+class BroadcastSubscriber {
+    private final SelectionKey key;
+    private final SocketChannel channel;
+    private final StreamHandle handle;
+    private final StreamPacer pacer;
+    private final Broadcast broadcast;
+    private long chunk;
+    private ByteBuffer pending;
+
+    BroadcastSubscriber(SelectionKey key, StreamHandle handle, StreamPacer pacer, Broadcast broadcast) {
+        this.key = key;
+        this.channel = (SocketChannel) key.channel();
+        this.handle = handle;
+        this.pacer = pacer;
+        this.broadcast = broadcast;
+    }
+
+    SelectionKey getKey() {
+        return key;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    StreamHandle getHandle() {
+        return handle;
+    }
+
+    StreamPacer getPacer() {
+        return pacer;
+    }
+
+    Broadcast getBroadcast() {
+        return broadcast;
+    }
+
+    /**
+     * @return the chunk being sent, or the next one to send
+     */
+    long getChunk() {
+        return chunk;
+    }
+
+    /**
+     * @return the position in the file of the next byte to send
+     */
+    long position() {
+        return broadcast.positionOf(chunk) + (pending == null ? 0 : pending.position());
+    }
+
+    long remaining() {
+        return broadcast.getEnd() - position();
+    }
+
+    /**
+     * @return how many nanoseconds to wait before the next chunk may start, 0 if it may start now or a
+     * chunk is already in progress
+     */
+    long pauseNanos() {
+        if (pending != null || chunk >= broadcast.getChunks()) {
+            return 0;
+        }
+
+        return pacer.delayNanos(broadcast.lengthOf(chunk));
+    }
+
+    /**
+     * Starts the next chunk or continues the one in progress, as much as the socket accepts.
+     *
+     * @return false if the chunk is no longer in the ring and the subscriber has to leave the broadcast
+     */
+    boolean transfer(Consumer<BroadcastSubscriber> overrun) throws IOException {
+        if (pending == null) {
+            pending = broadcast.chunk(chunk, overrun);
+
+            if (pending == null) {
+                return false;
+            }
+
+            pacer.consume(pending.remaining());
+        }
+
+        handle.recordSent(channel.write(pending));
+
+        if (!pending.hasRemaining()) {
+            pending = null;
+            chunk++;
+        }
+
+        return true;
+    }
+
+    boolean isFinished() {
+        return pending == null && chunk >= broadcast.getChunks();
+    }
+}
@@ -0,0 +1,81 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.BLOCK_FRAMES;
+
+/**
+ * A song encoded losslessly into a file of the {@link LosslessCache}. The file starts with an index of
+ * where every block is, so a stream can start at any block.
+ */
+public final class EncodedSong {
+    private static final int PERCENT = 100;
+
+    private final Path file;
+    private final long sourceSize;
+    private final long sourceModifiedMillis;
+    private final long dataOffset;
+    private final long dataLength;
+    private final int frameSize;
+    private final long blocksOffset;
+    private final long[] blockOffsets;
+    private final long end;
+
+    EncodedSong(Path file, long sourceSize, long sourceModifiedMillis, long dataOffset, long dataLength,
+                int frameSize, long blocksOffset, long[] blockOffsets, long end) {
+        this.file = file;
+        this.sourceSize = sourceSize;
+        this.sourceModifiedMillis = sourceModifiedMillis;
+        this.dataOffset = dataOffset;
+        this.dataLength = dataLength;
+        this.frameSize = frameSize;
+        this.blocksOffset = blocksOffset;
+        this.blockOffsets = blockOffsets;
+        this.end = end;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the position in the encoded file of the block holding the sample at {@code songOffset}
+     * in the song file, so a stream from there starts a little before it
+     */
+    public long offsetOf(long songOffset) {
+        long frame = Math.max(0, songOffset - dataOffset) / frameSize;
+        long block = frame / BLOCK_FRAMES;
+
+        return block < blockOffsets.length ? blocksOffset + blockOffsets[(int) block] : end;
+    }
+
+    /**
+     * @return the position in the encoded file right after the last block
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the size of the encoded samples as a fraction of the samples of the song
+     */
+    public double getRatio() {
+        return dataLength == 0 ? 1.0 : (double) (end - blocksOffset) / dataLength;
+    }
+
+    public int getRatioPercent() {
+        return (int) Math.round(getRatio() * PERCENT);
+    }
+
+    /**
+     * Opens the encoded file for one stream, paced by how much smaller it is than the song.
+     */
+    public SongSource openSource() throws IOException {
+        return FileSongSource.open(file, getRatio());
+    }
+
+    boolean isEncodingOf(long size, long modifiedMillis) {
+        return sourceSize == size && sourceModifiedMillis == modifiedMillis;
+    }
+}
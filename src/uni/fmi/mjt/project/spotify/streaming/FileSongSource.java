@@ -0,0 +1,72 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A song file opened for a single stream and sent with {@link FileChannel#transferTo}, so the bytes go
+ * from the page cache to the socket without being copied through the heap. A file that holds the song
+ * compressed is played back in proportion to how much smaller it is than the song.
+ */
+public class FileSongSource implements SongSource {
+    private final Path path;
+    private final FileChannel file;
+    private final double compression;
+
+    private FileSongSource(Path path, FileChannel file, double compression) {
+        this.path = path;
+        this.file = file;
+        this.compression = compression;
+    }
+
+    public static FileSongSource open(Path path) throws IOException {
+        return open(path, 1.0);
+    }
+
+    /**
+     * Opens a file that holds a song compressed to {@code compression} of its size.
+     */
+    public static FileSongSource open(Path path, double compression) throws IOException {
+        return new FileSongSource(path, FileChannel.open(path, StandardOpenOption.READ), compression);
+    }
+
+    @Override
+    public long size() throws IOException {
+        return file.size();
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        return file.transferTo(position, count, target);
+    }
+
+    @Override
+    public int read(ByteBuffer target, long position) throws IOException {
+        return file.read(target, position);
+    }
+
+    @Override
+    public long getByteRate(Format format) {
+        return (long) Math.ceil(SongSource.super.getByteRate(format) * compression);
+    }
+
+    @Override
+    public SongSource reopen() throws IOException {
+        return open(path, compression);
+    }
+
+    @Override
+    public void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            System.out.println("A problem occurred while closing " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+import uni.fmi.mjt.project.spotify.utility.WavHeader;
+import uni.fmi.mjt.project.spotify.utility.lossless.LosslessEncoder;
+import uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.BLOCK_FRAMES;
+
+/**
+ * Songs encoded with the lossless codec, kept on disk so each song is encoded once, after its first lossless
+ * play, and every later stream just sends the file. An encoding remembers the size and modification time
+ * of the song it was made from and is made again once the song changes. The file is written next to
+ * its final name and moved in place, so a stream never sees half of it, even after a restart.
+ * <pre>
+ * int magic, int version, long songSize, long songModifiedMillis, long dataOffset, long dataLength,
+ * int frameSize, int blocks, long blockOffset * blocks, Block * blocks
+ * </pre>
+ * Block offsets are relative to the first block.
+ * <p>
+ * The indexes of the most recently played encodings stay in memory, and songs are encoded under one of a
+ * fixed set of locks, so neither grows with the number of songs played.
+ */
+public class LosslessCache {
+    private static final int MAGIC = 0x53504C43;
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".lossless";
+    private static final String ENCODER_THREAD_NAME = "spotify-lossless-encoder";
+    private static final int FIXED_HEADER_SIZE = 2 * Integer.BYTES + 4 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int MAX_OPEN_SONGS = 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path directory;
+    private final Map<Path, EncodedSong> songs;
+    private final Object[] locks;
+    private final Set<Path> encoding;
+    private final ExecutorService encoder;
+
+    public LosslessCache(Path directory) {
+        this.directory = directory;
+        this.songs = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, EncodedSong> eldest) {
+                return size() > MAX_OPEN_SONGS;
+            }
+        });
+        this.locks = new Object[LOCK_STRIPES];
+        Arrays.setAll(locks, stripe -> new Object());
+        this.encoding = ConcurrentHashMap.newKeySet();
+        this.encoder = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name(ENCODER_THREAD_NAME).daemon().factory());
+    }
+
+    /**
+     * Encoding a song reads all of it, so a play doesn't wait for it: the song is encoded on a background
+     * thread and streamed as it is until the encoding is ready.
+     *
+     * @return the current encoding of the song, or null if it is being encoded
+     * @throws IllegalArgumentException if the song isn't in a format the codec supports
+     */
+    public EncodedSong openOrEncodeLater(StreamableSong song, WavHeader header) throws IOException {
+        if (!LosslessFormat.supports(song.getFormat())) {
+            throw new IllegalArgumentException(song.getName() + " can't be encoded losslessly");
+        }
+
+        Path path = Path.of(song.getPath());
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        EncodedSong encoded = songs.get(path);
+
+        if (encoded == null || !encoded.isEncodingOf(size, modified)) {
+            encoded = readIndex(fileOf(song, path), size, modified);
+
+            if (encoded == null) {
+                encodeLater(song, header, path);
+                return null;
+            }
+
+            songs.put(path, encoded);
+        }
+
+        return encoded;
+    }
+
+    /**
+     * @return the encoding of the song, made now if there is no current one yet
+     * @throws IllegalArgumentException if the song isn't in a format the codec supports
+     */
+    public EncodedSong open(StreamableSong song, WavHeader header) throws IOException {
+        if (!LosslessFormat.supports(song.getFormat())) {
+            throw new IllegalArgumentException(song.getName() + " can't be encoded losslessly");
+        }
+
+        Path path = Path.of(song.getPath());
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        EncodedSong encoded = songs.get(path);
+
+        if (encoded != null && encoded.isEncodingOf(size, modified)) {
+            return encoded;
+        }
+
+        synchronized (locks[Math.floorMod(path.hashCode(), locks.length)]) {
+            encoded = songs.get(path);
+
+            if (encoded == null || !encoded.isEncodingOf(size, modified)) {
+                Path file = fileOf(song, path);
+                encoded = readIndex(file, size, modified);
+
+                if (encoded == null) {
+                    encoded = encode(song, path, header, file, size, modified);
+                }
+
+                songs.put(path, encoded);
+            }
+
+            return encoded;
+        }
+    }
+
+    private void encodeLater(StreamableSong song, WavHeader header, Path path) {
+        if (!encoding.add(path)) {
+            return;
+        }
+
+        encoder.execute(() -> {
+            try {
+                open(song, header);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("A problem occurred while encoding " + song.getName() + ": " + e.getMessage());
+            } finally {
+                encoding.remove(path);
+            }
+        });
+    }
+
+    /**
+     * @return the file of the encoding, named after the absolute path of the song, so songs with the same name
+     * in different directories are kept apart
+     */
+    private Path fileOf(StreamableSong song, Path path) {
+        UUID id = UUID.nameUUIDFromBytes(path.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+
+        return directory.resolve(song.getName() + "-" + id + EXTENSION);
+    }
+
+    private static EncodedSong encode(StreamableSong song, Path path, WavHeader header, Path file, long size,
+                                      long modified) throws IOException {
+        long started = System.currentTimeMillis();
+        int frameSize = song.getFormat().getFrameSize();
+        long available = Math.min(header.dataLength(), Math.max(0, size - header.dataOffset()));
+        long dataLength = available - available % frameSize;
+        int blockSize = BLOCK_FRAMES * frameSize;
+        int blocks = (int) ((dataLength + blockSize - 1) / blockSize);
+        long blocksOffset = FIXED_HEADER_SIZE + (long) blocks * Long.BYTES;
+        long[] blockOffsets = new long[blocks];
+
+        Files.createDirectories(file.getParent());
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            LosslessEncoder encoder = new LosslessEncoder(song.getFormat());
+            ByteBuffer pcm = ByteBuffer.allocate(blockSize);
+            long position = header.dataOffset();
+            long end = position + dataLength;
+
+            out.position(blocksOffset);
+
+            for (int block = 0; block < blocks; block++) {
+                blockOffsets[block] = out.position() - blocksOffset;
+
+                pcm.clear().limit((int) Math.min(blockSize, end - position));
+                readFully(in, pcm, position);
+                pcm.flip();
+                position += pcm.remaining();
+
+                writeFully(out, encoder.encode(pcm));
+            }
+
+            ByteBuffer index = ByteBuffer.allocate((int) blocksOffset)
+                    .putInt(MAGIC).putInt(VERSION)
+                    .putLong(size).putLong(modified)
+                    .putLong(header.dataOffset()).putLong(dataLength)
+                    .putInt(frameSize).putInt(blocks);
+
+            for (long offset : blockOffsets) {
+                index.putLong(offset);
+            }
+
+            out.position(0);
+            writeFully(out, index.flip());
+            out.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        EncodedSong encoded = readIndex(file, size, modified);
+
+        if (encoded == null) {
+            throw new IOException("The lossless encoding of " + song.getName() + " couldn't be read back");
+        }
+
+        System.out.println("Encoded " + song.getName() + " losslessly to " + encoded.getRatioPercent() +
+                "% of its size in " + (System.currentTimeMillis() - started) + " ms");
+
+        return encoded;
+    }
+
+    /**
+     * @return the encoding in the file, or null if there is none or it was made from another version of the song
+     */
+    private static EncodedSong readIndex(Path file, long size, long modified) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.size() < FIXED_HEADER_SIZE) {
+                return null;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_SIZE);
+            readFully(in, header, 0);
+            header.flip();
+
+            if (header.getInt() != MAGIC || header.getInt() != VERSION ||
+                    header.getLong() != size || header.getLong() != modified) {
+                return null;
+            }
+
+            long dataOffset = header.getLong();
+            long dataLength = header.getLong();
+            int frameSize = header.getInt();
+            int blocks = header.getInt();
+            long blocksOffset = FIXED_HEADER_SIZE + (long) blocks * Long.BYTES;
+
+            if (frameSize <= 0 || blocks < 0 || blocksOffset > in.size()) {
+                return null;
+            }
+
+            ByteBuffer index = ByteBuffer.allocate(blocks * Long.BYTES);
+            readFully(in, index, FIXED_HEADER_SIZE);
+            index.flip();
+
+            long[] blockOffsets = new long[blocks];
+
+            for (int block = 0; block < blocks; block++) {
+                blockOffsets[block] = index.getLong();
+            }
+
+            return new EncodedSong(file, size, modified, dataOffset, dataLength, frameSize, blocksOffset,
+                    blockOffsets, in.size());
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = in.read(target, position);
+
+            if (read < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            out.write(source);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A stream's view of a song mapped by the {@link SongCache}. Every write takes its own slice of the
+ * shared buffer, so any number of streams can read from it at once without touching its position.
+ * The mapping stays valid while a stream uses it, even if the cache has evicted the song meanwhile.
+ */
+class MappedSongSource implements SongSource {
+    private final MappedByteBuffer buffer;
+
+    MappedSongSource(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public long size() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        if (position >= buffer.capacity()) {
+            return 0;
+        }
+
+        int length = (int) Math.min(count, buffer.capacity() - position);
+
+        return target.write(buffer.slice((int) position, length));
+    }
+
+    @Override
+    public int read(ByteBuffer target, long position) {
+        if (position >= buffer.capacity()) {
+            return -1;
+        }
+
+        int length = (int) Math.min(target.remaining(), buffer.capacity() - position);
+        target.put(buffer.slice((int) position, length));
+
+        return length;
+    }
+
+    @Override
+    public SongSource reopen() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+    }
+}
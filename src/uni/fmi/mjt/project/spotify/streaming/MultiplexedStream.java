@@ -0,0 +1,154 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.utility.MessageFrame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A song sent over the command connection as a sequence of audio frames, closed by an empty audio end
+ * frame. The connection decides when the next frame is written, so messages can be sent between two
+ * frames, but never in the middle of one. The payload of every frame goes from the song source straight
+ * to the socket, see {@link SongSource#transferTo}.
+ */
+public class MultiplexedStream {
+    private final SongSource source;
+    private final StreamHandle handle;
+    private final StreamPacer pacer;
+    private final String songPath;
+    private final int chunkSize;
+    private final long end;
+    private final ByteBuffer header;
+    private long position;
+    private long frameRemaining;
+    private boolean midFrame;
+    private boolean endFrame;
+    private boolean cancelled;
+    private boolean finished;
+
+    public MultiplexedStream(StreamHandle handle, int chunkSize, StreamPacer pacer) throws IOException {
+        this.handle = handle;
+        this.pacer = pacer;
+        this.songPath = handle.getSongPath();
+        this.chunkSize = chunkSize;
+        this.source = handle.openSource();
+        this.end = Math.min(handle.getEndOffset(), source.size());
+        this.header = ByteBuffer.allocate(MessageFrame.HEADER_SIZE);
+        this.position = Math.min(handle.getStartOffset(), end);
+    }
+
+    public StreamHandle getHandle() {
+        return handle;
+    }
+
+    public String getSongPath() {
+        return songPath;
+    }
+
+    /**
+     * @return the number of bytes of the song that are not part of a frame yet
+     */
+    public long remaining() {
+        return end - position - frameRemaining;
+    }
+
+    /**
+     * @return how many nanoseconds to wait before the next frame may start, 0 if it may start now or a
+     * frame is already in progress
+     */
+    public long pauseNanos() {
+        if (midFrame || finished) {
+            return 0;
+        }
+
+        return pacer.delayNanos(Math.min(chunkSize, end - position));
+    }
+
+    /**
+     * @return true if a frame was started but not completely written yet
+     */
+    public boolean isMidFrame() {
+        return midFrame;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Stops the stream without an audio end frame. A frame in progress is still completed by the next
+     * {@link #writeFrame} calls, so the connection keeps its framing.
+     */
+    public void cancel() {
+        cancelled = true;
+
+        if (!midFrame) {
+            finish();
+        }
+    }
+
+    /**
+     * Starts the next frame or continues the one in progress, writing as much as the channel accepts.
+     *
+     * @return true if the frame was written completely
+     */
+    public boolean writeFrame(WritableByteChannel channel) throws IOException {
+        if (finished) {
+            return true;
+        }
+
+        if (!midFrame) {
+            startFrame();
+        }
+
+        if (header.hasRemaining()) {
+            channel.write(header);
+
+            if (header.hasRemaining()) {
+                return false;
+            }
+        }
+
+        while (frameRemaining > 0) {
+            long written = source.transferTo(position, frameRemaining, channel);
+
+            if (written <= 0) {
+                return false;
+            }
+
+            position += written;
+            frameRemaining -= written;
+            handle.recordSent(written);
+        }
+
+        midFrame = false;
+
+        if (endFrame || cancelled) {
+            finish();
+        }
+
+        return true;
+    }
+
+    public void close() {
+        finished = true;
+        handle.release();
+    }
+
+    private void startFrame() {
+        int length = (int) Math.min(chunkSize, end - position);
+        endFrame = length == 0;
+
+        MessageFrame.header(header, endFrame ? MessageFrame.TYPE_AUDIO_END : MessageFrame.TYPE_AUDIO, length);
+        frameRemaining = length;
+        midFrame = true;
+        pacer.consume(length);
+    }
+
+    private void finish() {
+        if (!finished) {
+            close();
+        }
+    }
+}
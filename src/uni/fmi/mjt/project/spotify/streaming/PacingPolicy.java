@@ -0,0 +1,34 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+/**
+ * How fast songs are sent compared to their playback rate.
+ *
+ * @param prerollMillis how much of the song, in milliseconds of playback, is sent right away
+ * @param ratePercent   the sustained send rate as a percentage of the playback rate, 0 to send as fast as
+ *                      the client reads
+ */
+public record PacingPolicy(int prerollMillis, int ratePercent) {
+    public static final PacingPolicy UNPACED = new PacingPolicy(0, 0);
+
+    private static final int PERCENT = 100;
+    private static final int MILLIS_PER_SECOND = 1000;
+
+    public StreamPacer pacerFor(Format format, int chunkSize) {
+        return pacerFor(format == null ? 0 : format.getByteRate(), chunkSize);
+    }
+
+    /**
+     * @param byteRate how many bytes of the stream make up one second of playback
+     */
+    public StreamPacer pacerFor(long byteRate, int chunkSize) {
+        if (ratePercent <= 0 || byteRate <= 0) {
+            return StreamPacer.unpaced();
+        }
+
+        long burst = byteRate * prerollMillis / MILLIS_PER_SECOND;
+
+        return new StreamPacer(byteRate * ratePercent / PERCENT, burst, chunkSize);
+    }
+}
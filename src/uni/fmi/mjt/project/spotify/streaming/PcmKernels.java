@@ -0,0 +1,85 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+/**
+ * The sample transformations behind the lower stream qualities. They work in place on interleaved
+ * 16-bit samples and never allocate. Mono and stereo, the common cases, get loops of their own.
+ * <p>
+ * Resampling supports only a ratio of 2, halving the sample rate, which is all {@link
+ * uni.fmi.mjt.project.spotify.dto.song.format.AudioQuality#MINIMAL} needs. There is no resampling by
+ * fractional ratios, such as 48 kHz to 44.1 kHz.
+ */
+public final class PcmKernels {
+    private PcmKernels() {
+    }
+
+    /**
+     * Mixes the channels of every frame down to one sample, their average. The mono samples end up in
+     * the first {@code frames} elements.
+     */
+    public static void downmix(short[] samples, int frames, int channels) {
+        if (channels == 2) {
+            averagePairs(samples, frames);
+            return;
+        }
+
+        for (int frame = 0; frame < frames; frame++) {
+            int sum = 0;
+
+            for (int channel = 0; channel < channels; channel++) {
+                sum += samples[frame * channels + channel];
+            }
+
+            samples[frame] = (short) (sum / channels);
+        }
+    }
+
+    /**
+     * Halves the sample rate, averaging every two consecutive frames into one, which also filters out most
+     * of the frequencies the lower rate can't represent. The result takes the first {@code frames * channels}
+     * elements. Other integer ratios fall back to a generic loop that no stream quality uses.
+     *
+     * @param frames the number of frames after decimation
+     */
+    public static void decimate(short[] samples, int frames, int channels, int ratio) {
+        if (channels == 1 && ratio == 2) {
+            averagePairs(samples, frames);
+            return;
+        }
+
+        if (channels == 2 && ratio == 2) {
+            for (int frame = 0; frame < frames; frame++) {
+                samples[2 * frame] = (short) ((samples[4 * frame] + samples[4 * frame + 2]) >> 1);
+                samples[2 * frame + 1] = (short) ((samples[4 * frame + 1] + samples[4 * frame + 3]) >> 1);
+            }
+
+            return;
+        }
+
+        for (int frame = 0; frame < frames; frame++) {
+            for (int channel = 0; channel < channels; channel++) {
+                int sum = 0;
+
+                for (int i = 0; i < ratio; i++) {
+                    sum += samples[(frame * ratio + i) * channels + channel];
+                }
+
+                samples[frame * channels + channel] = (short) (sum / ratio);
+            }
+        }
+    }
+
+    /**
+     * Keeps the high byte of every sample, turning 16-bit samples into signed 8-bit ones.
+     */
+    public static void narrow(short[] samples, byte[] target, int count) {
+        for (int i = 0; i < count; i++) {
+            target[i] = (byte) (samples[i] >> Byte.SIZE);
+        }
+    }
+
+    private static void averagePairs(short[] samples, int pairs) {
+        for (int i = 0; i < pairs; i++) {
+            samples[i] = (short) ((samples[2 * i] + samples[2 * i + 1]) >> 1);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-only mappings of the songs that are played the most, so concurrent streams of a hot song share
+ * one mapping instead of each opening the file. The mapped songs never take more than the budget.
+ * When a song doesn't fit, the least played songs are evicted for it, but only if it has been played
+ * more than them, so a song played once doesn't push out the hits. Songs that don't make it in are
+ * streamed from the file as before.
+ */
+public class SongCache {
+    private final long budgetBytes;
+    private final ToIntFunction<String> playCounts;
+    private final Map<Path, CachedSong> songs;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private long usedBytes;
+
+    /**
+     * @param budgetBytes how many bytes of songs may be mapped at once, 0 to stream every song from its file
+     * @param playCounts  how many times a song, given by name, has been played
+     */
+    public SongCache(long budgetBytes, ToIntFunction<String> playCounts) {
+        this.budgetBytes = budgetBytes;
+        this.playCounts = playCounts;
+        this.songs = new ConcurrentHashMap<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    /**
+     * @return the shared mapping of the song if it is or can be cached, otherwise the song file opened
+     * for this stream only
+     */
+    public SongSource open(StreamableSong song) throws IOException {
+        Path path = Path.of(song.getPath());
+        CachedSong cached = songs.get(path);
+
+        if (cached != null && cached.isCurrent(path)) {
+            hits.increment();
+            return cached.use();
+        }
+
+        misses.increment();
+
+        if (budgetBytes > 0) {
+            cached = admit(song.getName(), path);
+
+            if (cached != null) {
+                return cached.use();
+            }
+        }
+
+        return FileSongSource.open(path);
+    }
+
+    public synchronized SongCacheMetrics getMetrics() {
+        return new SongCacheMetrics(songs.size(), usedBytes, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * Maps the song if it fits in the budget, evicting songs that were played less.
+     *
+     * @return the mapped song, or null if it wasn't admitted
+     */
+    private synchronized CachedSong admit(String name, Path path) throws IOException {
+        CachedSong cached = songs.get(path);
+
+        if (cached != null) {
+            if (cached.isCurrent(path)) {
+                return cached;
+            }
+
+            remove(cached);
+        }
+
+        long size = Files.size(path);
+
+        if (size > budgetBytes || size > Integer.MAX_VALUE) {
+            return null;
+        }
+
+        int plays = playCounts.applyAsInt(name);
+
+        while (usedBytes + size > budgetBytes) {
+            CachedSong victim = songs.values().stream()
+                    .min(Comparator.comparingInt((CachedSong song) -> playCounts.applyAsInt(song.name))
+                            .thenComparingLong(song -> song.lastUsed))
+                    .orElseThrow();
+
+            if (playCounts.applyAsInt(victim.name) >= plays) {
+                return null;
+            }
+
+            remove(victim);
+            evictions.increment();
+        }
+
+        cached = map(name, path);
+        songs.put(path, cached);
+        usedBytes += cached.size;
+
+        return cached;
+    }
+
+    private void remove(CachedSong cached) {
+        songs.remove(cached.path);
+        usedBytes -= cached.size;
+    }
+
+    private static CachedSong map(String name, Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            FileTime modified = Files.getLastModifiedTime(path);
+            MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+
+            return new CachedSong(name, path, buffer, modified);
+        }
+    }
+
+    private static final class CachedSong {
+        private final String name;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final long size;
+        private final FileTime modified;
+        private volatile long lastUsed;
+
+        private CachedSong(String name, Path path, MappedByteBuffer buffer, FileTime modified) {
+            this.name = name;
+            this.path = path;
+            this.buffer = buffer;
+            this.size = buffer.capacity();
+            this.modified = modified;
+        }
+
+        /**
+         * @return false if the file was changed since it was mapped
+         */
+        private boolean isCurrent(Path path) throws IOException {
+            return Files.size(path) == size && Files.getLastModifiedTime(path).equals(modified);
+        }
+
+        private SongSource use() {
+            lastUsed = System.nanoTime();
+
+            return new MappedSongSource(buffer);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+public record SongCacheMetrics(int songs, long usedBytes, long hits, long misses, long evictions) {
+    @Override
+    public String toString() {
+        return "songs=" + songs + ", usedBytes=" + usedBytes + ", hits=" + hits + ", misses=" + misses +
+                ", evictions=" + evictions;
+    }
+}
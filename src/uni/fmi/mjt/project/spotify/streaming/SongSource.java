@@ -0,0 +1,46 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The bytes of a song file a stream is sent from, either the file itself or a mapping of it shared by
+ * every stream of the song.
+ */
+public interface SongSource {
+    long size() throws IOException;
+
+    /**
+     * Writes at most {@code count} bytes starting at {@code position}, as many as the channel accepts.
+     *
+     * @return the number of bytes written
+     */
+    long transferTo(long position, long count, WritableByteChannel target) throws IOException;
+
+    /**
+     * Copies bytes starting at {@code position} into the buffer, as many as fit.
+     *
+     * @return the number of bytes read, -1 if the position is at the end of the song
+     */
+    int read(ByteBuffer target, long position) throws IOException;
+
+    /**
+     * @return how many bytes of the source make up one second of playback of a song in the format
+     */
+    default long getByteRate(Format format) {
+        return format == null ? 0 : format.getByteRate();
+    }
+
+    /**
+     * Opens another source of the same bytes, which can outlive this one.
+     */
+    SongSource reopen() throws IOException;
+
+    /**
+     * Lets go of the source once the stream is done with it.
+     */
+    void close();
+}
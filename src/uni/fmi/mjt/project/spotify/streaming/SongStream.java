@@ -0,0 +1,86 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * State of one song being sent over a non-blocking socket: the source of the song and how far into it the
+ * client has been served.
+ */
+public class SongStream {
+    private final SocketChannel channel;
+    private final SongSource source;
+    private final StreamHandle handle;
+    private final StreamPacer pacer;
+    private final String songPath;
+    private final long end;
+    private long position;
+
+    public SongStream(SocketChannel channel, StreamHandle handle, StreamPacer pacer) throws IOException {
+        this(channel, handle, pacer, handle.getStartOffset());
+    }
+
+    /**
+     * Continues a stream that was served from elsewhere until now, starting at {@code position}.
+     */
+    SongStream(SocketChannel channel, StreamHandle handle, StreamPacer pacer, long position) throws IOException {
+        this.channel = channel;
+        this.handle = handle;
+        this.pacer = pacer;
+        this.songPath = handle.getSongPath();
+        this.source = handle.openSource();
+        this.end = Math.min(handle.getEndOffset(), source.size());
+        this.position = Math.min(position, end);
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public StreamHandle getHandle() {
+        return handle;
+    }
+
+    public String getSongPath() {
+        return songPath;
+    }
+
+    /**
+     * @return the number of bytes of the song that are still to be sent
+     */
+    public long remaining() {
+        return end - position;
+    }
+
+    /**
+     * @return how many nanoseconds the stream has to wait before its next chunk, 0 if it may be sent now
+     */
+    public long pauseNanos(int chunkSize) {
+        return pacer.delayNanos(Math.min(chunkSize, end - position));
+    }
+
+    /**
+     * Sends at most {@code chunkSize} bytes of the song, as many as the socket accepts without blocking.
+     *
+     * @return true if the whole song has been sent
+     */
+    public boolean transfer(int chunkSize) throws IOException {
+        long sent = source.transferTo(position, Math.min(chunkSize, end - position), channel);
+
+        position += sent;
+        pacer.consume(sent);
+        handle.recordSent(sent);
+
+        return position >= end;
+    }
+
+    public void close() {
+        handle.release();
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("A problem occurred while closing a stream connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One song stream of a user, from the play command until its last byte is sent or it is cancelled.
+ * Whoever serves the stream attaches a canceller that stops it on the serving thread and reports the
+ * bytes it sends, which gives the send rate of the stream. The source of the song bytes belongs to
+ * the stream and is let go when the stream ends.
+ */
+public class StreamHandle {
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final ActiveStreams owner;
+    private final String email;
+    private final StreamableSong song;
+    private final long startOffset;
+    private final long endOffset;
+    private final long openedAt;
+    private final AtomicLong bytesSent;
+    private volatile long targetBytesPerSecond;
+    private SongSource source;
+    private Runnable canceller;
+    private boolean cancelled;
+    private boolean released;
+
+    StreamHandle(ActiveStreams owner, String email, StreamableSong song, SongSource source, long startOffset,
+                 long endOffset) {
+        this.owner = owner;
+        this.email = email;
+        this.song = song;
+        this.source = source;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.openedAt = System.nanoTime();
+        this.bytesSent = new AtomicLong();
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public StreamableSong getSong() {
+        return song;
+    }
+
+    public String getSongPath() {
+        return song.getPath();
+    }
+
+    /**
+     * @return the position in the file of the first byte to send
+     */
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return the position in the file right after the last byte to send, capped by the file size when streaming
+     */
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return the source the stream was opened with, or the song file if it was opened without one
+     */
+    public synchronized SongSource openSource() throws IOException {
+        if (released) {
+            throw new IOException("The stream of " + song.getName() + " has already ended");
+        }
+
+        if (source == null) {
+            source = FileSongSource.open(Path.of(song.getPath()));
+        }
+
+        return source;
+    }
+
+    /**
+     * Creates the pacer of the stream and remembers its rate as the target of the stream. The rate follows
+     * the source the stream was opened with, which may hold the song in fewer bytes than it plays.
+     */
+    public StreamPacer createPacer(PacingPolicy pacing, int chunkSize) {
+        SongSource attached;
+
+        synchronized (this) {
+            attached = source;
+        }
+
+        StreamPacer pacer = attached == null
+                ? pacing.pacerFor(song.getFormat(), chunkSize)
+                : pacing.pacerFor(attached.getByteRate(song.getFormat()), chunkSize);
+        targetBytesPerSecond = pacer.getBytesPerSecond();
+
+        return pacer;
+    }
+
+    public void recordSent(long bytes) {
+        bytesSent.addAndGet(bytes);
+    }
+
+    public StreamRate getRate() {
+        double seconds = (System.nanoTime() - openedAt) / NANOS_PER_SECOND;
+        long sent = bytesSent.get();
+        long bytesPerSecond = seconds > 0 ? Math.round(sent / seconds) : 0;
+
+        return new StreamRate(email, song.getName(), sent, bytesPerSecond, targetBytesPerSecond);
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Sets how the stream is stopped once it is being served. Runs the canceller right away if the
+     * stream was cancelled before it started.
+     */
+    public void onCancel(Runnable canceller) {
+        synchronized (this) {
+            if (!cancelled) {
+                this.canceller = canceller;
+                return;
+            }
+        }
+
+        canceller.run();
+    }
+
+    /**
+     * Stops the stream. Does nothing if the stream has already ended.
+     */
+    public void cancel() {
+        Runnable stop;
+
+        synchronized (this) {
+            if (cancelled || released) {
+                return;
+            }
+
+            cancelled = true;
+            stop = canceller;
+        }
+
+        owner.remove(this);
+        owner.recordCancelled();
+
+        if (stop != null) {
+            stop.run();
+        }
+    }
+
+    /**
+     * Marks the stream as ended, whether it was sent completely or cut off.
+     */
+    public void release() {
+        SongSource used;
+
+        synchronized (this) {
+            if (released) {
+                return;
+            }
+
+            released = true;
+            canceller = null;
+            used = source;
+        }
+
+        if (used != null) {
+            used.close();
+        }
+
+        owner.remove(this);
+        System.out.println("Stream ended: " + getRate());
+    }
+
+    /**
+     * Counts the bytes of the song that were not sent because the stream was cancelled.
+     */
+    public void recordCancelledBytes(long bytes) {
+        owner.recordCancelledBytes(bytes);
+    }
+}
@@ -0,0 +1,52 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.utility.StreamToken;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A freshly accepted stream connection whose token hasn't fully arrived yet.
+ */
+public class StreamHandshake {
+    private final SocketChannel channel;
+    private final ByteBuffer token;
+
+    public StreamHandshake(SocketChannel channel) {
+        this.channel = channel;
+        this.token = ByteBuffer.allocate(StreamToken.SIZE);
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Reads as much of the token as is available without blocking.
+     *
+     * @return the token once all of its bytes arrived, otherwise null
+     * @throws IOException if the connection was closed before the token arrived
+     */
+    public String readToken() throws IOException {
+        if (channel.read(token) < 0) {
+            throw new IOException("Stream connection closed before presenting a token");
+        }
+
+        if (token.hasRemaining()) {
+            return null;
+        }
+
+        token.flip();
+
+        return StreamToken.fromBytes(token);
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("A problem occurred while closing a stream connection: " + e.getMessage());
+        }
+    }
+}
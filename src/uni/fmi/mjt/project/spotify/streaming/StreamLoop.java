@@ -0,0 +1,412 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.exception.ServerSideException;
+import uni.fmi.mjt.project.spotify.utility.TimerQueue;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Drives many song streams from a single thread. A new connection is first read until its stream
+ * token arrives and is matched to a play request, and is closed if the token doesn't arrive in time.
+ * From then on it is registered for OP_WRITE and gets at most one chunk per readiness event, so all
+ * streams of the loop progress at the pace of their clients.
+ * A cancelled stream is closed on the loop thread, together with its connection.
+ * <p>
+ * Paced streams that are ahead of their playback rate stop listening for OP_WRITE and are woken up by
+ * a timer of the loop once they may send their next chunk.
+ * <p>
+ * Once its token is matched, a connection moves to the loop its song is routed to, so listeners of the
+ * same song end up on the same loop. There they subscribe to a {@link Broadcast} of the song, which
+ * reads every chunk once for all of them. A subscriber that falls too far behind the others continues
+ * as an independent {@link SongStream} from where it was.
+ */
+public class StreamLoop implements Runnable {
+    private final Selector selector;
+    private final int chunkSize;
+    private final int broadcastChunks;
+    private final long handshakeTimeoutNanos;
+    private final StreamSessions sessions;
+    private final PacingPolicy pacing;
+    private final Function<StreamHandle, StreamLoop> router;
+    private final TimerQueue timers;
+    private final Map<Broadcast.Key, Broadcast> broadcasts;
+    private final Queue<SocketChannel> pendingConnections;
+    private final Queue<Runnable> pendingTasks;
+
+    private volatile boolean running;
+
+    /**
+     * @param broadcastChunks        how many chunks the ring of a broadcast holds, 0 to serve every stream on
+     *                               its own
+     * @param handshakeTimeoutMillis how long a new connection has to present its token
+     * @param router                 the loop that serves the streams of a song
+     */
+    public StreamLoop(int chunkSize, int broadcastChunks, long handshakeTimeoutMillis, StreamSessions sessions,
+                      PacingPolicy pacing, Function<StreamHandle, StreamLoop> router) throws IOException {
+        this.selector = Selector.open();
+        this.chunkSize = chunkSize;
+        this.broadcastChunks = broadcastChunks;
+        this.handshakeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(handshakeTimeoutMillis);
+        this.sessions = sessions;
+        this.pacing = pacing;
+        this.router = router;
+        this.timers = new TimerQueue();
+        this.broadcasts = new HashMap<>();
+        this.pendingConnections = new ConcurrentLinkedQueue<>();
+        this.pendingTasks = new ConcurrentLinkedQueue<>();
+        this.running = true;
+    }
+
+    Selector getSelector() {
+        return selector;
+    }
+
+    /**
+     * Hands an accepted stream connection over to this loop. Safe to call from any thread.
+     */
+    public void add(SocketChannel clientChannel) {
+        pendingConnections.add(clientChannel);
+        selector.wakeup();
+    }
+
+    /**
+     * Runs the task on the loop thread during its next iteration. Safe to call from any thread.
+     */
+    public void execute(Runnable task) {
+        pendingTasks.add(task);
+        selector.wakeup();
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                timers.select(selector);
+
+                timers.runDue();
+                runPendingTasks();
+                registerPendingConnections();
+                processReadyKeys(selector.selectedKeys().iterator());
+            }
+        } catch (IOException e) {
+            throw new ServerSideException("A problem occurred in the stream loop " +
+                    Thread.currentThread().getName(), e);
+        } catch (ClosedSelectorException e) {
+            System.out.println("Stream loop " + Thread.currentThread().getName() + " was closed");
+        } finally {
+            closeSelector();
+        }
+    }
+
+    private void runPendingTasks() {
+        Runnable task;
+
+        while ((task = pendingTasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.out.println("A problem occurred while running a task of the stream loop: " + e.getMessage());
+            }
+        }
+    }
+
+    private void registerPendingConnections() {
+        SocketChannel clientChannel;
+
+        while ((clientChannel = pendingConnections.poll()) != null) {
+            StreamHandshake handshake = new StreamHandshake(clientChannel);
+
+            try {
+                clientChannel.configureBlocking(false);
+                SelectionKey key = clientChannel.register(selector, SelectionKey.OP_READ, handshake);
+                timers.schedule(handshakeTimeoutNanos, () -> expireHandshake(key, handshake));
+            } catch (IOException e) {
+                System.out.println("A problem occurred while registering a stream connection: " + e.getMessage());
+                handshake.close();
+            }
+        }
+    }
+
+    private void processReadyKeys(Iterator<SelectionKey> keyIterator) {
+        while (keyIterator.hasNext()) {
+            SelectionKey key = keyIterator.next();
+            keyIterator.remove();
+
+            if (!key.isValid()) {
+                continue;
+            }
+
+            try {
+                processReadyKey(key);
+            } catch (RuntimeException e) {
+                System.out.println("A problem occurred while serving a stream connection: " + e.getMessage());
+                closeKey(key);
+            }
+        }
+    }
+
+    private void processReadyKey(SelectionKey key) {
+        if (key.attachment() instanceof Runnable acceptHandler && key.isAcceptable()) {
+            acceptHandler.run();
+        } else if (key.attachment() instanceof StreamHandshake handshake && key.isReadable()) {
+            completeHandshake(key, handshake);
+        } else if (key.attachment() instanceof SongStream stream && key.isWritable()) {
+            sendChunk(key, stream);
+        } else if (key.attachment() instanceof BroadcastSubscriber subscriber && key.isWritable()) {
+            sendBroadcastChunk(key, subscriber);
+        }
+    }
+
+    /**
+     * Closes the stream or the handshake of a connection that failed. The stream listener keeps listening.
+     */
+    private void closeKey(SelectionKey key) {
+        if (key.attachment() instanceof SongStream stream) {
+            key.cancel();
+            stream.close();
+        } else if (key.attachment() instanceof BroadcastSubscriber subscriber) {
+            closeSubscriber(subscriber);
+        } else if (key.attachment() instanceof StreamHandshake handshake) {
+            key.cancel();
+            handshake.close();
+        }
+    }
+
+    private void completeHandshake(SelectionKey key, StreamHandshake handshake) {
+        try {
+            String token = handshake.readToken();
+
+            if (token == null) {
+                return;
+            }
+
+            StreamHandle handle = sessions.claim(token);
+
+            if (handle == null) {
+                System.out.println("A stream connection presented an unknown, expired or cancelled token");
+                key.cancel();
+                handshake.close();
+                return;
+            }
+
+            StreamLoop owner = broadcastChunks > 0 ? router.apply(handle) : this;
+
+            if (owner != this) {
+                key.cancel();
+                owner.execute(() -> owner.adoptStream(handshake.getChannel(), handle));
+                return;
+            }
+
+            startStream(key, handle);
+        } catch (IOException e) {
+            System.out.println("A stream connection failed before streaming started: " + e.getMessage());
+            key.cancel();
+            handshake.close();
+        }
+    }
+
+    /**
+     * Closes the connection if it is still waiting for its token.
+     */
+    private void expireHandshake(SelectionKey key, StreamHandshake handshake) {
+        if (key.isValid() && key.attachment() == handshake) {
+            System.out.println("A stream connection didn't present its token in time");
+            key.cancel();
+            handshake.close();
+        }
+    }
+
+    /**
+     * Takes over a connection whose token was matched on another loop.
+     */
+    private void adoptStream(SocketChannel channel, StreamHandle handle) {
+        try {
+            startStream(channel.register(selector, 0), handle);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("A stream connection failed before streaming started: " + e.getMessage());
+            handle.release();
+            closeChannel(channel);
+        }
+    }
+
+    private void startStream(SelectionKey key, StreamHandle handle) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        StreamPacer pacer = handle.createPacer(pacing, chunkSize);
+
+        if (broadcastChunks > 0) {
+            Broadcast broadcast = joinBroadcast(handle);
+            BroadcastSubscriber subscriber = new BroadcastSubscriber(key, handle, pacer, broadcast);
+
+            broadcast.join(subscriber);
+            key.attach(subscriber);
+        } else {
+            key.attach(new SongStream(channel, handle, pacer));
+        }
+
+        key.interestOps(SelectionKey.OP_WRITE);
+        handle.onCancel(() -> execute(() -> cancelStream(key)));
+
+        System.out.println("Streaming music " + handle.getSongPath());
+    }
+
+    private Broadcast joinBroadcast(StreamHandle handle) throws IOException {
+        Broadcast.Key broadcastKey = Broadcast.Key.of(handle);
+        Broadcast broadcast = broadcasts.get(broadcastKey);
+
+        if (broadcast == null || !broadcast.isJoinable()) {
+            broadcast = Broadcast.open(broadcastKey, handle.openSource().reopen(), chunkSize, broadcastChunks);
+            broadcasts.put(broadcastKey, broadcast);
+        }
+
+        return broadcast;
+    }
+
+    private void sendChunk(SelectionKey key, SongStream stream) {
+        long pause = stream.pauseNanos(chunkSize);
+
+        if (pause > 0) {
+            key.interestOps(0);
+            timers.schedule(pause, () -> resumeStream(key));
+            return;
+        }
+
+        try {
+            if (stream.transfer(chunkSize)) {
+                key.cancel();
+                stream.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Stream of " + stream.getSongPath() + " was interrupted: " + e.getMessage());
+
+            key.cancel();
+            stream.close();
+        }
+    }
+
+    private void sendBroadcastChunk(SelectionKey key, BroadcastSubscriber subscriber) {
+        long pause = subscriber.pauseNanos();
+
+        if (pause > 0) {
+            key.interestOps(0);
+            timers.schedule(pause, () -> resumeStream(key));
+            return;
+        }
+
+        try {
+            if (!subscriber.transfer(this::continueAlone)) {
+                continueAlone(subscriber);
+            } else if (subscriber.isFinished()) {
+                closeSubscriber(subscriber);
+            }
+        } catch (IOException e) {
+            System.out.println("Stream of " + subscriber.getHandle().getSongPath() + " was interrupted: " +
+                    e.getMessage());
+
+            closeSubscriber(subscriber);
+        }
+    }
+
+    /**
+     * Moves a subscriber that fell behind its broadcast to a stream of its own, from the byte it got to.
+     */
+    private void continueAlone(BroadcastSubscriber subscriber) {
+        SelectionKey key = subscriber.getKey();
+        leaveBroadcast(subscriber);
+
+        try {
+            SongStream stream = new SongStream(subscriber.getChannel(), subscriber.getHandle(),
+                    subscriber.getPacer(), subscriber.position());
+            key.attach(stream);
+
+            System.out.println("Stream of " + stream.getSongPath() + " fell behind its broadcast at " +
+                    subscriber.position() + " and continues on its own");
+        } catch (IOException e) {
+            System.out.println("A problem occurred while leaving a broadcast: " + e.getMessage());
+
+            key.cancel();
+            subscriber.getHandle().release();
+            closeChannel(subscriber.getChannel());
+        }
+    }
+
+    private void closeSubscriber(BroadcastSubscriber subscriber) {
+        subscriber.getKey().cancel();
+        leaveBroadcast(subscriber);
+        subscriber.getHandle().release();
+        closeChannel(subscriber.getChannel());
+    }
+
+    private void leaveBroadcast(BroadcastSubscriber subscriber) {
+        Broadcast broadcast = subscriber.getBroadcast();
+        broadcast.leave(subscriber);
+
+        if (broadcast.isEmpty()) {
+            broadcasts.remove(broadcast.getKey(), broadcast);
+            broadcast.close();
+        }
+    }
+
+    private void resumeStream(SelectionKey key) {
+        if (key.isValid()) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void cancelStream(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+
+        if (key.attachment() instanceof SongStream stream) {
+            stream.getHandle().recordCancelledBytes(stream.remaining());
+
+            key.cancel();
+            stream.close();
+        } else if (key.attachment() instanceof BroadcastSubscriber subscriber) {
+            subscriber.getHandle().recordCancelledBytes(subscriber.remaining());
+            closeSubscriber(subscriber);
+        }
+    }
+
+    private static void closeChannel(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("A problem occurred while closing a stream connection: " + e.getMessage());
+        }
+    }
+
+    private void closeSelector() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof SongStream stream) {
+                    stream.close();
+                } else if (key.attachment() instanceof BroadcastSubscriber subscriber) {
+                    closeSubscriber(subscriber);
+                } else if (key.attachment() instanceof StreamHandshake handshake) {
+                    handshake.close();
+                }
+            }
+
+            selector.close();
+        } catch (IOException e) {
+            throw new ServerSideException("A problem occurred while closing the stream loop selector", e);
+        }
+    }
+}
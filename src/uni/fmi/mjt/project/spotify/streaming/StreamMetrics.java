@@ -0,0 +1,8 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+public record StreamMetrics(int active, long cancelled, long cancelledBytes) {
+    @Override
+    public String toString() {
+        return "active=" + active + ", cancelled=" + cancelled + ", cancelledBytes=" + cancelledBytes;
+    }
+}
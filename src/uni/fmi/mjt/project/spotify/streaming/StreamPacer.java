@@ -0,0 +1,73 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+/**
+ * A token bucket that meters a stream to a fixed byte rate. The bucket starts with a pre-roll burst,
+ * so playback can begin right away, and after that it never holds more than one chunk, so a client that
+ * stalls for a while doesn't get a second burst when it catches up.
+ * <p>
+ * A pacer is used by a single thread at a time.
+ */
+public class StreamPacer {
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final double bytesPerNano;
+    private final long capacity;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param bytesPerSecond the sustained rate, 0 or less to send without pacing
+     * @param burstBytes     the bytes that may be sent right away
+     * @param capacity       the most bytes the bucket collects once the burst is used up
+     */
+    public StreamPacer(long bytesPerSecond, long burstBytes, long capacity) {
+        this.bytesPerNano = bytesPerSecond / NANOS_PER_SECOND;
+        this.capacity = capacity;
+        this.tokens = Math.max(burstBytes, capacity);
+        this.lastRefill = System.nanoTime();
+    }
+
+    public static StreamPacer unpaced() {
+        return new StreamPacer(0, 0, 0);
+    }
+
+    public boolean isPaced() {
+        return bytesPerNano > 0;
+    }
+
+    public long getBytesPerSecond() {
+        return Math.round(bytesPerNano * NANOS_PER_SECOND);
+    }
+
+    /**
+     * @return how many nanoseconds to wait before the next {@code bytes} may be sent, 0 if they may go now
+     */
+    public long delayNanos(long bytes) {
+        if (!isPaced()) {
+            return 0;
+        }
+
+        refill(System.nanoTime());
+
+        double wanted = Math.min(bytes, capacity);
+
+        if (tokens >= wanted) {
+            return 0;
+        }
+
+        return (long) Math.ceil((wanted - tokens) / bytesPerNano);
+    }
+
+    public void consume(long bytes) {
+        if (isPaced()) {
+            tokens -= bytes;
+        }
+    }
+
+    private void refill(long now) {
+        double refilled = tokens + (now - lastRefill) * bytesPerNano;
+
+        tokens = Math.max(tokens, Math.min(capacity, refilled));
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,12 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+/**
+ * Send rate of a single stream since its play command. A target of 0 means the stream isn't paced.
+ */
+public record StreamRate(String email, String song, long bytesSent, long bytesPerSecond, long targetBytesPerSecond) {
+    @Override
+    public String toString() {
+        return email + " <- " + song + ": sent=" + bytesSent + ", rate=" + bytesPerSecond + " B/s" +
+                ", target=" + targetBytesPerSecond + " B/s";
+    }
+}
@@ -0,0 +1,81 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Play requests that are waiting for their stream connection, keyed by the token handed to the client.
+ * A token can be claimed only once, only before it expires and only while its stream isn't cancelled.
+ * Stale entries are swept lazily while new ones are registered, so no extra thread is needed.
+ */
+public class StreamSessions {
+    private final long ttlNanos;
+    private final Map<String, PendingStream> sessions;
+    private volatile long nextSweep;
+
+    public StreamSessions(long ttlMillis) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.sessions = new ConcurrentHashMap<>();
+        this.nextSweep = System.nanoTime() + ttlNanos;
+    }
+
+    /**
+     * @return the token the client has to present on its stream connection
+     */
+    public String register(StreamHandle stream) {
+        long now = System.nanoTime();
+        sweepIfNeeded(now);
+
+        String token = UUID.randomUUID().toString();
+        sessions.put(token, new PendingStream(stream, now + ttlNanos));
+
+        return token;
+    }
+
+    /**
+     * @return the stream registered for the token or null if the token is unknown, already used or expired,
+     * or if the stream was cancelled before the client connected
+     */
+    public StreamHandle claim(String token) {
+        PendingStream pending = sessions.remove(token);
+
+        if (pending == null) {
+            return null;
+        }
+
+        if (pending.isExpired(System.nanoTime()) || pending.stream().isCancelled()) {
+            pending.stream().release();
+            return null;
+        }
+
+        return pending.stream();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void sweepIfNeeded(long now) {
+        if (now - nextSweep < 0) {
+            return;
+        }
+
+        nextSweep = now + ttlNanos;
+        sessions.values().removeIf(pending -> {
+            boolean stale = pending.isExpired(now) || pending.stream().isCancelled();
+
+            if (stale) {
+                pending.stream().release();
+            }
+
+            return stale;
+        });
+    }
+
+    private record PendingStream(StreamHandle stream, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.exception.ServerSideException;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams songs from a small, fixed set of selector threads instead of holding a thread per listener.
+ * The first loop also accepts the stream connections and spreads them over all loops, where they are
+ * matched to their play request by the token they present. The streams of a song are then served by
+ * the loop the song hashes to, so its listeners can share a broadcast of it.
+ */
+public class StreamingEngine implements StreamingService {
+    private static final String STREAM_LOOP_THREAD_NAME = "spotify-stream-loop-";
+
+    private final List<StreamLoop> loops;
+    private final StreamSessions sessions;
+    private ServerSocketChannel listener;
+    private int nextLoop;
+
+    public StreamingEngine(int streamLoops, int chunkSize, int broadcastChunks, long handshakeTimeoutMillis,
+                           StreamSessions sessions, PacingPolicy pacing) {
+        this.loops = new ArrayList<>(streamLoops);
+        this.sessions = sessions;
+        this.nextLoop = 0;
+
+        try {
+            for (int i = 0; i < streamLoops; i++) {
+                loops.add(new StreamLoop(chunkSize, broadcastChunks, handshakeTimeoutMillis, sessions, pacing,
+                        this::loopFor));
+            }
+        } catch (IOException e) {
+            throw new ServerSideException("A problem occurred while opening the stream loops", e);
+        }
+    }
+
+    @Override
+    public void start(ServerSocketChannel listener) throws IOException {
+        this.listener = listener;
+
+        StreamLoop acceptingLoop = loops.get(0);
+        listener.configureBlocking(false);
+        acceptingLoop.execute(this::registerListener);
+
+        for (int i = 0; i < loops.size(); i++) {
+            Thread thread = new Thread(loops.get(i), STREAM_LOOP_THREAD_NAME + i);
+            thread.start();
+        }
+    }
+
+    @Override
+    public String streamSong(StreamHandle stream) {
+        return sessions.register(stream);
+    }
+
+    @Override
+    public void shutdown() {
+        loops.forEach(StreamLoop::shutdown);
+    }
+
+    private StreamLoop loopFor(StreamHandle handle) {
+        return loops.get(Math.floorMod(handle.getSongPath().hashCode(), loops.size()));
+    }
+
+    private void registerListener() {
+        try {
+            Runnable acceptHandler = this::acceptStreams;
+            listener.register(loops.get(0).getSelector(), SelectionKey.OP_ACCEPT, acceptHandler);
+        } catch (IOException e) {
+            throw new ServerSideException("A problem occurred while listening for stream connections", e);
+        }
+    }
+
+    private void acceptStreams() {
+        try {
+            SocketChannel clientChannel;
+
+            while ((clientChannel = listener.accept()) != null) {
+                loops.get(nextLoop).add(clientChannel);
+                nextLoop = (nextLoop + 1) % loops.size();
+            }
+        } catch (IOException e) {
+            System.out.println("A problem occurred while accepting a stream connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * Sends song bytes over the connections clients open to the stream port after a successful play.
+ */
+public interface StreamingService {
+    /**
+     * Starts serving the connections that arrive on the listener.
+     */
+    void start(ServerSocketChannel listener) throws IOException;
+
+    /**
+     * Registers a song to be sent over the stream connection that presents the returned token. The
+     * stream stops early and its connection is closed if the handle is cancelled.
+     *
+     * @return the stream token the client has to send as the first bytes of its stream connection
+     */
+    String streamSong(StreamHandle stream);
+
+    void shutdown();
+}
@@ -0,0 +1,194 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.AudioQuality;
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+import uni.fmi.mjt.project.spotify.utility.WavHeader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The samples of a song in a lower {@link AudioQuality}, transcoded from another source as they are
+ * streamed. Positions are in the transcoded samples, which start at 0, so a stream of it covers
+ * {@code 0} to {@link #size()}. The song is transcoded a block at a time into buffers allocated once
+ * per stream, and the last block is kept, so a socket that takes a chunk in several writes doesn't
+ * transcode it again. Used by one stream at a time.
+ */
+public class TranscodedSongSource implements SongSource {
+    private static final int BLOCK_FRAMES = 4096;
+
+    private final SongSource source;
+    private final WavHeader header;
+    private final Format original;
+    private final AudioQuality quality;
+    private final Format format;
+    private final int inputFrameSize;
+    private final int inputChannels;
+    private final int decimation;
+    private final int frameSize;
+    private final long frames;
+    private final ByteBuffer input;
+    private final ShortBuffer inputSamples;
+    private final ByteBuffer output;
+    private final ShortBuffer outputSamples;
+    private final short[] samples;
+    private final byte[] narrowed;
+    private long blockFrame;
+    private int blockFrames;
+
+    public TranscodedSongSource(SongSource source, WavHeader header, Format original, AudioQuality quality)
+            throws IOException {
+        if (!quality.transcodes(original)) {
+            throw new IllegalArgumentException("Songs in " + original.getEncoding() + " with " +
+                    original.getSampleBits() + "-bit samples can't be streamed in " + quality + " quality");
+        }
+
+        ByteOrder order = original.isBigEndian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+
+        this.source = source;
+        this.header = header;
+        this.original = original;
+        this.quality = quality;
+        this.format = quality.transform(original);
+        this.inputFrameSize = original.getFrameSize();
+        this.inputChannels = original.getChannels();
+        this.decimation = quality.getDecimation();
+        this.frameSize = format.getFrameSize();
+
+        long dataLength = Math.min(header.dataLength(), Math.max(0, source.size() - header.dataOffset()));
+        this.frames = dataLength / inputFrameSize / decimation;
+
+        int inputSize = BLOCK_FRAMES * decimation * inputFrameSize;
+        this.input = ByteBuffer.allocateDirect(inputSize).order(order);
+        this.inputSamples = input.asShortBuffer();
+        this.output = ByteBuffer.allocateDirect(BLOCK_FRAMES * frameSize).order(order);
+        this.outputSamples = output.asShortBuffer();
+        this.samples = new short[inputSize / Short.BYTES];
+        this.narrowed = new byte[BLOCK_FRAMES * format.getChannels()];
+        this.blockFrame = -1;
+    }
+
+    /**
+     * @return the format of the transcoded samples
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the position in the transcoded samples of the frame at {@code fileOffset} in the song file
+     */
+    public long offsetOf(long fileOffset) {
+        long frame = Math.max(0, fileOffset - header.dataOffset()) / inputFrameSize / decimation;
+
+        return Math.min(frame, frames) * frameSize;
+    }
+
+    @Override
+    public long size() {
+        return frames * frameSize;
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        if (position >= size()) {
+            return 0;
+        }
+
+        return target.write(block(position, count));
+    }
+
+    @Override
+    public int read(ByteBuffer target, long position) throws IOException {
+        if (position >= size()) {
+            return -1;
+        }
+
+        ByteBuffer block = block(position, target.remaining());
+        int length = block.remaining();
+        target.put(block);
+
+        return length;
+    }
+
+    @Override
+    public SongSource reopen() throws IOException {
+        return new TranscodedSongSource(source.reopen(), header, original, quality);
+    }
+
+    @Override
+    public void close() {
+        source.close();
+    }
+
+    /**
+     * @return the output buffer, positioned at {@code position} and limited to at most {@code count} bytes
+     */
+    private ByteBuffer block(long position, long count) throws IOException {
+        long frame = position / frameSize;
+
+        if (frame < blockFrame || frame >= blockFrame + blockFrames) {
+            transcode(frame);
+        }
+
+        int start = (int) (position - blockFrame * frameSize);
+        int end = (int) Math.min((long) blockFrames * frameSize, start + count);
+
+        return output.limit(end).position(start);
+    }
+
+    private void transcode(long frame) throws IOException {
+        int count = (int) Math.min(BLOCK_FRAMES, frames - frame);
+        int inputFrames = count * decimation;
+        long position = header.dataOffset() + frame * decimation * inputFrameSize;
+
+        readFully(position, inputFrames * inputFrameSize);
+        inputSamples.clear();
+        inputSamples.get(samples, 0, inputFrames * inputChannels);
+
+        int channels = inputChannels;
+
+        if (quality.isMono() && channels > 1) {
+            PcmKernels.downmix(samples, inputFrames, channels);
+            channels = 1;
+        }
+
+        if (decimation > 1) {
+            PcmKernels.decimate(samples, count, channels, decimation);
+        }
+
+        int outputSamplesCount = count * channels;
+
+        if (quality.isEightBit()) {
+            PcmKernels.narrow(samples, narrowed, outputSamplesCount);
+            output.clear();
+            output.put(narrowed, 0, outputSamplesCount);
+        } else {
+            outputSamples.clear();
+            outputSamples.put(samples, 0, outputSamplesCount);
+        }
+
+        blockFrame = frame;
+        blockFrames = count;
+    }
+
+    /**
+     * Reads the samples of the block, padding them with silence if the file ends early.
+     */
+    private void readFully(long position, int length) throws IOException {
+        input.clear().limit(length);
+
+        int read = 0;
+
+        while (input.hasRemaining() && read >= 0) {
+            read = source.read(input, position + input.position());
+        }
+
+        while (input.hasRemaining()) {
+            input.put((byte) 0);
+        }
+    }
+}
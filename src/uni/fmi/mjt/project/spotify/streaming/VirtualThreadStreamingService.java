@@ -0,0 +1,81 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import uni.fmi.mjt.project.spotify.StreamingMusicHandler;
+import uni.fmi.mjt.project.spotify.utility.StreamToken;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams every song on its own virtual thread with blocking I/O. Each accepted connection reads its
+ * stream token on its own virtual thread as well, so a slow client never holds up the listener.
+ */
+public class VirtualThreadStreamingService implements StreamingService {
+    private final int chunkSize;
+    private final StreamSessions sessions;
+    private final PacingPolicy pacing;
+    private final ExecutorService executor;
+
+    public VirtualThreadStreamingService(int chunkSize, StreamSessions sessions, PacingPolicy pacing) {
+        this.chunkSize = chunkSize;
+        this.sessions = sessions;
+        this.pacing = pacing;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Override
+    public void start(ServerSocketChannel listener) {
+        executor.submit(() -> acceptStreams(listener));
+    }
+
+    @Override
+    public String streamSong(StreamHandle stream) {
+        return sessions.register(stream);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void acceptStreams(ServerSocketChannel listener) {
+        try {
+            while (listener.isOpen()) {
+                SocketChannel clientChannel = listener.accept();
+
+                executor.submit(() -> serveStream(clientChannel));
+            }
+        } catch (IOException e) {
+            System.out.println("Stopped accepting stream connections: " + e.getMessage());
+        }
+    }
+
+    private void serveStream(SocketChannel clientChannel) {
+        try {
+            ByteBuffer token = ByteBuffer.allocate(StreamToken.SIZE);
+
+            while (token.hasRemaining()) {
+                if (clientChannel.read(token) < 0) {
+                    throw new IOException("Stream connection closed before presenting a token");
+                }
+            }
+
+            token.flip();
+            StreamHandle handle = sessions.claim(StreamToken.fromBytes(token));
+
+            if (handle == null) {
+                System.out.println("A stream connection presented an unknown, expired or cancelled token");
+                clientChannel.close();
+                return;
+            }
+
+            new StreamingMusicHandler(clientChannel, handle, chunkSize, handle.createPacer(pacing, chunkSize)).run();
+        } catch (IOException e) {
+            System.out.println("A stream connection failed before streaming started: " + e.getMessage());
+        }
+    }
+}
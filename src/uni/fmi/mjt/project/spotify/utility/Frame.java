@@ -0,0 +1,10 @@
+package uni.fmi.mjt.project.spotify.utility;
+
+/**
+ * A received frame: its type, one of the {@code TYPE_*} constants of {@link MessageFrame}, and its payload.
+ */
+public record Frame(byte type, byte[] payload) {
+    public boolean isMessage() {
+        return type == MessageFrame.TYPE_MESSAGE;
+    }
+}
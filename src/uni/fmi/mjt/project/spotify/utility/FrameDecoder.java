@@ -0,0 +1,88 @@
+package uni.fmi.mjt.project.spotify.utility;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accumulates bytes coming from a non-blocking channel and cuts them into the frames described by
+ * {@link MessageFrame}. A frame split across several reads is kept until it is complete and several
+ * frames arriving in a single read are all returned.
+ */
+public class FrameDecoder {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private ByteBuffer buffer;
+
+    public FrameDecoder() {
+        buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return a buffer in write mode with at least one free byte, ready to be passed to a channel read
+     */
+    public ByteBuffer writableBuffer() {
+        if (!buffer.hasRemaining()) {
+            grow(buffer.capacity() * 2);
+        }
+
+        return buffer;
+    }
+
+    public void feed(byte[] bytes) {
+        if (buffer.remaining() < bytes.length) {
+            grow(buffer.position() + bytes.length);
+        }
+
+        buffer.put(bytes);
+    }
+
+    /**
+     * Removes and returns all complete frames collected so far. Trailing bytes of an incomplete
+     * frame stay in the decoder until more data arrives.
+     *
+     * @throws IllegalArgumentException if a frame header announces a payload larger than allowed
+     */
+    public List<Frame> drainFrames() {
+        List<Frame> frames = new ArrayList<>();
+
+        buffer.flip();
+
+        while (buffer.remaining() >= MessageFrame.HEADER_SIZE) {
+            int length = buffer.getInt(buffer.position());
+            MessageFrame.checkPayloadSize(length);
+
+            if (buffer.remaining() < MessageFrame.HEADER_SIZE + length) {
+                ensureCapacity(MessageFrame.HEADER_SIZE + length);
+                break;
+            }
+
+            buffer.position(buffer.position() + Integer.BYTES);
+            byte type = buffer.get();
+
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            frames.add(new Frame(type, payload));
+        }
+
+        buffer.compact();
+
+        return frames;
+    }
+
+    private void ensureCapacity(int frameSize) {
+        if (buffer.capacity() < frameSize) {
+            ByteBuffer bigger = ByteBuffer.allocate(frameSize);
+            bigger.put(buffer);
+            bigger.flip();
+            buffer = bigger;
+        }
+    }
+
+    private void grow(int minCapacity) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(minCapacity, buffer.capacity() * 2));
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+}
@@ -0,0 +1,112 @@
+package uni.fmi.mjt.project.spotify.utility;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Wire framing for the command channel. Every frame is sent as a 4-byte big-endian payload length and
+ * a 1-byte frame type followed by exactly that many payload bytes, so the receiver can tell where one
+ * frame ends and the next one begins regardless of how the bytes were split between reads.
+ * <p>
+ * Besides the encoded messages, a connection that plays songs in multiplexed mode also carries the
+ * song bytes as audio frames, interleaved with the messages at frame boundaries.
+ */
+public class MessageFrame {
+    public static final byte TYPE_MESSAGE = 0;
+    public static final byte TYPE_AUDIO = 1;
+    public static final byte TYPE_AUDIO_END = 2;
+
+    public static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES;
+    public static final int MAX_PAYLOAD_SIZE = 8 * 1024 * 1024;
+
+    public static ByteBuffer wrap(byte[] payload) {
+        return wrap(TYPE_MESSAGE, payload);
+    }
+
+    public static ByteBuffer wrap(byte type, byte[] payload) {
+        checkPayloadSize(payload.length);
+
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        frame.putInt(payload.length);
+        frame.put(type);
+        frame.put(payload);
+        frame.flip();
+
+        return frame;
+    }
+
+    /**
+     * Fills the buffer with a frame header, for frames whose payload is written separately.
+     */
+    public static ByteBuffer header(ByteBuffer header, byte type, int length) {
+        checkPayloadSize(length);
+
+        header.clear();
+        header.putInt(length);
+        header.put(type);
+        header.flip();
+
+        return header;
+    }
+
+    /**
+     * Writes a whole message frame to a blocking channel, looping over partial writes.
+     */
+    public static void writeFrame(WritableByteChannel channel, byte[] payload) throws IOException {
+        ByteBuffer frame = wrap(payload);
+
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Reads a whole frame from a blocking channel.
+     *
+     * @return the frame or null if the channel reached end of stream before a new frame started
+     */
+    public static Frame readFrame(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        if (!readFully(channel, header)) {
+            if (header.position() == 0) {
+                return null;
+            }
+
+            throw new EOFException("Connection closed in the middle of a frame header");
+        }
+
+        header.flip();
+        int length = header.getInt();
+        byte type = header.get();
+        checkPayloadSize(length);
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+
+        if (!readFully(channel, payload)) {
+            throw new EOFException("Connection closed in the middle of a frame");
+        }
+
+        return new Frame(type, payload.array());
+    }
+
+    public static void checkPayloadSize(int length) {
+        if (length < 0 || length > MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException("Frame payload of " + length + " bytes is outside of the allowed " +
+                    "range [0, " + MAX_PAYLOAD_SIZE + "]");
+        }
+    }
+
+    private static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,28 @@
+package uni.fmi.mjt.project.spotify.utility;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * The token a client presents as the first bytes of a stream connection, so the server knows which
+ * play request the connection belongs to. It travels as a string in the play response and as the
+ * 16 raw bytes of the UUID on the stream connection.
+ */
+public class StreamToken {
+    public static final int SIZE = 2 * Long.BYTES;
+
+    public static ByteBuffer toBytes(String token) {
+        UUID uuid = UUID.fromString(token);
+
+        ByteBuffer bytes = ByteBuffer.allocate(SIZE);
+        bytes.putLong(uuid.getMostSignificantBits());
+        bytes.putLong(uuid.getLeastSignificantBits());
+        bytes.flip();
+
+        return bytes;
+    }
+
+    public static String fromBytes(ByteBuffer bytes) {
+        return new UUID(bytes.getLong(), bytes.getLong()).toString();
+    }
+}
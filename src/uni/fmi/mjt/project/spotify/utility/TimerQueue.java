@@ -0,0 +1,73 @@
+package uni.fmi.mjt.project.spotify.utility;
+
+import java.io.IOException;
+import java.nio.channels.Selector;
+import java.util.PriorityQueue;
+
+/**
+ * Timers of a selector loop. The loop selects with the timeout returned by {@link #millisUntilNext()}
+ * and runs the due timers after every wakeup, so timers need no thread of their own. Only the loop
+ * thread may use the queue.
+ */
+public class TimerQueue {
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final PriorityQueue<Timer> timers;
+    private long sequence;
+
+    public TimerQueue() {
+        this.timers = new PriorityQueue<>();
+        this.sequence = 0;
+    }
+
+    public void schedule(long delayNanos, Runnable task) {
+        timers.add(new Timer(System.nanoTime() + delayNanos, sequence++, task));
+    }
+
+    /**
+     * @return the milliseconds until the next timer is due, 0 if one is due already or -1 if there are none
+     */
+    public long millisUntilNext() {
+        Timer next = timers.peek();
+
+        if (next == null) {
+            return -1;
+        }
+
+        long nanos = next.deadline() - System.nanoTime();
+
+        return nanos <= 0 ? 0 : Math.max(1, nanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Waits until a channel of the selector is ready or the next timer is due.
+     */
+    public void select(Selector selector) throws IOException {
+        long timeout = millisUntilNext();
+
+        if (timeout < 0) {
+            selector.select();
+        } else if (timeout == 0) {
+            selector.selectNow();
+        } else {
+            selector.select(timeout);
+        }
+    }
+
+    public void runDue() {
+        long now = System.nanoTime();
+
+        while (!timers.isEmpty() && timers.peek().deadline() - now <= 0) {
+            timers.poll().task().run();
+        }
+    }
+
+    private record Timer(long deadline, long sequence, Runnable task) implements Comparable<Timer> {
+        @Override
+        public int compareTo(Timer other) {
+            int byDeadline = Long.compare(deadline - other.deadline, 0);
+
+            return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+        }
+    }
+}
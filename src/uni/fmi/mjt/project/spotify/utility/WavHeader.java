@@ -0,0 +1,194 @@
+package uni.fmi.mjt.project.spotify.utility;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Where the samples of a WAV file are and what format they are in. Only the chunk headers of the RIFF
+ * container and the fmt chunk are read, and the first few kilobytes of the file, where they usually all
+ * are, in a single read, so parsing costs one read no matter how big the file is. The format is derived
+ * the way {@link javax.sound.sampled.AudioSystem} derives it for WAV files.
+ *
+ * @param blockAlign the size of a sample frame in bytes, as declared by the fmt chunk
+ * @param dataOffset the position of the first sample byte in the file
+ * @param dataLength the number of sample bytes
+ * @param format     the format of the samples, null if there is no fmt chunk or its encoding is unknown
+ */
+public record WavHeader(int blockAlign, long dataOffset, long dataLength, Format format) {
+    private static final int PREFIX_SIZE = 4096;
+    private static final int RIFF_HEADER_SIZE = 12;
+    private static final int CHUNK_HEADER_SIZE = 8;
+    private static final int FMT_SIZE = 16;
+    private static final int EXTENSIBLE_FMT_SIZE = 26;
+    private static final int CHANNELS_POSITION = 2;
+    private static final int SAMPLE_RATE_POSITION = 4;
+    private static final int BLOCK_ALIGN_POSITION = 12;
+    private static final int BITS_POSITION = 14;
+    private static final int SUB_FORMAT_POSITION = 24;
+
+    private static final int WAVE_FORMAT_PCM = 0x0001;
+    private static final int WAVE_FORMAT_IEEE_FLOAT = 0x0003;
+    private static final int WAVE_FORMAT_ALAW = 0x0006;
+    private static final int WAVE_FORMAT_MULAW = 0x0007;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    public static WavHeader read(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(file);
+        }
+    }
+
+    /**
+     * @throws IOException if the file isn't a RIFF/WAVE file or has no data chunk
+     */
+    public static WavHeader read(FileChannel file) throws IOException {
+        long size = file.size();
+        ByteBuffer prefix = readPrefix(file, (int) Math.min(PREFIX_SIZE, size));
+
+        if (prefix.limit() < RIFF_HEADER_SIZE ||
+                !chunkId(prefix, 0).equals("RIFF") || !chunkId(prefix, CHUNK_HEADER_SIZE).equals("WAVE")) {
+            throw new IOException("Not a RIFF/WAVE file");
+        }
+
+        long position = RIFF_HEADER_SIZE;
+        int blockAlign = 0;
+        Format format = null;
+
+        while (position + CHUNK_HEADER_SIZE <= size) {
+            ByteBuffer chunk = readAt(file, prefix, position, CHUNK_HEADER_SIZE);
+            String id = chunkId(chunk, 0);
+            long length = Integer.toUnsignedLong(chunk.getInt(Integer.BYTES));
+            long body = position + CHUNK_HEADER_SIZE;
+
+            if (id.equals("fmt ") && length >= FMT_SIZE) {
+                ByteBuffer fmt = readAt(file, prefix, body, (int) Math.min(length, EXTENSIBLE_FMT_SIZE));
+                blockAlign = Short.toUnsignedInt(fmt.getShort(BLOCK_ALIGN_POSITION));
+                format = parseFormat(fmt);
+            } else if (id.equals("data")) {
+                return new WavHeader(blockAlign, body, Math.min(length, size - body), format);
+            }
+
+            position = body + length + (length & 1);
+        }
+
+        throw new IOException("No data chunk found");
+    }
+
+    public long dataEnd() {
+        return dataOffset + dataLength;
+    }
+
+    /**
+     * @return the position of the sample frame that plays at the given time, never past the data chunk
+     */
+    public long offsetOf(double seconds, Format format) {
+        int frameSize = frameSizeOf(format);
+        float frameRate = format != null ? format.getFrameRate() : 0;
+
+        if (seconds <= 0 || frameSize <= 0 || frameRate <= 0) {
+            return dataOffset;
+        }
+
+        long wholeFrames = dataLength / frameSize;
+        double frames = Math.floor(seconds * frameRate);
+        long frame = frames < wholeFrames ? (long) frames : wholeFrames;
+
+        return dataOffset + frame * frameSize;
+    }
+
+    /**
+     * @return how many seconds the samples play for, infinite if the format doesn't tell
+     */
+    public double durationOf(Format format) {
+        int frameSize = frameSizeOf(format);
+        float frameRate = format != null ? format.getFrameRate() : 0;
+
+        if (frameSize <= 0 || frameRate <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return (double) (dataLength / frameSize) / frameRate;
+    }
+
+    private int frameSizeOf(Format format) {
+        return format != null && format.getFrameSize() > 0 ? format.getFrameSize() : blockAlign;
+    }
+
+    /**
+     * @return the format described by the fmt chunk, null if its encoding can't be played
+     */
+    private static Format parseFormat(ByteBuffer fmt) {
+        int tag = Short.toUnsignedInt(fmt.getShort(0));
+        int channels = Short.toUnsignedInt(fmt.getShort(CHANNELS_POSITION));
+        float sampleRate = Integer.toUnsignedLong(fmt.getInt(SAMPLE_RATE_POSITION));
+        int blockAlign = Short.toUnsignedInt(fmt.getShort(BLOCK_ALIGN_POSITION));
+        int bits = Short.toUnsignedInt(fmt.getShort(BITS_POSITION));
+
+        if (tag == WAVE_FORMAT_EXTENSIBLE && fmt.limit() >= EXTENSIBLE_FMT_SIZE) {
+            tag = Short.toUnsignedInt(fmt.getShort(SUB_FORMAT_POSITION));
+        }
+
+        String encoding = switch (tag) {
+            case WAVE_FORMAT_PCM -> bits <= Byte.SIZE ? "PCM_UNSIGNED" : "PCM_SIGNED";
+            case WAVE_FORMAT_IEEE_FLOAT -> "PCM_FLOAT";
+            case WAVE_FORMAT_ALAW -> "ALAW";
+            case WAVE_FORMAT_MULAW -> "ULAW";
+            default -> null;
+        };
+
+        if (encoding == null || channels == 0 || bits == 0) {
+            return null;
+        }
+
+        int frameSize = blockAlign > 0 ? blockAlign : (bits + Byte.SIZE - 1) / Byte.SIZE * channels;
+
+        return new Format(encoding, sampleRate, bits, channels, frameSize, sampleRate, false);
+    }
+
+    private static ByteBuffer readPrefix(FileChannel file, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+        int read = 0;
+
+        while (buffer.hasRemaining() && read >= 0) {
+            read = file.read(buffer, buffer.position());
+        }
+
+        return buffer.flip();
+    }
+
+    /**
+     * @return the bytes at the position, from the prefix if it holds them and from the file otherwise
+     */
+    private static ByteBuffer readAt(FileChannel file, ByteBuffer prefix, long position, int length)
+            throws IOException {
+        if (position + length <= prefix.limit()) {
+            return prefix.slice((int) position, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (buffer.hasRemaining()) {
+            if (file.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("WAV file ends inside a chunk header");
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    private static String chunkId(ByteBuffer buffer, int index) {
+        byte[] id = new byte[Integer.BYTES];
+        buffer.get(index, id);
+
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,69 @@
+package uni.fmi.mjt.project.spotify.utility;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The parsed headers of the songs played so far, so a song that is already known is played without
+ * opening its file. A header is checked against the size and modification time of the file, which
+ * takes a stat of the file but no open, and is parsed again once the file changes.
+ */
+public class WavHeaderCache {
+    private final Map<Path, CachedHeader> headers;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    public WavHeaderCache() {
+        this.headers = new ConcurrentHashMap<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * @throws IOException if the file doesn't exist or isn't a WAV file
+     */
+    public WavHeader get(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        CachedHeader cached = headers.get(path);
+
+        if (cached != null && cached.isCurrent(attributes)) {
+            hits.increment();
+            return cached.header;
+        }
+
+        misses.increment();
+
+        WavHeader header = WavHeader.read(path);
+        headers.put(path, new CachedHeader(header, attributes.size(), attributes.lastModifiedTime()));
+
+        return header;
+    }
+
+    /**
+     * Remembers a header parsed earlier, for instance by a previous run of the server, as the header of
+     * the file while it keeps the given size and modification time.
+     */
+    public void put(Path path, WavHeader header, long size, FileTime modified) {
+        headers.put(path, new CachedHeader(header, size, modified));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private record CachedHeader(WavHeader header, long size, FileTime modified) {
+        private boolean isCurrent(BasicFileAttributes attributes) {
+            return attributes.size() == size && attributes.lastModifiedTime().equals(modified);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package uni.fmi.mjt.project.spotify.utility.codec;
+
+import uni.fmi.mjt.project.spotify.command.CommandType;
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+import uni.fmi.mjt.project.spotify.dto.song.format.StreamEncoding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Hand-written codec for the command channel. Strings are written as a varint length followed by
+ * their UTF-8 bytes and numbers in their fixed binary width, so a message costs only a few bytes
+ * more than the text it carries. The layouts are:
+ * <pre>
+ * ClientRequest  := string userEmail, string message
+ * ServerResponse := byte typeCode, string message, string email, string streamToken, byte streamEncoding,
+ *                   byte hasSong, [StreamableSong]
+ * StreamableSong := string name, string path, byte hasFormat, [Format]
+ * Format         := string encoding, float sampleRate, varint sampleBits, varint channels,
+ *                   varint frameSize, float frameRate, byte isBigEndian
+ * </pre>
+ * A string length of zero encodes null and any other length is stored incremented by one.
+ */
+public class BinaryCodec implements MessageCodec {
+    private static final StreamEncoding[] STREAM_ENCODINGS = StreamEncoding.values();
+
+    @Override
+    public byte[] encodeRequest(ClientRequest request) {
+        Writer writer = new Writer();
+        writer.writeString(request.userEmail());
+        writer.writeString(request.message());
+
+        return writer.toByteArray();
+    }
+
+    @Override
+    public ClientRequest decodeRequest(byte[] bytes) {
+        Reader reader = new Reader(bytes);
+
+        return new ClientRequest(reader.readString(), reader.readString());
+    }
+
+    @Override
+    public byte[] encodeResponse(ServerResponse response) {
+        Writer writer = new Writer();
+        writer.writeByte(response.getType().getCode());
+        writer.writeString(response.getMessage());
+        writer.writeString(response.getEmail());
+        writer.writeString(response.getStreamToken());
+        writer.writeByte(response.getStreamEncoding().ordinal());
+
+        StreamableSong song = response.getSong();
+        writer.writeBoolean(song != null);
+
+        if (song != null) {
+            writeSong(writer, song);
+        }
+
+        return writer.toByteArray();
+    }
+
+    @Override
+    public ServerResponse decodeResponse(byte[] bytes) {
+        Reader reader = new Reader(bytes);
+
+        CommandType type = CommandType.fromCode(reader.readByte());
+        String message = reader.readString();
+        ServerResponse.ResponseBuilder builder = ServerResponse.builder(type, message)
+                .setEmail(reader.readString())
+                .setStreamToken(reader.readString())
+                .setStreamEncoding(valueAt(STREAM_ENCODINGS, reader.readByte(), "stream encoding"));
+
+        if (reader.readBoolean()) {
+            builder.setSong(readSong(reader));
+        }
+
+        return builder.build();
+    }
+
+    private static <T> T valueAt(T[] values, int ordinal, String name) {
+        if (ordinal >= values.length) {
+            throw new IllegalArgumentException("Unknown " + name + " " + ordinal + " in binary message");
+        }
+
+        return values[ordinal];
+    }
+
+    private void writeSong(Writer writer, StreamableSong song) {
+        writer.writeString(song.getName());
+        writer.writeString(song.getPath());
+
+        Format format = song.getFormat();
+        writer.writeBoolean(format != null);
+
+        if (format != null) {
+            writer.writeString(format.getEncoding());
+            writer.writeFloat(format.getSampleRate());
+            writer.writeVarInt(format.getSampleBits());
+            writer.writeVarInt(format.getChannels());
+            writer.writeVarInt(format.getFrameSize());
+            writer.writeFloat(format.getFrameRate());
+            writer.writeBoolean(format.isBigEndian());
+        }
+    }
+
+    private StreamableSong readSong(Reader reader) {
+        String name = reader.readString();
+        String path = reader.readString();
+        Format format = null;
+
+        if (reader.readBoolean()) {
+            format = new Format(reader.readString(), reader.readFloat(), reader.readVarInt(), reader.readVarInt(),
+                    reader.readVarInt(), reader.readFloat(), reader.readBoolean());
+        }
+
+        return new StreamableSong(name, path, format);
+    }
+
+    private static class Writer {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int size = 0;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBoolean(boolean value) {
+            writeByte(value ? 1 : 0);
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            bytes[size++] = (byte) value;
+        }
+
+        void writeFloat(float value) {
+            int bits = Float.floatToIntBits(value);
+            ensureCapacity(Integer.BYTES);
+
+            bytes[size++] = (byte) (bits >>> 24);
+            bytes[size++] = (byte) (bits >>> 16);
+            bytes[size++] = (byte) (bits >>> 8);
+            bytes[size++] = (byte) bits;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length + 1);
+
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static class Reader {
+        private final byte[] bytes;
+        private int position = 0;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            checkAvailable(1);
+
+            return bytes[position++] & 0xFF;
+        }
+
+        boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        int readVarInt() {
+            int value = 0;
+
+            for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+                int current = readByte();
+                value |= (current & 0x7F) << shift;
+
+                if ((current & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IllegalArgumentException("Malformed varint in binary message");
+        }
+
+        float readFloat() {
+            checkAvailable(Integer.BYTES);
+
+            int bits = (bytes[position] & 0xFF) << 24 | (bytes[position + 1] & 0xFF) << 16 |
+                    (bytes[position + 2] & 0xFF) << 8 | (bytes[position + 3] & 0xFF);
+            position += Integer.BYTES;
+
+            return Float.intBitsToFloat(bits);
+        }
+
+        String readString() {
+            int length = readVarInt();
+
+            if (length == 0) {
+                return null;
+            }
+
+            length--;
+            checkAvailable(length);
+
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+
+            return value;
+        }
+
+        private void checkAvailable(int count) {
+            if (count < 0 || position + count > bytes.length) {
+                throw new IllegalArgumentException("Binary message ended unexpectedly");
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package uni.fmi.mjt.project.spotify.utility.codec;
+
+public enum CodecType {
+    SERIALIZATION(new SerializationCodec()),
+    BINARY(new BinaryCodec());
+
+    private final MessageCodec codec;
+
+    CodecType(MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    public MessageCodec getCodec() {
+        return codec;
+    }
+
+    public static CodecType fromName(String name) {
+        try {
+            return CodecType.valueOf(name.strip().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown codec '" + name + "', expected one of serialization, binary",
+                    e);
+        }
+    }
+}
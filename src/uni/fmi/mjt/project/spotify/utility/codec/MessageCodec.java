@@ -0,0 +1,18 @@
+package uni.fmi.mjt.project.spotify.utility.codec;
+
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+
+/**
+ * Turns the messages exchanged on the command channel into frame payloads and back.
+ * The client and the server must be started with the same codec.
+ */
+public interface MessageCodec {
+    byte[] encodeRequest(ClientRequest request);
+
+    ClientRequest decodeRequest(byte[] bytes);
+
+    byte[] encodeResponse(ServerResponse response);
+
+    ServerResponse decodeResponse(byte[] bytes);
+}
@@ -0,0 +1,27 @@
+package uni.fmi.mjt.project.spotify.utility.codec;
+
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+import uni.fmi.mjt.project.spotify.utility.ObjectByteConvertor;
+
+public class SerializationCodec implements MessageCodec {
+    @Override
+    public byte[] encodeRequest(ClientRequest request) {
+        return ObjectByteConvertor.convertObjectToByteArray(request);
+    }
+
+    @Override
+    public ClientRequest decodeRequest(byte[] bytes) {
+        return (ClientRequest) ObjectByteConvertor.convertByteArrayToObject(bytes);
+    }
+
+    @Override
+    public byte[] encodeResponse(ServerResponse response) {
+        return ObjectByteConvertor.convertObjectToByteArray(response);
+    }
+
+    @Override
+    public ServerResponse decodeResponse(byte[] bytes) {
+        return (ServerResponse) ObjectByteConvertor.convertByteArrayToObject(bytes);
+    }
+}
@@ -0,0 +1,49 @@
+package uni.fmi.mjt.project.spotify.utility.lossless;
+
+/**
+ * Reads values of up to 32 bits, most significant bit first, from a range of a byte array.
+ */
+final class BitReader {
+    private byte[] bytes;
+    private int position;
+    private int end;
+    private long buffer;
+    private int bits;
+
+    void reset(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.end = offset + length;
+        this.buffer = 0;
+        this.bits = 0;
+    }
+
+    int read(int count) {
+        while (bits < count) {
+            if (position == end) {
+                throw new IllegalArgumentException("Lossless block ended unexpectedly");
+            }
+
+            buffer = (buffer << Byte.SIZE) | (bytes[position++] & 0xFF);
+            bits += Byte.SIZE;
+        }
+
+        bits -= count;
+
+        return (int) ((buffer >>> bits) & BitWriter.mask(count));
+    }
+
+    /**
+     * @return the number of one bits before the next zero bit, or {@code limit} if there are that many
+     * ones, in which case no zero bit is read
+     */
+    int readUnary(int limit) {
+        int count = 0;
+
+        while (count < limit && read(1) == 1) {
+            count++;
+        }
+
+        return count;
+    }
+}
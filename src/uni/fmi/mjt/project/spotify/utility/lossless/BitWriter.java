@@ -0,0 +1,75 @@
+package uni.fmi.mjt.project.spotify.utility.lossless;
+
+import java.util.Arrays;
+
+/**
+ * Writes values of up to 32 bits, most significant bit first, into a growable byte array that is
+ * reused from one block to the next.
+ */
+final class BitWriter {
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+    private long buffer;
+    private int bits;
+
+    void reset() {
+        size = 0;
+        buffer = 0;
+        bits = 0;
+    }
+
+    void write(long value, int count) {
+        buffer = (buffer << count) | (value & mask(count));
+        bits += count;
+
+        while (bits >= Byte.SIZE) {
+            bits -= Byte.SIZE;
+            put((byte) (buffer >>> bits));
+        }
+    }
+
+    /**
+     * Writes {@code count} one bits followed by a zero, {@code count} has to be less than 32.
+     */
+    void writeUnary(int count) {
+        write(mask(count) << 1, count + 1);
+    }
+
+    /**
+     * Pads the last byte with zero bits.
+     */
+    void align() {
+        if (bits > 0) {
+            write(0, Byte.SIZE - bits);
+        }
+    }
+
+    void putInt(int index, int value) {
+        bytes[index] = (byte) (value >>> 24);
+        bytes[index + 1] = (byte) (value >>> 16);
+        bytes[index + 2] = (byte) (value >>> 8);
+        bytes[index + 3] = (byte) value;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    static long mask(int count) {
+        return count == Long.SIZE ? -1L : (1L << count) - 1;
+    }
+
+    private void put(byte value) {
+        if (size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+
+        bytes[size++] = value;
+    }
+}
@@ -0,0 +1,166 @@
+package uni.fmi.mjt.project.spotify.utility.lossless;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.BLOCK_FRAMES;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.ESCAPE;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.ESCAPE_BITS;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.FRAMES_BITS;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.LENGTH_SIZE;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.MAX_ORDER;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.ORDER_BITS;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.PARAMETER_BITS;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.SAMPLE_BITS;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.VERBATIM;
+
+/**
+ * Decodes a stream of blocks described in {@link LosslessFormat} back into PCM, which is written to the
+ * wrapped stream block by block. The encoded bytes may be written in pieces of any size; a block that
+ * hasn't fully arrived yet is kept until the rest of it does.
+ */
+public class LosslessDecoder extends OutputStream {
+    private final OutputStream pcm;
+    private final int channels;
+    private final boolean bigEndian;
+    private final int maxBlockSize;
+    private final int[] samples = new int[BLOCK_FRAMES];
+    private final byte[] output;
+    private final BitReader reader = new BitReader();
+    private byte[] pending;
+    private int pendingSize;
+
+    public LosslessDecoder(Format format, OutputStream pcm) {
+        if (!LosslessFormat.supports(format)) {
+            throw new IllegalArgumentException("Only 16-bit signed PCM can be decoded losslessly");
+        }
+
+        this.pcm = pcm;
+        this.channels = format.getChannels();
+        this.bigEndian = format.isBigEndian();
+        this.maxBlockSize = LosslessFormat.maxBlockSize(channels);
+        this.output = new byte[BLOCK_FRAMES * format.getFrameSize()];
+        this.pending = new byte[BLOCK_FRAMES * format.getFrameSize()];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (pendingSize + length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingSize + length));
+        }
+
+        System.arraycopy(bytes, offset, pending, pendingSize, length);
+        pendingSize += length;
+
+        int consumed = 0;
+
+        while (pendingSize - consumed >= LENGTH_SIZE) {
+            int blockSize = readInt(pending, consumed);
+
+            if (blockSize <= 0 || blockSize > maxBlockSize) {
+                throw new IOException("Malformed lossless block of " + blockSize + " bytes");
+            }
+
+            if (pendingSize - consumed < LENGTH_SIZE + blockSize) {
+                break;
+            }
+
+            decodeBlock(consumed + LENGTH_SIZE, blockSize);
+            consumed += LENGTH_SIZE + blockSize;
+        }
+
+        System.arraycopy(pending, consumed, pending, 0, pendingSize - consumed);
+        pendingSize -= consumed;
+    }
+
+    /**
+     * @return the number of bytes of a block that has only partly arrived
+     */
+    public int pending() {
+        return pendingSize;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        pcm.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        pcm.close();
+    }
+
+    private void decodeBlock(int offset, int length) throws IOException {
+        reader.reset(pending, offset, length);
+
+        try {
+            int frames = reader.read(FRAMES_BITS);
+
+            if (frames > BLOCK_FRAMES) {
+                throw new IOException("Malformed lossless block of " + frames + " frames");
+            }
+
+            for (int channel = 0; channel < channels; channel++) {
+                decodeChannel(frames);
+                store(channel, frames);
+            }
+
+            pcm.write(output, 0, frames * channels * Short.BYTES);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private void decodeChannel(int frames) throws IOException {
+        int predictor = reader.read(ORDER_BITS);
+        int parameter = reader.read(PARAMETER_BITS);
+
+        if (predictor == VERBATIM) {
+            for (int i = 0; i < frames; i++) {
+                samples[i] = (short) reader.read(SAMPLE_BITS);
+            }
+
+            return;
+        }
+
+        if (predictor > MAX_ORDER || predictor > frames) {
+            throw new IOException("Malformed lossless block with a predictor of order " + predictor);
+        }
+
+        for (int i = 0; i < predictor; i++) {
+            samples[i] = (short) reader.read(SAMPLE_BITS);
+        }
+
+        for (int i = predictor; i < frames; i++) {
+            int quotient = reader.readUnary(ESCAPE);
+            int residual = quotient < ESCAPE
+                    ? (quotient << parameter) | reader.read(parameter)
+                    : reader.read(ESCAPE_BITS);
+
+            samples[i] = LosslessEncoder.predict(samples, i, predictor) + ((residual >>> 1) ^ -(residual & 1));
+        }
+    }
+
+    private void store(int channel, int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            int index = (frame * channels + channel) * Short.BYTES;
+            int sample = samples[frame];
+
+            output[index + (bigEndian ? 0 : 1)] = (byte) (sample >> Byte.SIZE);
+            output[index + (bigEndian ? 1 : 0)] = (byte) sample;
+        }
+    }
+
+    private static int readInt(byte[] bytes, int index) {
+        return (bytes[index] & 0xFF) << 24 | (bytes[index + 1] & 0xFF) << 16 |
+                (bytes[index + 2] & 0xFF) << 8 | (bytes[index + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,194 @@
+package uni.fmi.mjt.project.spotify.utility.lossless;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.BLOCK_FRAMES;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.ESCAPE;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.ESCAPE_BITS;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.FRAMES_BITS;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.LENGTH_SIZE;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.MAX_ORDER;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.ORDER_BITS;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.PARAMETER_BITS;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.SAMPLE_BITS;
+import static uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat.VERBATIM;
+
+/**
+ * Encodes 16-bit PCM into the blocks described in {@link LosslessFormat}. Not thread-safe.
+ */
+public class LosslessEncoder {
+    private static final int MAX_PARAMETER = 24;
+
+    private final int channels;
+    private final int frameSize;
+    private final ByteOrder order;
+    private final int[] samples;
+    private final int[] residuals;
+    private final BitWriter writer = new BitWriter();
+
+    public LosslessEncoder(Format format) {
+        if (!LosslessFormat.supports(format)) {
+            throw new IllegalArgumentException("Only 16-bit signed PCM can be encoded losslessly");
+        }
+
+        this.channels = format.getChannels();
+        this.frameSize = format.getFrameSize();
+        this.order = format.isBigEndian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        this.samples = new int[BLOCK_FRAMES];
+        this.residuals = new int[BLOCK_FRAMES];
+    }
+
+    /**
+     * @return the block of at most {@link LosslessFormat#BLOCK_FRAMES} frames, valid until the next call
+     */
+    public ByteBuffer encode(ByteBuffer pcm) {
+        int frames = Math.min(pcm.remaining() / frameSize, BLOCK_FRAMES);
+        ByteBuffer input = pcm.slice().order(order);
+
+        writer.reset();
+        writer.write(0, Integer.SIZE);
+        writer.write(frames, FRAMES_BITS);
+
+        for (int channel = 0; channel < channels; channel++) {
+            for (int frame = 0; frame < frames; frame++) {
+                samples[frame] = input.getShort((frame * channels + channel) * Short.BYTES);
+            }
+
+            encodeChannel(frames);
+        }
+
+        writer.align();
+        writer.putInt(0, writer.size() - LENGTH_SIZE);
+        pcm.position(pcm.position() + frames * frameSize);
+
+        return ByteBuffer.wrap(writer.array(), 0, writer.size());
+    }
+
+    private void encodeChannel(int frames) {
+        int predictor = bestOrder(frames);
+        long sum = 0;
+
+        for (int i = predictor; i < frames; i++) {
+            int residual = zigzag(samples[i] - predict(samples, i, predictor));
+            residuals[i] = residual;
+            sum += residual;
+        }
+
+        int parameter = riceParameter(sum, frames - predictor);
+        long bits = codedBits(predictor, frames, parameter);
+
+        for (int candidate = parameter - 1; candidate >= 0; candidate--) {
+            long candidateBits = codedBits(predictor, frames, candidate);
+
+            if (candidateBits > bits) {
+                break;
+            }
+
+            parameter = candidate;
+            bits = candidateBits;
+        }
+
+        if (bits >= (long) frames * SAMPLE_BITS) {
+            writeVerbatim(frames);
+            return;
+        }
+
+        writer.write(predictor, ORDER_BITS);
+        writer.write(parameter, PARAMETER_BITS);
+
+        for (int i = 0; i < predictor; i++) {
+            writer.write(samples[i], SAMPLE_BITS);
+        }
+
+        for (int i = predictor; i < frames; i++) {
+            int quotient = residuals[i] >>> parameter;
+
+            if (quotient < ESCAPE) {
+                writer.writeUnary(quotient);
+                writer.write(residuals[i], parameter);
+            } else {
+                writer.write(BitWriter.mask(ESCAPE), ESCAPE);
+                writer.write(residuals[i], ESCAPE_BITS);
+            }
+        }
+    }
+
+    private void writeVerbatim(int frames) {
+        writer.write(VERBATIM, ORDER_BITS);
+        writer.write(0, PARAMETER_BITS);
+
+        for (int i = 0; i < frames; i++) {
+            writer.write(samples[i], SAMPLE_BITS);
+        }
+    }
+
+    private int bestOrder(int frames) {
+        if (frames <= MAX_ORDER) {
+            return 0;
+        }
+
+        long[] errors = new long[MAX_ORDER + 1];
+
+        for (int i = MAX_ORDER; i < frames; i++) {
+            int error0 = samples[i];
+            int error1 = error0 - samples[i - 1];
+            int error2 = error1 - (samples[i - 1] - samples[i - 2]);
+            int error3 = error2 - (samples[i - 1] - 2 * samples[i - 2] + samples[i - 3]);
+            int error4 = error3 - (samples[i - 1] - 3 * samples[i - 2] + 3 * samples[i - 3] - samples[i - 4]);
+
+            errors[0] += Math.abs(error0);
+            errors[1] += Math.abs(error1);
+            errors[2] += Math.abs(error2);
+            errors[3] += Math.abs(error3);
+            errors[4] += Math.abs(error4);
+        }
+
+        int best = 0;
+
+        for (int predictor = 1; predictor <= MAX_ORDER; predictor++) {
+            if (errors[predictor] < errors[best]) {
+                best = predictor;
+            }
+        }
+
+        return best;
+    }
+
+    private long codedBits(int predictor, int frames, int parameter) {
+        long bits = ORDER_BITS + PARAMETER_BITS + (long) predictor * SAMPLE_BITS;
+
+        for (int i = predictor; i < frames; i++) {
+            int quotient = residuals[i] >>> parameter;
+            bits += quotient < ESCAPE ? quotient + 1 + parameter : ESCAPE + ESCAPE_BITS;
+        }
+
+        return bits;
+    }
+
+    private static int riceParameter(long sum, int count) {
+        if (count <= 0) {
+            return 0;
+        }
+
+        long mean = sum / count;
+
+        return Math.min(MAX_PARAMETER, Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(mean) - 1));
+    }
+
+    static int predict(int[] samples, int i, int predictor) {
+        return switch (predictor) {
+            case 0 -> 0;
+            case 1 -> samples[i - 1];
+            case 2 -> 2 * samples[i - 1] - samples[i - 2];
+            case 3 -> 3 * samples[i - 1] - 3 * samples[i - 2] + samples[i - 3];
+            default -> 4 * samples[i - 1] - 6 * samples[i - 2] + 4 * samples[i - 3] - samples[i - 4];
+        };
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> (Integer.SIZE - 1));
+    }
+}
@@ -0,0 +1,56 @@
+package uni.fmi.mjt.project.spotify.utility.lossless;
+
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+/**
+ * Layout of a losslessly encoded stream, a sequence of independent blocks of up to {@link #BLOCK_FRAMES}
+ * frames of 16-bit PCM:
+ * <pre>
+ * Block    := int length, bits(16) frames, Channel * channels, padding to a whole byte
+ * Channel  := bits(3) order, bits(5) riceParameter, Warmup, Residual * (frames - order)
+ *           | bits(3) 7, bits(5) 0, bits(16) sample * frames
+ * Warmup   := bits(16) sample * order
+ * Residual := 1 * q, 0, bits(riceParameter) remainder     for q &lt; 32
+ *           | 1 * 32, bits(24) zigzag                      otherwise
+ * </pre>
+ * The length counts the bytes after it. Every channel is predicted on its own by the fixed polynomial
+ * predictor of the given order, from 0 (silence) to 4 (cubic), and the prediction errors are mapped to
+ * unsigned numbers with the zigzag encoding and Rice coded, where {@code zigzag = q * 2^k + remainder}.
+ * A channel that wouldn't get any smaller is stored verbatim.
+ */
+public final class LosslessFormat {
+    public static final int BLOCK_FRAMES = 4096;
+    public static final int LENGTH_SIZE = Integer.BYTES;
+
+    static final int MAX_ORDER = 4;
+    static final int VERBATIM = 7;
+    static final int ORDER_BITS = 3;
+    static final int PARAMETER_BITS = 5;
+    static final int FRAMES_BITS = 16;
+    static final int SAMPLE_BITS = 16;
+    static final int ESCAPE = 32;
+    static final int ESCAPE_BITS = 24;
+
+    private static final String PCM_SIGNED = "PCM_SIGNED";
+
+    private LosslessFormat() {
+    }
+
+    /**
+     * @return the longest block possible for the number of channels, with every residual escaped
+     */
+    static int maxBlockSize(int channels) {
+        int channelSize = 1 + MAX_ORDER * Short.BYTES + BLOCK_FRAMES * (ESCAPE + ESCAPE_BITS) / Byte.SIZE;
+
+        return Short.BYTES + channels * channelSize + 1;
+    }
+
+    /**
+     * @return true if songs in the format can be encoded, which takes 16-bit signed PCM with at most 8 channels
+     */
+    public static boolean supports(Format format) {
+        return format != null && PCM_SIGNED.equals(format.getEncoding()) && format.getSampleBits() == SAMPLE_BITS &&
+                format.getChannels() > 0 && format.getChannels() <= Byte.SIZE &&
+                format.getFrameSize() == format.getChannels() * Short.BYTES;
+    }
+}
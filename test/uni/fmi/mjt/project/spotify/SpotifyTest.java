@@ -1,6 +1,9 @@
 package uni.fmi.mjt.project.spotify;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import uni.fmi.mjt.project.spotify.catalog.SearchMode;
+import uni.fmi.mjt.project.spotify.catalog.SearchPage;
 import uni.fmi.mjt.project.spotify.exception.SpotifyException;
 import uni.fmi.mjt.project.spotify.exception.account.AccountAlreadyExistsException;
 import uni.fmi.mjt.project.spotify.exception.account.AccountDoesntExistException;
@@ -31,7 +34,14 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 public class SpotifyTest {
     private static final String SONGS_TEST_DIRECTORY = "TestDirectory" + File.separator + "TestSongs";
     private static final String PLAYLISTS_TEST_DIRECTORY = "TestDirectory" + File.separator + "TestPlaylists";
-    private Spotify spotify;
+    private DefaultSpotify spotify;
+
+    @AfterEach
+    void closeSpotify() {
+        if (spotify != null) {
+            spotify.close();
+        }
+    }
 
     //------------Register------------
 
@@ -114,7 +124,7 @@ public class SpotifyTest {
         spotify.register("other@abv.bg", "321");
 
         Set<String> expected = Set.of("other@abv.bg");
-        Set<String> actual = ((DefaultSpotify) spotify).getLoggedInAccounts();
+        Set<String> actual = spotify.getLoggedInAccounts();
 
         assertTrue(expected.containsAll(actual) && actual.containsAll(expected),
                 "Correctly add the newly created account to the logged in accounts");
@@ -199,7 +209,7 @@ public class SpotifyTest {
         spotify.login("other@abv.bg", "321");
 
         Set<String> expected = Set.of("asd@abv.bg", "other@abv.bg");
-        Set<String> actual = ((DefaultSpotify) spotify).getLoggedInAccounts();
+        Set<String> actual = spotify.getLoggedInAccounts();
 
         assertTrue(expected.containsAll(actual) && actual.containsAll(expected),
                 "Correctly add the newly logged in account to the previously logged in accounts");
@@ -220,7 +230,7 @@ public class SpotifyTest {
         spotify.disconnect("other@abv.bg");
 
         Set<String> expected = Set.of("asd@abv.bg");
-        Set<String> actual = ((DefaultSpotify) spotify).getLoggedInAccounts();
+        Set<String> actual = spotify.getLoggedInAccounts();
 
         assertTrue(expected.containsAll(actual) && actual.containsAll(expected),
                 "Correctly removes an account from the logged in accounts");
@@ -238,7 +248,7 @@ public class SpotifyTest {
         spotify.disconnect("other@abv.bg");
 
         Set<String> expected = Set.of("asd@abv.bg");
-        Set<String> actual = ((DefaultSpotify) spotify).getLoggedInAccounts();
+        Set<String> actual = spotify.getLoggedInAccounts();
 
         assertTrue(expected.containsAll(actual) && actual.containsAll(expected),
                 "Doesn't throw exception when trying to disconnect invalid user (not logged in)");
@@ -312,12 +322,12 @@ public class SpotifyTest {
 
     @Test
     void testSearchNoSongsContainingKeywords() throws SpotifyException, IOException {
+        Set<Path> tempSongs = createTempFiles(SONGS_TEST_DIRECTORY, "test.wav");
+
         StringReader reader = new StringReader("asd@abv.bg 123" + System.lineSeparator());
         StringWriter writer = new StringWriter();
         spotify = new DefaultSpotify(reader, writer, SONGS_TEST_DIRECTORY, PLAYLISTS_TEST_DIRECTORY);
 
-        Set<Path> tempSongs = createTempFiles(SONGS_TEST_DIRECTORY, "test.txt");
-
         try {
             spotify.login("asd@abv.bg", "123");
             assertTrue(spotify.search(List.of("keyword"), "asd@abv.bg").isEmpty(),
@@ -329,13 +339,13 @@ public class SpotifyTest {
 
     @Test
     void testSearchContainingKeywords() throws SpotifyException, IOException {
+        Set<Path> tempSongs = createTempFiles(SONGS_TEST_DIRECTORY,
+                "test.wav", "SonG.wav", "other.wav", "TEST songs - the 3rd.wav");
+
         StringReader reader = new StringReader("asd@abv.bg 123" + System.lineSeparator());
         StringWriter writer = new StringWriter();
         spotify = new DefaultSpotify(reader, writer, SONGS_TEST_DIRECTORY, PLAYLISTS_TEST_DIRECTORY);
 
-        Set<Path> tempSongs = createTempFiles(SONGS_TEST_DIRECTORY,
-                "test.txt", "SonG.txt", "other.txt", "TEST songs - the 3rd.txt");
-
         try {
             spotify.login("asd@abv.bg", "123");
 
@@ -349,6 +359,85 @@ public class SpotifyTest {
         }
     }
 
+    @Test
+    void testSearchPages() throws SpotifyException, IOException {
+        Set<Path> tempSongs = createTempFiles(SONGS_TEST_DIRECTORY,
+                "test.wav", "SonG.wav", "other.wav", "TEST songs - the 3rd.wav");
+
+        StringReader reader = new StringReader("asd@abv.bg 123" + System.lineSeparator());
+        StringWriter writer = new StringWriter();
+        spotify = new DefaultSpotify(reader, writer, SONGS_TEST_DIRECTORY, PLAYLISTS_TEST_DIRECTORY);
+
+        try {
+            spotify.login("asd@abv.bg", "123");
+
+            SearchPage first = spotify.search(List.of("song", "Test"), SearchMode.SUBSTRING, 0, 2, "asd@abv.bg");
+            SearchPage second = spotify.search(List.of("song", "Test"), SearchMode.SUBSTRING, 2, 2, "asd@abv.bg");
+
+            assertIterableEquals(List.of("SonG", "TEST songs - the 3rd"), first.songs(),
+                    "Correctly returns the first page of songs in name order");
+            assertIterableEquals(List.of("test"), second.songs(), "Correctly returns the songs after the offset");
+            assertEquals(3, second.total(), "Correctly counts every song found");
+            assertTrue(first.hasMore() && !second.hasMore(), "Correctly tells whether more songs were found");
+        } finally {
+            deleteTempFiles(tempSongs);
+        }
+    }
+
+    @Test
+    void testSearchInvalidPage() {
+        StringReader reader = new StringReader("asd@abv.bg 123" + System.lineSeparator());
+        StringWriter writer = new StringWriter();
+        spotify = new DefaultSpotify(reader, writer, SONGS_TEST_DIRECTORY, PLAYLISTS_TEST_DIRECTORY);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> spotify.search(List.of("song"), SearchMode.SUBSTRING, 0, 0, "asd@abv.bg"),
+                "Throws IllegalArgumentException when the limit isn't positive");
+    }
+
+    //------------Suggest------------
+
+    @Test
+    void testSuggestBlankPrefix() {
+        StringReader reader = new StringReader("asd@abv.bg 123" + System.lineSeparator());
+        StringWriter writer = new StringWriter();
+        spotify = new DefaultSpotify(reader, writer, SONGS_TEST_DIRECTORY, PLAYLISTS_TEST_DIRECTORY);
+
+        assertThrows(IllegalArgumentException.class, () -> spotify.suggest("   ", "asd@abv.bg"),
+                "Throws IllegalArgumentException when invoked with blank prefix");
+    }
+
+    @Test
+    void testSuggestAccountNotLoggedIn() {
+        StringReader reader = new StringReader("asd@abv.bg 123" + System.lineSeparator());
+        StringWriter writer = new StringWriter();
+        spotify = new DefaultSpotify(reader, writer, SONGS_TEST_DIRECTORY, PLAYLISTS_TEST_DIRECTORY);
+
+        assertThrows(UserNotLoggedInException.class, () -> spotify.suggest("song", "asd@abv.bg"),
+                "Throws UserNotLoggedInException when invoked by a user that isn't logged in");
+    }
+
+    @Test
+    void testSuggestStartingWithPrefix() throws SpotifyException, IOException {
+        Set<Path> tempSongs = createTempFiles(SONGS_TEST_DIRECTORY,
+                "test.wav", "TEST songs - the 3rd.wav", "other test.wav");
+
+        StringReader reader = new StringReader("asd@abv.bg 123" + System.lineSeparator());
+        StringWriter writer = new StringWriter();
+        spotify = new DefaultSpotify(reader, writer, SONGS_TEST_DIRECTORY, PLAYLISTS_TEST_DIRECTORY);
+
+        try {
+            spotify.login("asd@abv.bg", "123");
+
+            assertIterableEquals(List.of("TEST songs - the 3rd", "test"), spotify.suggest("Te", "asd@abv.bg"),
+                    "Correctly returns the songs starting with the prefix, in name order when none was played");
+            assertTrue(spotify.suggest("tests", "asd@abv.bg").isEmpty(),
+                    "Correctly returns an empty list when no song starts with the prefix");
+        } finally {
+            deleteTempFiles(tempSongs);
+        }
+    }
+
     private Set<Path> createTempFiles(String directory, String... fileNames) throws IOException {
         Set<Path> tempFiles = new HashSet<>();
 
@@ -0,0 +1,137 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uni.fmi.mjt.project.spotify.utility.WavHeader;
+import uni.fmi.mjt.project.spotify.utility.WavHeaderCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CatalogIndexerTest {
+    @TempDir
+    Path directory;
+
+    @TempDir
+    Path cache;
+
+    @Test
+    void testUnchangedSongsComeFromTheSnapshot() throws IOException {
+        List<CatalogSong> songs = writeSongs(3);
+        Path snapshot = cache.resolve("Cache").resolve("catalog.snapshot");
+
+        CatalogIndexReport first = index(snapshot, new WavHeaderCache());
+        WavHeaderCache headers = new WavHeaderCache();
+        CatalogIndexReport second = index(snapshot, headers);
+
+        assertEquals(3, first.parsed(), "Checks if every song is parsed without a snapshot");
+        assertEquals(3, second.reused(), "Checks if unchanged songs are taken from the snapshot");
+        assertEquals(0, second.parsed(), "Checks if no song is parsed again");
+        assertEquals(WavHeader.read(songs.get(1).path()), headers.get(songs.get(1).path()),
+                "Checks if the header from the snapshot is the header of the song");
+        assertEquals(0, headers.getMisses(), "Checks if a song from the snapshot is played without parsing it");
+    }
+
+    @Test
+    void testUnchangedDirectoriesComeFromTheSnapshot() throws IOException {
+        List<CatalogSong> songs = writeSongs(3);
+        Path snapshot = cache.resolve("catalog.snapshot");
+        index(snapshot, new WavHeaderCache());
+
+        try (SongCatalog catalog = SongCatalog.open(directory, snapshot)) {
+            CatalogIndexReport report = CatalogIndexer.index(catalog, new WavHeaderCache(), snapshot);
+
+            assertEquals(songs, catalog.snapshot().songs(), "Checks if the songs are restored from the snapshot");
+            assertEquals(3, report.directories(), "Checks if every directory is taken from the snapshot");
+            assertEquals(0, report.listed(), "Checks if no directory is listed again");
+        }
+    }
+
+    @Test
+    void testChangedDirectoryIsListedAgain() throws IOException {
+        writeSongs(3);
+        Path snapshot = cache.resolve("catalog.snapshot");
+        index(snapshot, new WavHeaderCache());
+
+        Path album = directory.resolve("Queen").resolve("Opera");
+        writeWav(album.resolve("song 3.wav"), 1);
+        Files.setLastModifiedTime(album, FileTime.fromMillis(0));
+
+        try (SongCatalog catalog = SongCatalog.open(directory, snapshot)) {
+            CatalogIndexReport report = CatalogIndexer.index(catalog, new WavHeaderCache(), snapshot);
+
+            assertEquals(4, catalog.snapshot().size(), "Checks if the song added since the snapshot is found");
+            assertEquals(1, report.listed(), "Checks if only the changed directory is listed again");
+            assertEquals(3, report.reused(), "Checks if the songs from the snapshot aren't parsed again");
+            assertEquals(1, report.parsed(), "Checks if the new song is parsed");
+        }
+    }
+
+    @Test
+    void testChangedSongIsParsedAgainWhenLookedUp() throws IOException {
+        List<CatalogSong> songs = writeSongs(3);
+        Path snapshot = cache.resolve("catalog.snapshot");
+        index(snapshot, new WavHeaderCache());
+
+        writeWav(songs.get(0).path(), 1);
+        Files.setLastModifiedTime(songs.get(0).path(), FileTime.fromMillis(0));
+        WavHeaderCache headers = new WavHeaderCache();
+        index(snapshot, headers);
+
+        assertEquals(1, headers.get(songs.get(0).path()).format().getChannels(),
+                "Checks if the new format of the song is used");
+        assertEquals(1, headers.getMisses(), "Checks if only the changed song is parsed again");
+    }
+
+    @Test
+    void testUnreadableFilesAndSnapshotAreSkipped() throws IOException {
+        writeSongs(2);
+        Files.writeString(directory.resolve("notes.wav"), "not a song");
+        Path snapshot = Files.writeString(cache.resolve("catalog.snapshot"), "not a snapshot");
+
+        CatalogIndexReport report = index(snapshot, new WavHeaderCache());
+
+        assertEquals(2, report.parsed(), "Checks if the songs are parsed when the snapshot can't be read");
+        assertEquals(1, report.failed(), "Checks if a file that isn't a song is reported");
+        assertEquals(2, CatalogFile.read(snapshot).entries().size(),
+                "Checks if a readable snapshot is written in its place");
+    }
+
+    private CatalogIndexReport index(Path snapshot, WavHeaderCache headers) throws IOException {
+        try (SongCatalog catalog = SongCatalog.open(directory, snapshot)) {
+            return CatalogIndexer.index(catalog, headers, snapshot);
+        }
+    }
+
+    private List<CatalogSong> writeSongs(int count) throws IOException {
+        Path album = Files.createDirectories(directory.resolve("Queen").resolve("Opera"));
+
+        for (int i = 0; i < count; i++) {
+            writeWav(album.resolve("song " + i + ".wav"), 2);
+        }
+
+        try (SongCatalog catalog = SongCatalog.open(directory)) {
+            return catalog.snapshot().songs();
+        }
+    }
+
+    private static void writeWav(Path path, int channels) throws IOException {
+        ByteBuffer wav = ByteBuffer.allocate(12 + 24 + 8 + 4 * channels).order(ByteOrder.LITTLE_ENDIAN);
+
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(0).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) 1).putShort((short) channels).putInt(8000).putInt(8000 * 2 * channels)
+                .putShort((short) (2 * channels)).putShort((short) 16);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(4 * channels);
+
+        Files.write(path, wav.array());
+    }
+}
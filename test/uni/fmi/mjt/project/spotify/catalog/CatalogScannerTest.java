@@ -0,0 +1,50 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CatalogScannerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testScanListsOnlyWavFiles() throws IOException {
+        Path album = Files.createDirectories(directory.resolve("Queen").resolve("Opera"));
+        Files.createFile(album.resolve("song.wav"));
+        Files.createFile(album.resolve("LOUD.WAV"));
+        Files.createFile(album.resolve("cover.jpg"));
+        Files.createFile(album.resolve("a.b"));
+        Files.createFile(album.resolve(".wav"));
+
+        Map<Path, CatalogDirectory> directories = CatalogScanner.scan(directory, path -> { });
+
+        assertEquals(Set.of("song", "LOUD"), Set.copyOf(directories.get(album).songs().stream()
+                        .map(CatalogSong::name)
+                        .toList()),
+                "Checks if only WAV files are listed as songs, whatever the case of their extension");
+    }
+
+    @Test
+    void testScanVisitsEveryDirectory() throws IOException {
+        Path opera = Files.createDirectories(directory.resolve("Queen").resolve("Opera"));
+        Path jazz = Files.createDirectories(directory.resolve("Queen").resolve("Jazz"));
+        Set<Path> visited = ConcurrentHashMap.newKeySet();
+
+        Map<Path, CatalogDirectory> directories = CatalogScanner.scan(directory, visited::add);
+
+        assertEquals(Set.of(directory, directory.resolve("Queen"), opera, jazz), directories.keySet(),
+                "Checks if nested directories are listed");
+        assertEquals(directories.keySet(), visited, "Checks if every listed directory is reported");
+        assertEquals(List.of(), directories.get(jazz).songs(), "Checks if an empty directory has no songs");
+    }
+}
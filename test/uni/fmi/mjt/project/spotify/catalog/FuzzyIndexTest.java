@@ -0,0 +1,132 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FuzzyIndexTest {
+    private static final List<CatalogSong> songs = List.of(
+            song("Another One Bites the Dust"),
+            song("Bohemian Rhapsody"),
+            song("Queen - Bohemian Rhapsody (Live)"),
+            song("Bohemia"),
+            song("We Will Rock You"));
+
+    @Test
+    void testDistanceCountsSwaps() {
+        assertEquals(1, FuzzyIndex.distance("bohemain", "bohemian", 2), "Checks if swapped neighbours are one edit");
+        assertEquals(2, FuzzyIndex.distance("rapsodi", "rhapsody", 2), "Checks if insertions and replacements count");
+        assertEquals(3, FuzzyIndex.distance("queen", "rock", 2), "Checks if distant words stop at the limit");
+    }
+
+    @Test
+    void testSearchRanksByDistance() {
+        FuzzyIndex index = FuzzyIndex.build(TokenIndex.build(songs));
+
+        assertArrayEquals(new int[] {1, 2, 3}, index.search(List.of("bohemain")),
+                "Checks if misspelled words find the closest songs first");
+        assertArrayEquals(new int[] {1, 2}, index.search(List.of("bohemain rapsody")),
+                "Checks if every word has to be close");
+        assertArrayEquals(new int[] {4}, index.search(List.of("rok")), "Checks if short words allow one edit");
+        assertArrayEquals(new int[0], index.search(List.of("rk")), "Checks if the shortest words have to be exact");
+    }
+
+    @Test
+    void testWordsCloseToMatchScan() {
+        Random random = new Random(21);
+        List<CatalogSong> generated = new ArrayList<>();
+
+        for (int i = 0; i < 300; i++) {
+            generated.add(new CatalogSong(randomWord(random, 1 + random.nextInt(12)), Path.of(i + ".wav")));
+        }
+
+        TokenIndex tokenIndex = TokenIndex.build(generated);
+        FuzzyIndex index = FuzzyIndex.build(tokenIndex);
+
+        for (int round = 0; round < 300; round++) {
+            String query = randomWord(random, 1 + random.nextInt(12));
+            int maxDistance = FuzzyIndex.maxDistance(query);
+            Map<String, Integer> expected = new HashMap<>();
+
+            for (String word : tokenIndex.words()) {
+                int distance = FuzzyIndex.distance(query, word, maxDistance);
+
+                if (distance <= maxDistance) {
+                    expected.put(word, distance);
+                }
+            }
+
+            assertEquals(expected, index.wordsCloseTo(query), "Checks if the index finds every close word of " + query);
+        }
+    }
+
+    @Test
+    void testSearchMatchesScan() {
+        Random random = new Random(16);
+        List<CatalogSong> generated = new ArrayList<>();
+
+        for (int i = 0; i < 300; i++) {
+            generated.add(song(randomWord(random, 3 + random.nextInt(6)) + " " +
+                    randomWord(random, 3 + random.nextInt(6))));
+        }
+
+        FuzzyIndex index = FuzzyIndex.build(TokenIndex.build(generated));
+
+        for (int round = 0; round < 100; round++) {
+            List<String> query = List.of(randomWord(random, 3 + random.nextInt(6)),
+                    randomWord(random, 3 + random.nextInt(6)));
+            Map<Integer, Integer> distances = new HashMap<>();
+
+            for (int id = 0; id < generated.size(); id++) {
+                int total = 0;
+                boolean found = true;
+
+                for (String keyword : query) {
+                    int maxDistance = FuzzyIndex.maxDistance(keyword);
+                    int closest = maxDistance + 1;
+
+                    for (String word : TokenIndex.tokens(generated.get(id).name())) {
+                        closest = Math.min(closest, FuzzyIndex.distance(keyword, word, maxDistance));
+                    }
+
+                    found &= closest <= maxDistance;
+                    total += closest;
+                }
+
+                if (found) {
+                    distances.put(id, total);
+                }
+            }
+
+            int[] expected = distances.keySet().stream()
+                    .sorted(Comparator.comparing((Integer id) -> distances.get(id)).thenComparing(id -> id))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            assertArrayEquals(expected, index.search(query), "Checks if the index ranks every close song of " + query);
+        }
+    }
+
+    private static String randomWord(Random random, int length) {
+        char[] word = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            word[i] = "abc".charAt(random.nextInt(3));
+        }
+
+        return new String(word);
+    }
+
+    private static CatalogSong song(String name) {
+        return new CatalogSong(name, Path.of(name + ".wav"));
+    }
+}
@@ -0,0 +1,95 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchCacheTest {
+    private static final int[] IDS = {1, 2, 3};
+
+    @Test
+    void testKeyIsNormalized() {
+        assertEquals(SearchKey.of(SearchMode.SUBSTRING, List.of("Rock ", "queen", "rock")),
+                SearchKey.of(SearchMode.SUBSTRING, List.of("QUEEN", "rock")),
+                "Checks if case, order and repetitions of keywords don't matter");
+        assertEquals(SearchKey.of(SearchMode.ALL, List.of("queen rock")),
+                SearchKey.of(SearchMode.ALL, List.of("rock", "Queen")),
+                "Checks if searches by words only depend on the words");
+        assertEquals(List.of("rock", "rock"), SearchKey.of(SearchMode.FUZZY, List.of("rock rock")).keywords(),
+                "Checks if repeated words are kept in fuzzy searches");
+    }
+
+    @Test
+    void testGetKeepsResults() {
+        SearchCache cache = new SearchCache(1000);
+        AtomicInteger searches = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(IDS, cache.get(key("queen"), 1, () -> search(searches)),
+                    "Checks if the results are returned");
+        }
+
+        SearchCacheMetrics metrics = cache.getMetrics();
+
+        assertEquals(1, searches.get(), "Checks if the search is made only once");
+        assertEquals(2, metrics.hits(), "Checks if the repeated searches are hits");
+        assertEquals(1, metrics.misses(), "Checks if the first search is a miss");
+        assertEquals(2.0 / 3, metrics.hitRatio(), 1e-9, "Checks if the hit ratio is reported");
+    }
+
+    @Test
+    void testNewerCatalogVersionDropsResults() {
+        SearchCache cache = new SearchCache(1000);
+        AtomicInteger searches = new AtomicInteger();
+
+        cache.get(key("queen"), 1, () -> search(searches));
+        cache.get(key("queen"), 2, () -> search(searches));
+        cache.get(key("queen"), 1, () -> search(searches));
+
+        assertEquals(3, searches.get(), "Checks if results of other catalog versions aren't used");
+        assertEquals(1, cache.getMetrics().entries(), "Checks if results of older versions aren't kept");
+    }
+
+    @Test
+    void testFrequentSearchesSurviveOneOffSearches() {
+        SearchCache cache = new SearchCache(2000);
+        AtomicInteger searches = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            cache.get(key("popular"), 1, () -> search(searches));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            cache.get(key("once " + i), 1, () -> new int[10]);
+        }
+
+        cache.get(key("popular"), 1, () -> search(searches));
+
+        assertEquals(1, searches.get(), "Checks if a scan of searches made once doesn't evict a popular one");
+        assertTrue(cache.getMetrics().weight() <= 2000, "Checks if the results stay within the budget");
+        assertTrue(cache.getMetrics().evictions() > 0, "Checks if results are evicted once the budget is full");
+    }
+
+    @Test
+    void testResultsLargerThanTheBudgetArentKept() {
+        SearchCache cache = new SearchCache(100);
+
+        cache.get(key("a"), 1, () -> new int[1000]);
+
+        assertEquals(0, cache.getMetrics().entries(), "Checks if results that don't fit aren't kept");
+    }
+
+    private static SearchKey key(String keyword) {
+        return SearchKey.of(SearchMode.SUBSTRING, List.of(keyword));
+    }
+
+    private static int[] search(AtomicInteger searches) {
+        searches.incrementAndGet();
+        return IDS;
+    }
+}
@@ -0,0 +1,153 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SongCatalogTest {
+    private static final long WATCH_TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testOpenListsNestedDirectories() throws IOException {
+        Files.createFile(directory.resolve("b song.wav"));
+        Files.createDirectories(directory.resolve("Queen").resolve("Opera"));
+        Files.createFile(directory.resolve("Queen").resolve("Opera").resolve("a song.wav"));
+
+        try (SongCatalog catalog = SongCatalog.open(directory)) {
+            assertEquals(List.of("a song", "b song"), names(catalog.snapshot()),
+                    "Checks if songs in subdirectories are listed, ordered by name");
+        }
+    }
+
+    @Test
+    void testFindPrefersSongClosestToTheDirectory() throws IOException {
+        Path album = Files.createDirectories(directory.resolve("Queen").resolve("Opera"));
+        Files.createFile(album.resolve("a song.wav"));
+        Files.createFile(album.resolve("b song.wav"));
+        Files.createFile(directory.resolve("b song.wav"));
+
+        try (SongCatalog catalog = SongCatalog.open(directory)) {
+            CatalogSnapshot snapshot = catalog.snapshot();
+
+            assertEquals(album.resolve("a song.wav"), snapshot.find("a song").path(),
+                    "Checks if a song in a subdirectory is found");
+            assertEquals(directory.resolve("b song.wav"), snapshot.find("b song").path(),
+                    "Checks if the song closest to the music directory is preferred");
+            assertNull(snapshot.find("c song"), "Checks if a missing song isn't found");
+        }
+    }
+
+    @Test
+    void testWatcherPicksUpNewSong() throws IOException, InterruptedException {
+        try (SongCatalog catalog = SongCatalog.open(directory)) {
+            CatalogSnapshot before = catalog.snapshot();
+
+            Files.createFile(directory.resolve("new.wav"));
+            CatalogSnapshot after = await(catalog, snapshot -> snapshot.version() > before.version());
+
+            assertEquals(List.of("new"), names(after), "Checks if a song added to the directory is found");
+            assertEquals(List.of(), names(before), "Checks if an earlier snapshot doesn't change");
+        }
+    }
+
+    @Test
+    void testVersionKeptWhenSongsDontChange() throws IOException, InterruptedException {
+        Files.createFile(directory.resolve("song.wav"));
+
+        try (SongCatalog catalog = SongCatalog.open(directory)) {
+            CatalogSnapshot before = catalog.snapshot();
+
+            Path album = Files.createDirectory(directory.resolve("empty album"));
+            CatalogSnapshot after = await(catalog, snapshot -> snapshot.directories().containsKey(album));
+
+            assertEquals(before.version(), after.version(),
+                    "Checks if listing the directory again without new or removed songs keeps the version");
+            assertEquals(List.of("song"), names(after), "Checks if the songs stay the same");
+        }
+    }
+
+    @Test
+    void testSnapshotWithoutChangesIsReused() throws IOException {
+        Files.createFile(directory.resolve("song.wav"));
+
+        try (SongCatalog catalog = SongCatalog.open(directory)) {
+            assertEquals(catalog.snapshot(), catalog.snapshot(), "Checks if the catalog isn't listed without changes");
+        }
+    }
+
+    @Test
+    void testWatcherPicksUpChangesInSubdirectories() throws IOException, InterruptedException {
+        Path album = Files.createDirectories(directory.resolve("Queen"));
+        Files.createFile(album.resolve("old.wav"));
+
+        try (SongCatalog catalog = SongCatalog.open(directory)) {
+            Files.createFile(album.resolve("new.wav"));
+            Files.delete(album.resolve("old.wav"));
+
+            assertEquals(List.of("new"), names(await(catalog, snapshot -> names(snapshot).equals(List.of("new")))),
+                    "Checks if changes in a subdirectory reach the catalog");
+        }
+    }
+
+    @Test
+    void testRemovedDirectoryDropsItsSongs() throws IOException, InterruptedException {
+        Path album = Files.createDirectories(directory.resolve("Queen"));
+        Files.createFile(album.resolve("song.wav"));
+
+        try (SongCatalog catalog = SongCatalog.open(directory)) {
+            Files.delete(album.resolve("song.wav"));
+            Files.delete(album);
+
+            assertEquals(0, await(catalog, snapshot -> snapshot.size() == 0).size(),
+                    "Checks if the songs of a removed directory are gone");
+        }
+    }
+
+    @Test
+    void testOpenMissingDirectoryIsEmpty() {
+        try (SongCatalog catalog = SongCatalog.open(directory.resolve("missing"))) {
+            assertEquals(0, catalog.snapshot().size(), "Checks if a missing directory has no songs");
+        }
+    }
+
+    @Test
+    void testMissingDirectoryIsPolledUntilItAppears() throws IOException, InterruptedException {
+        Path missing = directory.resolve("missing");
+
+        try (SongCatalog catalog = SongCatalog.open(missing)) {
+            Files.createDirectory(missing);
+            Files.createFile(missing.resolve("song.wav"));
+
+            assertEquals(List.of("song"), names(await(catalog, snapshot -> snapshot.size() > 0)),
+                    "Checks if the songs of a directory created after the catalog was opened are found");
+        }
+    }
+
+    private static CatalogSnapshot await(SongCatalog catalog, Predicate<CatalogSnapshot> condition)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WATCH_TIMEOUT_MILLIS;
+        CatalogSnapshot snapshot = catalog.snapshot();
+
+        while (!condition.test(snapshot) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            snapshot = catalog.snapshot();
+        }
+
+        return snapshot;
+    }
+
+    private static List<String> names(CatalogSnapshot snapshot) {
+        return snapshot.songs().stream().map(CatalogSong::name).toList();
+    }
+}
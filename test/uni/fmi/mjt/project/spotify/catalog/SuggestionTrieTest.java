@@ -0,0 +1,123 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SuggestionTrieTest {
+    private static final List<String> NAMES = List.of(
+            "Queen - Another One Bites the Dust",
+            "Queen - Bohemian Rhapsody",
+            "Queen - We Will Rock You",
+            "Queens of the Stone Age - No One Knows",
+            "Rock-Star");
+
+    @Test
+    void testSuggestByPlaysThenName() {
+        Map<String, Integer> plays = Map.of("Queen - We Will Rock You", 3, "Queen - Bohemian Rhapsody", 1);
+        SuggestionTrie trie = SuggestionTrie.build(snapshot(NAMES), name -> plays.getOrDefault(name, 0));
+
+        assertEquals(List.of("Queen - We Will Rock You", "Queen - Bohemian Rhapsody",
+                        "Queen - Another One Bites the Dust", "Queens of the Stone Age - No One Knows"),
+                suggest(trie, "QUE"), "Checks if the most played songs come first and the rest in name order");
+        assertEquals(List.of("Queens of the Stone Age - No One Knows"), suggest(trie, "queens"),
+                "Checks if a prefix ending at a branch finds its songs");
+        assertEquals(List.of(), suggest(trie, "queen x"), "Checks if a prefix no song starts with finds none");
+        assertEquals(5, suggest(trie, "").size(), "Checks if the empty prefix finds every song");
+    }
+
+    @Test
+    void testSuggestSongsWithTheSameNameOnce() {
+        SuggestionTrie trie = SuggestionTrie.build(snapshot(List.of("Rock-Star", "Rock-Star", "Rock You")), name -> 0);
+
+        assertEquals(List.of("Rock You", "Rock-Star"), suggest(trie, "rock"),
+                "Checks if songs with the same name in different directories are suggested once");
+
+        trie.played("Rock-Star", 1);
+
+        assertEquals(List.of("Rock-Star", "Rock You"), suggest(trie, "rock"), "Checks if the shared name is played");
+    }
+
+    @Test
+    void testPlayedMovesSongsUp() {
+        SuggestionTrie trie = SuggestionTrie.build(snapshot(NAMES), name -> 0);
+
+        trie.played("Rock-Star", 1);
+        trie.played("Queen - We Will Rock You", 2);
+
+        assertEquals(List.of("Queen - We Will Rock You", "Rock-Star"), suggest(trie, "").subList(0, 2),
+                "Checks if plays are counted without building the trie again");
+        assertEquals("Queen - We Will Rock You", suggest(trie, "queen - ").get(0),
+                "Checks if every prefix of the played song sees the play");
+    }
+
+    @Test
+    void testSuggestMatchesSortedScan() {
+        Random random = new Random(22);
+        String[] names = new String[400];
+        Map<String, Integer> plays = new HashMap<>();
+
+        for (int i = 0; i < names.length; i++) {
+            names[i] = randomName(random);
+            plays.put(names[i], random.nextInt(5));
+        }
+
+        CatalogSnapshot catalog = snapshot(List.of(names));
+        SuggestionTrie trie = SuggestionTrie.build(catalog, name -> plays.getOrDefault(name, 0));
+
+        for (int round = 0; round < 300; round++) {
+            String name = randomName(random);
+            plays.merge(name, 1, Integer::sum);
+            trie.played(name, plays.get(name));
+
+            String prefix = randomName(random).substring(0, random.nextInt(4));
+            List<String> expected = catalog.songs().stream()
+                    .map(CatalogSong::name)
+                    .distinct()
+                    .filter(song -> song.toLowerCase().startsWith(prefix.toLowerCase()))
+                    .sorted(Comparator.comparingInt((String song) -> -plays.get(song))
+                            .thenComparing(Comparator.naturalOrder()))
+                    .limit(SuggestionTrie.SUGGESTIONS)
+                    .toList();
+
+            assertEquals(expected, suggest(trie, prefix),
+                    "Checks if the suggestions for " + prefix + " are the most played songs starting with it");
+        }
+    }
+
+    private static List<String> suggest(SuggestionTrie trie, String prefix) {
+        int[] ids = new int[SuggestionTrie.SUGGESTIONS];
+
+        return Arrays.stream(ids, 0, trie.suggest(prefix, ids)).mapToObj(trie::name).toList();
+    }
+
+    private static String randomName(Random random) {
+        char[] name = new char[3 + random.nextInt(4)];
+
+        for (int i = 0; i < name.length; i++) {
+            name[i] = "abAB ".charAt(random.nextInt(5));
+        }
+
+        return new String(name);
+    }
+
+    private static CatalogSnapshot snapshot(List<String> names) {
+        List<CatalogSong> songs = IntStream.range(0, names.size())
+                .mapToObj(i -> new CatalogSong(names.get(i), Path.of(i + ".wav")))
+                .toList();
+
+        CatalogDirectory directory = new CatalogDirectory(FileTime.fromMillis(0), songs, List.of());
+
+        return CatalogSnapshot.of(1, Map.of(Path.of("."), directory));
+    }
+}
@@ -0,0 +1,74 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TokenIndexTest {
+    private static final List<CatalogSong> songs = List.of(
+            song("Another One Bites the Dust"),
+            song("Bohemian Rhapsody"),
+            song("Queen - Bohemian Rhapsody (Live)"),
+            song("We Will Rock You"),
+            song("Rock-Star"));
+
+    @Test
+    void testTokensSplitOnPunctuation() {
+        assertEquals(List.of("queen", "bohemian", "rhapsody", "live"),
+                TokenIndex.tokens("Queen - Bohemian Rhapsody (Live)"),
+                "Checks if words are lowercased runs of letters");
+    }
+
+    @Test
+    void testAllIntersectsWords() {
+        TokenIndex index = TokenIndex.build(songs);
+
+        assertArrayEquals(new int[] {1, 2}, index.all(List.of("bohemian", "RHAPSODY")),
+                "Checks if songs with every word are found");
+        assertArrayEquals(new int[] {2}, index.all(List.of("bohemian rhapsody", "live")),
+                "Checks if keywords of several words count every word");
+        assertArrayEquals(new int[0], index.all(List.of("bohemian", "rock")), "Checks if a missing word matches none");
+    }
+
+    @Test
+    void testAnyMergesWords() {
+        TokenIndex index = TokenIndex.build(songs);
+
+        assertArrayEquals(new int[] {0, 3, 4}, index.any(List.of("rock", "dust")),
+                "Checks if songs with any of the words are found in id order");
+        assertArrayEquals(new int[0], index.any(List.of("rocks")), "Checks if only whole words match");
+    }
+
+    @Test
+    void testIntersectAndUnionMatchSets() {
+        Random random = new Random(19);
+
+        for (int round = 0; round < 100; round++) {
+            int[] first = randomSortedIds(random, random.nextInt(50));
+            int[] second = randomSortedIds(random, random.nextInt(2000));
+
+            assertArrayEquals(IntStream.of(first).filter(id -> contains(second, id)).toArray(),
+                    TokenIndex.intersect(first, second), "Checks if the galloping intersection is exact");
+            assertArrayEquals(IntStream.concat(IntStream.of(first), IntStream.of(second)).distinct().sorted().toArray(),
+                    TokenIndex.union(first, second), "Checks if the union is exact");
+        }
+    }
+
+    private static boolean contains(int[] ids, int id) {
+        return IntStream.of(ids).anyMatch(other -> other == id);
+    }
+
+    private static int[] randomSortedIds(Random random, int count) {
+        return random.ints(count, 0, 5000).distinct().sorted().toArray();
+    }
+
+    private static CatalogSong song(String name) {
+        return new CatalogSong(name, Path.of(name + ".wav"));
+    }
+}
@@ -0,0 +1,82 @@
+package uni.fmi.mjt.project.spotify.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class TrigramIndexTest {
+    private static final List<CatalogSong> songs = List.of(
+            song("Another One Bites the Dust"),
+            song("Bohemian Rhapsody"),
+            song("Queen - Bohemian Rhapsody (Live)"),
+            song("We Will Rock You"),
+            song("Rock-Star"));
+
+    @Test
+    void testSearchFindsSubstrings() {
+        TrigramIndex index = TrigramIndex.build(songs);
+
+        assertArrayEquals(new int[] {1, 2}, index.search(List.of("mian rhap")),
+                "Checks if substrings across words match");
+        assertArrayEquals(new int[] {3, 4}, index.search(List.of(" ROCK ")),
+                "Checks if keywords are stripped and lowercased");
+        assertArrayEquals(new int[] {0, 2, 3}, index.search(List.of("dust", "queen", "you")),
+                "Checks if songs with any of the keywords are found");
+        assertArrayEquals(new int[0], index.search(List.of("rocks")), "Checks if a missing substring matches none");
+    }
+
+    @Test
+    void testSearchShortKeywords() {
+        TrigramIndex index = TrigramIndex.build(songs);
+
+        assertArrayEquals(new int[] {0, 1, 2}, index.search(List.of("he")), "Checks if two characters match anywhere");
+        assertArrayEquals(new int[] {2, 4}, index.search(List.of("-")), "Checks if one character matches anywhere");
+        assertArrayEquals(new int[] {3}, index.search(List.of("ou")),
+                "Checks if a character at the end of a name matches");
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, index.search(List.of("  ")),
+                "Checks if a blank keyword matches all");
+    }
+
+    @Test
+    void testSearchMatchesScan() {
+        Random random = new Random(20);
+        List<CatalogSong> generated = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            generated.add(new CatalogSong(randomText(random, 1 + random.nextInt(12)), Path.of(i + ".wav")));
+        }
+
+        TrigramIndex index = TrigramIndex.build(generated);
+
+        for (int round = 0; round < 500; round++) {
+            String keyword = randomText(random, random.nextInt(5));
+            String lowercase = keyword.strip().toLowerCase();
+
+            assertArrayEquals(IntStream.range(0, generated.size())
+                            .filter(id -> generated.get(id).name().toLowerCase().contains(lowercase))
+                            .toArray(),
+                    index.search(List.of(keyword)),
+                    "Checks if the index finds exactly what a scan finds for " + keyword);
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        char[] text = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            text[i] = "abAB -é".charAt(random.nextInt(7));
+        }
+
+        return new String(text);
+    }
+
+    private static CatalogSong song(String name) {
+        return new CatalogSong(name, Path.of(name + ".wav"));
+    }
+}
@@ -6,6 +6,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uni.fmi.mjt.project.spotify.Spotify;
+import uni.fmi.mjt.project.spotify.catalog.SearchMode;
+import uni.fmi.mjt.project.spotify.catalog.SearchPage;
 import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
 import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
 import uni.fmi.mjt.project.spotify.exception.ServerSideException;
@@ -23,8 +25,8 @@ import uni.fmi.mjt.project.spotify.exception.song.SongDoesntExistException;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -288,7 +290,8 @@ public class CommandExecutorTest {
 
     @Test
     void testExecuteSearchErrorIllegalArgumentException() throws SpotifyException {
-        when(spotifyMock.search(keywords, email)).thenThrow(new IllegalArgumentException("error message"));
+        when(spotifyMock.search(keywords, SearchMode.SUBSTRING, 0, CommandExecutor.MAX_SEARCH_RESULTS, email))
+                .thenThrow(new IllegalArgumentException("error message"));
 
         Command command = new Command(CommandType.SEARCH, keywords);
         ServerResponse response = commandExecutor.execute(command, email);
@@ -303,7 +306,8 @@ public class CommandExecutorTest {
 
     @Test
     void testExecuteSearchErrorUserNotLoggedInException() throws SpotifyException {
-        when(spotifyMock.search(keywords, email)).thenThrow(new UserNotLoggedInException("error message"));
+        when(spotifyMock.search(keywords, SearchMode.SUBSTRING, 0, CommandExecutor.MAX_SEARCH_RESULTS, email))
+                .thenThrow(new UserNotLoggedInException("error message"));
 
         Command command = new Command(CommandType.SEARCH, keywords);
         ServerResponse response = commandExecutor.execute(command, email);
@@ -328,7 +332,8 @@ public class CommandExecutorTest {
 
     @Test
     void testExecuteSearchNoSongsContainKeywords() throws SpotifyException {
-        when(spotifyMock.search(keywords, email)).thenReturn(Set.of());
+        when(spotifyMock.search(keywords, SearchMode.SUBSTRING, 0, CommandExecutor.MAX_SEARCH_RESULTS, email))
+                .thenReturn(new SearchPage(List.of(), 0, 0));
 
         Command command = new Command(CommandType.SEARCH, keywords);
         ServerResponse response = commandExecutor.execute(command, email);
@@ -344,7 +349,8 @@ public class CommandExecutorTest {
 
     @Test
     void testExecuteSearchSongsContainKeywords() throws SpotifyException {
-        when(spotifyMock.search(keywords, email)).thenReturn(Set.of(song1, song2));
+        when(spotifyMock.search(keywords, SearchMode.SUBSTRING, 0, CommandExecutor.MAX_SEARCH_RESULTS, email))
+                .thenReturn(new SearchPage(List.of(song1, song2), 0, 2));
 
         Command command = new Command(CommandType.SEARCH, keywords);
         ServerResponse response = commandExecutor.execute(command, email);
@@ -360,6 +366,143 @@ public class CommandExecutorTest {
                 "Checks if the returned message is correct");
     }
 
+    @Test
+    void testExecuteSearchAllWords() throws SpotifyException {
+        when(spotifyMock.search(keywords, SearchMode.ALL, 0, CommandExecutor.MAX_SEARCH_RESULTS, email))
+                .thenReturn(new SearchPage(List.of(song1), 0, 1));
+
+        List<String> arguments = new ArrayList<>(keywords);
+        arguments.add(0, "--all");
+        ServerResponse response = commandExecutor.execute(new Command(CommandType.SEARCH, arguments), email);
+
+        assertEquals("These are the songs that were found using the keywords:" + System.lineSeparator() +
+                "\t" + song1, response.getMessage(), "Checks if the keywords are searched as words, all of them");
+    }
+
+    @Test
+    void testExecuteSearchErrorOnlyOptions() {
+        ServerResponse response = commandExecutor.execute(new Command(CommandType.SEARCH, List.of("--any")), email);
+
+        assertEquals(CommandType.ERROR, response.getType(), "Checks if a search without keywords is rejected");
+    }
+
+    @Test
+    void testExecuteSearchCapsResults() throws SpotifyException {
+        List<String> songs = new ArrayList<>();
+
+        for (int i = 0; i < CommandExecutor.MAX_SEARCH_RESULTS; i++) {
+            songs.add(String.format("song%03d", i));
+        }
+
+        when(spotifyMock.search(keywords, SearchMode.SUBSTRING, 0, CommandExecutor.MAX_SEARCH_RESULTS, email))
+                .thenReturn(new SearchPage(songs, 0, songs.size() + 1));
+
+        ServerResponse response = commandExecutor.execute(new Command(CommandType.SEARCH, keywords), email);
+        List<String> lines = response.getMessage().lines().toList();
+        int shown = CommandExecutor.MAX_SEARCH_RESULTS;
+
+        assertEquals("\tsong000", lines.get(1), "Checks if the songs are shown in name order");
+        assertEquals(shown + 2, lines.size(), "Checks if no more songs than the server shows are listed");
+        assertEquals(String.format("Showing 1-%d of %d songs, search with --offset=%d for more",
+                shown, shown + 1, shown), lines.get(lines.size() - 1), "Checks if the next page is pointed to");
+    }
+
+    @Test
+    void testExecuteSearchPage() throws SpotifyException {
+        when(spotifyMock.search(keywords, SearchMode.SUBSTRING, 2, 1, email))
+                .thenReturn(new SearchPage(List.of(song2), 2, 4));
+
+        List<String> arguments = new ArrayList<>(keywords);
+        arguments.add("--offset=2");
+        arguments.add("--limit=1");
+        ServerResponse response = commandExecutor.execute(new Command(CommandType.SEARCH, arguments), email);
+
+        assertEquals("These are the songs that were found using the keywords:" + System.lineSeparator() +
+                        "\t" + song2 + System.lineSeparator() +
+                        "Showing 3-3 of 4 songs, search with --offset=3 for more", response.getMessage(),
+                "Checks if the page asked for is shown");
+    }
+
+    @Test
+    void testExecuteSearchPageLimitIsCapped() throws SpotifyException {
+        when(spotifyMock.search(keywords, SearchMode.SUBSTRING, 0, CommandExecutor.MAX_SEARCH_RESULTS, email))
+                .thenReturn(new SearchPage(List.of(song1, song2), 0, 2));
+
+        List<String> arguments = new ArrayList<>(keywords);
+        arguments.add("--limit=100000");
+        ServerResponse response = commandExecutor.execute(new Command(CommandType.SEARCH, arguments), email);
+
+        assertEquals(CommandType.SEARCH, response.getType(),
+                "Checks if a limit above the one of the server is lowered to it");
+    }
+
+    @Test
+    void testExecuteSearchErrorInvalidPage() {
+        List<String> arguments = new ArrayList<>(keywords);
+        arguments.add("--offset=-3");
+        ServerResponse response = commandExecutor.execute(new Command(CommandType.SEARCH, arguments), email);
+
+        assertEquals(CommandType.ERROR, response.getType(), "Checks if a negative offset is rejected");
+    }
+
+    //-------------Suggest-------------
+    @Test
+    void testExecuteSuggestErrorInsufficientArguments() {
+        Command command = new Command(CommandType.SUGGEST, List.of());
+        ServerResponse response = commandExecutor.execute(command, email);
+
+        String expectedMessage = String.format(ERROR_MESSAGE_INSUFFICIENT_ARGUMENTS,
+                "suggest songs", 1, "beginning of a song name");
+
+        assertEquals(CommandType.ERROR, response.getType(),
+                "Checks if the returned command type is ERROR");
+        assertEquals(String.format(ERROR_MESSAGE_PATTERN, expectedMessage), response.getMessage(),
+                "Checks if the returned error message is correct");
+    }
+
+    @Test
+    void testExecuteSuggestErrorUserNotLoggedInException() throws SpotifyException {
+        when(spotifyMock.suggest("bohemian rh", email)).thenThrow(new UserNotLoggedInException("error message"));
+
+        Command command = new Command(CommandType.SUGGEST, List.of("bohemian", "rh"));
+        ServerResponse response = commandExecutor.execute(command, email);
+
+        assertEquals(CommandType.ERROR, response.getType(),
+                "Checks if the returned command type is ERROR");
+        assertEquals(String.format(ERROR_MESSAGE_PATTERN, "error message"), response.getMessage(),
+                "Checks if the returned error message is correct");
+    }
+
+    @Test
+    void testExecuteSuggestSongsStartingWithPrefix() throws SpotifyException {
+        when(spotifyMock.suggest("bohemian rh", email)).thenReturn(List.of(song1, song2));
+
+        Command command = new Command(CommandType.SUGGEST, List.of("bohemian", "rh"));
+        ServerResponse response = commandExecutor.execute(command, email);
+
+        String expectedMessage = "Songs starting with 'bohemian rh':" + System.lineSeparator() +
+                "\t" + song1 + System.lineSeparator() +
+                "\t" + song2;
+
+        assertEquals(CommandType.SUGGEST, response.getType(),
+                "Checks if the returned command type is SUGGEST");
+        assertEquals(expectedMessage, response.getMessage(),
+                "Checks if the words of the prefix are joined and the songs listed in order");
+    }
+
+    @Test
+    void testExecuteSuggestNoSongs() throws SpotifyException {
+        when(spotifyMock.suggest("zz", email)).thenReturn(List.of());
+
+        Command command = new Command(CommandType.SUGGEST, List.of("zz"));
+        ServerResponse response = commandExecutor.execute(command, email);
+
+        assertEquals(CommandType.SUGGEST, response.getType(),
+                "Checks if the returned command type is SUGGEST");
+        assertEquals("No songs start with 'zz'", response.getMessage(),
+                "Checks if the returned message is correct");
+    }
+
     //-------------Top-------------
     @Test
     void testExecuteTopErrorInsufficientArguments() {
@@ -846,6 +989,61 @@ public class CommandExecutorTest {
                 "Checks if the returned song is correct");
     }
 
+    @Test
+    void testExecutePlayErrorUnknownQuality() {
+        Command command = new Command(CommandType.PLAY, List.of(song1, "--quality=lossless"));
+        ServerResponse response = commandExecutor.execute(command, email);
+
+        assertEquals(CommandType.ERROR, response.getType(),
+                "Checks if the returned command type is ERROR for an unknown quality");
+    }
+
+    //-------------Seek-------------
+
+    @Test
+    void testExecuteSeekErrorInsufficientArguments() {
+        Command command = new Command(CommandType.SEEK, List.of(song1));
+        ServerResponse response = commandExecutor.execute(command, email);
+
+        String errorMessage = String.format(ERROR_MESSAGE_INSUFFICIENT_ARGUMENTS,
+                "seek in a song", 2, "song name and time");
+
+        assertEquals(CommandType.ERROR, response.getType(),
+                "Checks if the returned command type is ERROR");
+
+        assertEquals(String.format(ERROR_MESSAGE_PATTERN, errorMessage), response.getMessage(),
+                "Checks if the returned error message is correct");
+    }
+
+    @Test
+    void testExecuteSeekErrorInvalidTime() {
+        Command command = new Command(CommandType.SEEK, List.of(song1, "soon"));
+        ServerResponse response = commandExecutor.execute(command, email);
+
+        assertEquals(CommandType.ERROR, response.getType(),
+                "Checks if the returned command type is ERROR for a malformed time");
+    }
+
+    @Test
+    void testExecuteSeek() throws SpotifyException {
+        StreamableSong streamableSongMock = mock(StreamableSong.class);
+        when(spotifyMock.findSong(song1, email)).thenReturn(streamableSongMock);
+
+        Command command = new Command(CommandType.SEEK, List.of(song1, "1:30"));
+        ServerResponse response = commandExecutor.execute(command, email);
+
+        String expectedMessage = "Playing song \"" + song1 + "\" from 1:30";
+
+        assertEquals(CommandType.SEEK, response.getType(),
+                "Checks if the returned command type is SEEK");
+
+        assertEquals(expectedMessage, response.getMessage(),
+                "Checks if the returned message is correct");
+
+        assertEquals(streamableSongMock, response.getSong(),
+                "Checks if the returned song is correct");
+    }
+
     //-------------Stop-------------
     @Test
     void testExecuteStop() {
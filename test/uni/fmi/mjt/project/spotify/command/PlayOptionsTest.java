@@ -0,0 +1,75 @@
+package uni.fmi.mjt.project.spotify.command;
+
+import org.junit.jupiter.api.Test;
+import uni.fmi.mjt.project.spotify.dto.song.format.AudioQuality;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PlayOptionsTest {
+    @Test
+    void testFromPlayWithoutOptions() {
+        PlayOptions options = PlayOptions.from(new Command(CommandType.PLAY, List.of("song")));
+
+        assertFalse(options.multiplexed(), "Checks if songs are streamed on their own connection by default");
+        assertEquals(0, options.startSeconds(), "Checks if a play starts at the beginning");
+    }
+
+    @Test
+    void testFromPlayMultiplexed() {
+        PlayOptions options = PlayOptions.from(new Command(CommandType.PLAY, List.of("song", "--multiplexed")));
+
+        assertTrue(options.multiplexed(), "Checks if the multiplexed option is recognized");
+    }
+
+    @Test
+    void testFromPlayWithQuality() {
+        PlayOptions options = PlayOptions.from(new Command(CommandType.PLAY, List.of("song", "--quality=Low")));
+
+        assertEquals(AudioQuality.LOW, options.quality(), "Checks if the quality option is recognized");
+        assertEquals(AudioQuality.HIGH, PlayOptions.from(new Command(CommandType.PLAY, List.of("song"))).quality(),
+                "Checks if songs are streamed in their original quality by default");
+    }
+
+    @Test
+    void testFromPlayLossless() {
+        PlayOptions options = PlayOptions.from(new Command(CommandType.PLAY, List.of("song", "--lossless")));
+
+        assertTrue(options.lossless(), "Checks if the lossless option is recognized");
+        assertFalse(PlayOptions.from(new Command(CommandType.PLAY, List.of("song"))).lossless(),
+                "Checks if songs are streamed as PCM by default");
+    }
+
+    @Test
+    void testFromPlayWithUnknownQuality() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PlayOptions.from(new Command(CommandType.PLAY, List.of("song", "--quality=lossless"))),
+                "Checks if an unknown quality is rejected");
+    }
+
+    @Test
+    void testFromSeek() {
+        PlayOptions options = PlayOptions.from(new Command(CommandType.SEEK, List.of("song", "1:30.5")));
+
+        assertEquals(90.5, options.startSeconds(), "Checks if the seek time is converted to seconds");
+    }
+
+    @Test
+    void testParseTimeFormats() {
+        assertEquals(95, PlayOptions.parseTime("95"), "Checks if plain seconds are accepted");
+        assertEquals(95, PlayOptions.parseTime("1:35"), "Checks if minutes and seconds are accepted");
+        assertEquals(3695, PlayOptions.parseTime("1:01:35"), "Checks if hours, minutes and seconds are accepted");
+    }
+
+    @Test
+    void testParseTimeInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> PlayOptions.parseTime("-5"),
+                "Checks if a negative time is rejected");
+        assertThrows(IllegalArgumentException.class, () -> PlayOptions.parseTime("one minute"),
+                "Checks if a time that isn't a number is rejected");
+    }
+}
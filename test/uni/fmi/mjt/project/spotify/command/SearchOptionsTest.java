@@ -0,0 +1,53 @@
+package uni.fmi.mjt.project.spotify.command;
+
+import org.junit.jupiter.api.Test;
+import uni.fmi.mjt.project.spotify.catalog.SearchMode;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SearchOptionsTest {
+    @Test
+    void testFromWithoutOptions() {
+        SearchOptions options = SearchOptions.from(List.of("queen", "rock"));
+
+        assertEquals(SearchMode.SUBSTRING, options.mode(), "Checks if keywords are matched as substrings by default");
+        assertEquals(List.of("queen", "rock"), options.keywords(), "Checks if every argument is a keyword");
+    }
+
+    @Test
+    void testFromSeparatesOptions() {
+        SearchOptions options = SearchOptions.from(List.of("queen", "--ALL", "rock"));
+
+        assertEquals(SearchMode.ALL, options.mode(), "Checks if the option is recognized anywhere among the keywords");
+        assertEquals(List.of("queen", "rock"), options.keywords(), "Checks if the option isn't a keyword");
+        assertEquals(SearchMode.ANY, SearchOptions.from(List.of("--any", "queen")).mode(),
+                "Checks if the any option is recognized");
+        assertEquals(SearchMode.FUZZY, SearchOptions.from(List.of("--fuzzy", "bohemain")).mode(),
+                "Checks if the fuzzy option is recognized");
+    }
+
+    @Test
+    void testFromPage() {
+        SearchOptions options = SearchOptions.from(List.of("queen", "--offset=20", "--LIMIT=10"));
+
+        assertEquals(20, options.offset(), "Checks if the offset is parsed");
+        assertEquals(10, options.limit(), "Checks if the limit is parsed");
+        assertEquals(List.of("queen"), options.keywords(), "Checks if the page options aren't keywords");
+        assertEquals(0, SearchOptions.from(List.of("queen")).offset(), "Checks if a search starts at the first song");
+        assertEquals(SearchOptions.DEFAULT_LIMIT, SearchOptions.from(List.of("queen")).limit(),
+                "Checks if a search without a limit gets the default one");
+    }
+
+    @Test
+    void testFromInvalidPage() {
+        assertThrows(IllegalArgumentException.class, () -> SearchOptions.from(List.of("queen", "--offset=-1")),
+                "Throws IllegalArgumentException when the offset is negative");
+        assertThrows(IllegalArgumentException.class, () -> SearchOptions.from(List.of("queen", "--limit=0")),
+                "Throws IllegalArgumentException when the limit isn't positive");
+        assertThrows(IllegalArgumentException.class, () -> SearchOptions.from(List.of("queen", "--limit=many")),
+                "Throws IllegalArgumentException when the limit isn't a number");
+    }
+}
@@ -0,0 +1,96 @@
+package uni.fmi.mjt.project.spotify.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uni.fmi.mjt.project.spotify.command.CommandType;
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+import uni.fmi.mjt.project.spotify.streaming.PacingPolicy;
+import uni.fmi.mjt.project.spotify.utility.MessageFrame;
+import uni.fmi.mjt.project.spotify.utility.codec.BinaryCodec;
+import uni.fmi.mjt.project.spotify.utility.codec.MessageCodec;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CommandDispatcherTest {
+    private static final int connectionBacklog = 2;
+    private static final int requestCount = 6;
+
+    private final MessageCodec codec = new BinaryCodec();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private CommandDispatcher dispatcher;
+    private EventLoop eventLoop;
+    private SocketChannel client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dispatcher = new CommandDispatcher(this::handle, codec, 1, requestCount, connectionBacklog);
+        eventLoop = new EventLoop(codec, dispatcher, 1024, PacingPolicy.UNPACED);
+        new Thread(eventLoop).start();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("localhost", 0));
+            client = SocketChannel.open(server.getLocalAddress());
+            eventLoop.register(server.accept());
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        release.countDown();
+        client.close();
+        eventLoop.shutdown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void testRejectedRequestsAreAnsweredInOrder() throws Exception {
+        for (int i = 0; i < requestCount; i++) {
+            MessageFrame.writeFrame(client, codec.encodeRequest(new ClientRequest("asd@abv.bg", "request " + i)));
+        }
+
+        long rejected = requestCount - connectionBacklog - 1;
+
+        while (dispatcher.getMetrics().rejected() < rejected) {
+            Thread.sleep(1);
+        }
+
+        release.countDown();
+
+        List<String> replies = new ArrayList<>();
+
+        for (int i = 0; i < requestCount; i++) {
+            replies.add(codec.decodeResponse(MessageFrame.readFrame(client).payload()).getMessage());
+        }
+
+        List<String> expected = new ArrayList<>(List.of("request 0", "request 1", "request 2"));
+
+        while (expected.size() < requestCount) {
+            expected.add("The server is busy at the moment. Please try again.");
+        }
+
+        assertEquals(expected, replies,
+                "Checks if the requests over the backlog are answered after the requests sent before them");
+    }
+
+    private ServerResponse handle(ClientRequest request, RequestContext context) {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return ServerResponse.builder(CommandType.SEARCH, request.message()).build();
+    }
+}
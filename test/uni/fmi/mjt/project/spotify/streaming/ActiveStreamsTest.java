@@ -0,0 +1,85 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import org.junit.jupiter.api.Test;
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ActiveStreamsTest {
+    private static final String email = "asd@abv.bg";
+    private static final String songPath = "Music/Short.wav";
+
+    @Test
+    void testOpenCancelsPreviousStreamOfUser() {
+        ActiveStreams streams = new ActiveStreams();
+        StreamHandle first = streams.open(email, song(songPath));
+        StreamHandle second = streams.open(email, song(songPath));
+
+        assertTrue(first.isCancelled(), "Checks if a new play cancels the previous stream of the user");
+        assertFalse(second.isCancelled(), "Checks if the new stream keeps running");
+        assertEquals(1, streams.size(), "Checks if a user has at most one active stream");
+    }
+
+    @Test
+    void testOpenDoesntCancelStreamsOfOtherUsers() {
+        ActiveStreams streams = new ActiveStreams();
+        StreamHandle first = streams.open(email, song(songPath));
+        streams.open("other@abv.bg", song(songPath));
+
+        assertFalse(first.isCancelled(), "Checks if a play of another user doesn't cancel the stream");
+    }
+
+    @Test
+    void testCancelRunsCanceller() {
+        ActiveStreams streams = new ActiveStreams();
+        AtomicInteger cancellations = new AtomicInteger();
+        StreamHandle stream = streams.open(email, song(songPath));
+        stream.onCancel(cancellations::incrementAndGet);
+
+        assertTrue(streams.cancel(email), "Checks if the active stream of the user is cancelled");
+        assertFalse(streams.cancel(email), "Checks if there is nothing left to cancel");
+        assertEquals(1, cancellations.get(), "Checks if the canceller runs exactly once");
+    }
+
+    @Test
+    void testCancellerAttachedAfterCancelRunsRightAway() {
+        ActiveStreams streams = new ActiveStreams();
+        AtomicInteger cancellations = new AtomicInteger();
+        StreamHandle stream = streams.open(email, song(songPath));
+
+        streams.cancel(email);
+        stream.onCancel(cancellations::incrementAndGet);
+
+        assertEquals(1, cancellations.get(), "Checks if a stream cancelled before it started is stopped right away");
+    }
+
+    @Test
+    void testReleasedStreamIsNotCancelled() {
+        ActiveStreams streams = new ActiveStreams();
+        StreamHandle stream = streams.open(email, song(songPath));
+        stream.release();
+
+        assertFalse(streams.cancel(email), "Checks if a finished stream isn't cancelled");
+        assertEquals(0, streams.getMetrics().cancelled(), "Checks if a finished stream isn't counted as cancelled");
+    }
+
+    @Test
+    void testMetricsCountCancelledBytes() {
+        ActiveStreams streams = new ActiveStreams();
+        StreamHandle stream = streams.open(email, song(songPath));
+        stream.onCancel(() -> stream.recordCancelledBytes(1_000));
+
+        streams.cancel(email);
+
+        assertEquals(1, streams.getMetrics().cancelled(), "Checks if the cancelled stream is counted");
+        assertEquals(1_000, streams.getMetrics().cancelledBytes(), "Checks if the unsent bytes are counted");
+    }
+
+    private static StreamableSong song(String path) {
+        return new StreamableSong("song", path, null);
+    }
+}
@@ -0,0 +1,101 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BroadcastTest {
+    private static final int songSize = 1000;
+    private static final int chunkSize = 300;
+    private static final int ringChunks = 2;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testChunksCoverStreamedRange() throws IOException {
+        Broadcast broadcast = open(100, Long.MAX_VALUE);
+
+        assertEquals(3, broadcast.getChunks(), "Checks if the range is split in chunks of at most chunkSize");
+        assertEquals(300, broadcast.lengthOf(2), "Checks if the last chunk ends at the end of the song");
+
+        for (long chunk = 0; chunk < broadcast.getChunks(); chunk++) {
+            ByteBuffer data = broadcast.chunk(chunk, subscriber -> { });
+
+            assertEquals((byte) broadcast.positionOf(chunk), data.get(0),
+                    "Checks if the chunk holds the bytes at its position in the song");
+            assertEquals(broadcast.lengthOf(chunk), data.remaining(), "Checks if the whole chunk is read");
+        }
+
+        broadcast.close();
+    }
+
+    @Test
+    void testReadingPastRingOverrunsSubscribersBehind() throws IOException {
+        Broadcast broadcast = open(0, Long.MAX_VALUE);
+        BroadcastSubscriber behind = subscriber(broadcast);
+        List<BroadcastSubscriber> overrun = new ArrayList<>();
+        broadcast.join(behind);
+
+        broadcast.chunk(0, overrun::add);
+        broadcast.chunk(1, overrun::add);
+
+        assertTrue(overrun.isEmpty(), "Checks if nothing is overwritten while the ring has room");
+
+        broadcast.chunk(2, overrun::add);
+
+        assertEquals(List.of(behind), overrun, "Checks if the subscriber still at the first chunk is overrun");
+        assertNull(broadcast.chunk(0, overrun::add), "Checks if the replaced chunk is no longer in the ring");
+        broadcast.close();
+    }
+
+    @Test
+    void testJoinableWhileFirstChunkInRing() throws IOException {
+        Broadcast broadcast = open(0, Long.MAX_VALUE);
+
+        broadcast.chunk(0, subscriber -> { });
+        broadcast.chunk(1, subscriber -> { });
+
+        assertTrue(broadcast.isJoinable(), "Checks if a listener can join while the first chunk is kept");
+
+        broadcast.chunk(2, subscriber -> { });
+
+        assertFalse(broadcast.isJoinable(), "Checks if a listener can't join once the first chunk is gone");
+        broadcast.close();
+    }
+
+    private Broadcast open(long start, long end) throws IOException {
+        byte[] content = new byte[songSize];
+
+        for (int i = 0; i < songSize; i++) {
+            content[i] = (byte) i;
+        }
+
+        Path song = Files.write(directory.resolve("song.wav"), content);
+
+        return Broadcast.open(new Broadcast.Key(song.toString(), null, start, end), FileSongSource.open(song),
+                chunkSize, ringChunks);
+    }
+
+    private static BroadcastSubscriber subscriber(Broadcast broadcast) {
+        SelectionKey key = mock(SelectionKey.class);
+        when(key.channel()).thenReturn(mock(SocketChannel.class));
+
+        return new BroadcastSubscriber(key, null, StreamPacer.unpaced(), broadcast);
+    }
+}
@@ -0,0 +1,169 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+import uni.fmi.mjt.project.spotify.utility.WavHeader;
+import uni.fmi.mjt.project.spotify.utility.lossless.LosslessDecoder;
+import uni.fmi.mjt.project.spotify.utility.lossless.LosslessFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LosslessCacheTest {
+    private static final int sampleRate = 8000;
+    private static final int frames = 3 * LosslessFormat.BLOCK_FRAMES + 500;
+    private static final int headerSize = 44;
+    private static final Format format = new Format("PCM_SIGNED", sampleRate, 16, 2, 4, sampleRate, false);
+    private static final long ENCODE_TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testOpenEncodesSongLosslessly() throws IOException {
+        StreamableSong song = song(0);
+        EncodedSong encoded = new LosslessCache(directory.resolve("cache")).open(song, header(song));
+
+        assertArrayEquals(samples(song, 0), decode(encoded, encoded.offsetOf(headerSize)),
+                "Checks if the encoding decodes to the samples");
+        assertTrue(encoded.getRatio() < 0.5, "Checks if a smooth song is encoded to less than half its size");
+    }
+
+    @Test
+    void testOpenReusesEncodingOnDisk() throws IOException {
+        StreamableSong song = song(0);
+        Path cache = directory.resolve("cache");
+        EncodedSong encoded = new LosslessCache(cache).open(song, header(song));
+        Files.setLastModifiedTime(encoded.getFile(), FileTime.fromMillis(0));
+
+        EncodedSong reopened = new LosslessCache(cache).open(song, header(song));
+
+        assertEquals(encoded.getFile(), reopened.getFile(), "Checks if the same file is used");
+        assertEquals(FileTime.fromMillis(0), Files.getLastModifiedTime(reopened.getFile()),
+                "Checks if a restarted cache doesn't encode the song again");
+    }
+
+    @Test
+    void testOpenReencodesChangedSong() throws IOException {
+        StreamableSong song = song(0);
+        LosslessCache cache = new LosslessCache(directory.resolve("cache"));
+        cache.open(song, header(song));
+
+        song = song(1000);
+        Files.setLastModifiedTime(Path.of(song.getPath()), FileTime.fromMillis(0));
+        EncodedSong encoded = cache.open(song, header(song));
+
+        assertArrayEquals(samples(song, 0), decode(encoded, encoded.offsetOf(headerSize)),
+                "Checks if the new samples are encoded");
+    }
+
+    @Test
+    void testOpenOrEncodeLaterDoesntWaitForTheEncoding() throws IOException, InterruptedException {
+        StreamableSong song = song(0);
+        LosslessCache cache = new LosslessCache(directory.resolve("cache"));
+
+        assertNull(cache.openOrEncodeLater(song, header(song)), "Checks if the first play doesn't wait to encode");
+
+        EncodedSong encoded = null;
+        long deadline = System.currentTimeMillis() + ENCODE_TIMEOUT_MILLIS;
+
+        while (encoded == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            encoded = cache.openOrEncodeLater(song, header(song));
+        }
+
+        assertNotNull(encoded, "Checks if the song is encoded in the background");
+        assertArrayEquals(samples(song, 0), decode(encoded, encoded.offsetOf(headerSize)),
+                "Checks if the background encoding has the samples of the song");
+    }
+
+    @Test
+    void testSongsWithTheSameNameAreKeptApart() throws IOException {
+        StreamableSong first = song(0);
+        StreamableSong second = song(1000, Files.createDirectories(directory.resolve("Queen")).resolve("song.wav"));
+        LosslessCache cache = new LosslessCache(directory.resolve("cache"));
+
+        EncodedSong firstEncoded = cache.open(first, header(first));
+        EncodedSong secondEncoded = cache.open(second, header(second));
+
+        assertNotEquals(firstEncoded.getFile(), secondEncoded.getFile(), "Checks if each song has its own file");
+        assertSame(firstEncoded, cache.open(first, header(first)), "Checks if the first song isn't encoded again");
+        assertArrayEquals(samples(first, 0), decode(firstEncoded, firstEncoded.offsetOf(headerSize)),
+                "Checks if the first song keeps its samples");
+    }
+
+    @Test
+    void testOffsetOfStartsAtBlock() throws IOException {
+        StreamableSong song = song(0);
+        EncodedSong encoded = new LosslessCache(directory.resolve("cache")).open(song, header(song));
+        int frame = 2 * LosslessFormat.BLOCK_FRAMES + 10;
+
+        long offset = encoded.offsetOf(headerSize + (long) frame * format.getFrameSize());
+
+        assertNotEquals(0, offset, "Checks if a later position starts after the first block");
+        assertArrayEquals(samples(song, 2 * LosslessFormat.BLOCK_FRAMES), decode(encoded, offset),
+                "Checks if the stream starts at the block holding the frame");
+        assertEquals(encoded.getEnd(), encoded.offsetOf(Long.MAX_VALUE / 2),
+                "Checks if a position past the song is its end");
+    }
+
+    private static byte[] decode(EncodedSong encoded, long offset) throws IOException {
+        byte[] file = Files.readAllBytes(encoded.getFile());
+        ByteArrayOutputStream pcm = new ByteArrayOutputStream();
+
+        new LosslessDecoder(format, pcm).write(file, (int) offset, (int) (encoded.getEnd() - offset));
+
+        return pcm.toByteArray();
+    }
+
+    private static byte[] samples(StreamableSong song, int fromFrame) throws IOException {
+        byte[] wav = Files.readAllBytes(Path.of(song.getPath()));
+
+        return Arrays.copyOfRange(wav, headerSize + fromFrame * format.getFrameSize(), wav.length);
+    }
+
+    private static WavHeader header(StreamableSong song) throws IOException {
+        return WavHeader.read(Path.of(song.getPath()));
+    }
+
+    private StreamableSong song(int phase) throws IOException {
+        return song(phase, directory.resolve("song.wav"));
+    }
+
+    private StreamableSong song(int phase, Path file) throws IOException {
+        int dataLength = frames * 4;
+        ByteBuffer wav = ByteBuffer.allocate(headerSize + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(0).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) 1).putShort((short) 2).putInt(sampleRate).putInt(sampleRate * 4)
+                .putShort((short) 4).putShort((short) 16);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataLength);
+
+        for (int frame = 0; frame < frames; frame++) {
+            wav.putShort((short) (10_000 * Math.sin((frame + phase) / 30.0)))
+                    .putShort((short) (5_000 * Math.sin((frame + phase) / 17.0)));
+        }
+
+        Path path = Files.write(file, wav.array());
+
+        return new StreamableSong("song", path.toString(), format);
+    }
+}
@@ -0,0 +1,63 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class PcmKernelsTest {
+    @Test
+    void testDownmixStereoAveragesChannels() {
+        short[] samples = {100, 300, -200, -400, 32767, 32767};
+
+        PcmKernels.downmix(samples, 3, 2);
+
+        assertArrayEquals(new short[] {200, -300, 32767}, slice(samples, 3),
+                "Checks if every frame becomes the average of its two channels without overflowing");
+    }
+
+    @Test
+    void testDownmixMoreChannels() {
+        short[] samples = {3, 6, 9, -3, -6, -9};
+
+        PcmKernels.downmix(samples, 2, 3);
+
+        assertArrayEquals(new short[] {6, -6}, slice(samples, 2), "Checks if all channels are averaged");
+    }
+
+    @Test
+    void testDecimateAveragesFramesPerChannel() {
+        short[] samples = {10, 100, 20, 200, 30, 300, 40, 400};
+
+        PcmKernels.decimate(samples, 2, 2, 2);
+
+        assertArrayEquals(new short[] {15, 150, 35, 350}, slice(samples, 4),
+                "Checks if every two frames are averaged channel by channel");
+    }
+
+    @Test
+    void testDecimateByLargerRatio() {
+        short[] samples = {1, 2, 3, 10, 20, 30};
+
+        PcmKernels.decimate(samples, 2, 1, 3);
+
+        assertArrayEquals(new short[] {2, 20}, slice(samples, 2), "Checks if every three frames are averaged");
+    }
+
+    @Test
+    void testNarrowKeepsHighByte() {
+        short[] samples = {0x1234, -0x1234, 0x00FF, Short.MIN_VALUE};
+        byte[] narrowed = new byte[samples.length];
+
+        PcmKernels.narrow(samples, narrowed, samples.length);
+
+        assertArrayEquals(new byte[] {0x12, (byte) 0xED, 0, Byte.MIN_VALUE}, narrowed,
+                "Checks if the 8-bit samples are the high bytes of the 16-bit ones");
+    }
+
+    private static short[] slice(short[] samples, int length) {
+        short[] result = new short[length];
+        System.arraycopy(samples, 0, result, 0, length);
+
+        return result;
+    }
+}
@@ -0,0 +1,113 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+public class SongCacheTest {
+    private static final int songSize = 1000;
+
+    @TempDir
+    Path directory;
+
+    private final Map<String, Integer> plays = new HashMap<>();
+
+    @Test
+    void testOpenSharesMappingOfCachedSong() throws IOException {
+        SongCache cache = new SongCache(songSize, this::playCount);
+        StreamableSong song = song("first", songSize);
+
+        assertInstanceOf(MappedSongSource.class, cache.open(song), "Checks if a song that fits is mapped");
+        assertInstanceOf(MappedSongSource.class, cache.open(song), "Checks if the next stream uses the mapping");
+        assertEquals(new SongCacheMetrics(1, songSize, 1, 1, 0), cache.getMetrics(),
+                "Checks if the second stream is a hit on the same mapping");
+    }
+
+    @Test
+    void testOpenStreamsSongsOverBudgetFromFile() throws IOException {
+        SongCache cache = new SongCache(songSize - 1, this::playCount);
+
+        SongSource source = cache.open(song("first", songSize));
+        source.close();
+
+        assertInstanceOf(FileSongSource.class, source, "Checks if a song bigger than the budget isn't mapped");
+        assertEquals(0, cache.getMetrics().songs(), "Checks if nothing is cached");
+    }
+
+    @Test
+    void testOpenEvictsLessPlayedSongs() throws IOException {
+        SongCache cache = new SongCache(songSize, this::playCount);
+        StreamableSong cold = song("cold", songSize);
+        StreamableSong hot = song("hot", songSize);
+        plays.put("cold", 1);
+        plays.put("hot", 2);
+
+        cache.open(cold);
+
+        assertInstanceOf(MappedSongSource.class, cache.open(hot), "Checks if a hotter song takes the place");
+        assertEquals(1, cache.getMetrics().evictions(), "Checks if the colder song was evicted");
+
+        SongSource source = cache.open(cold);
+        source.close();
+
+        assertInstanceOf(FileSongSource.class, source, "Checks if a colder song doesn't evict a hotter one");
+    }
+
+    @Test
+    void testOpenRemapsChangedSong() throws IOException {
+        SongCache cache = new SongCache(2 * songSize, this::playCount);
+        StreamableSong song = song("first", songSize);
+        Path path = Path.of(song.getPath());
+
+        cache.open(song);
+        Files.write(path, new byte[2 * songSize]);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(0));
+
+        assertEquals(2 * songSize, cache.open(song).size(), "Checks if the new content of the song is mapped");
+        assertEquals(2 * songSize, cache.getMetrics().usedBytes(), "Checks if the old mapping is dropped");
+    }
+
+    @Test
+    void testMappedSourceTransfersRange() throws IOException {
+        SongCache cache = new SongCache(songSize, this::playCount);
+        StreamableSong song = song("first", songSize);
+        byte[] content = Files.readAllBytes(Path.of(song.getPath()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = cache.open(song).transferTo(songSize - 10, 100, Channels.newChannel(out));
+
+        assertEquals(10, written, "Checks if the transfer stops at the end of the song");
+        assertArrayEquals(Arrays.copyOfRange(content, songSize - 10, songSize), out.toByteArray(),
+                "Checks if the bytes come from the requested position");
+    }
+
+    private int playCount(String songName) {
+        return plays.getOrDefault(songName, 0);
+    }
+
+    private StreamableSong song(String name, int size) throws IOException {
+        byte[] content = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) i;
+        }
+
+        Path path = Files.write(directory.resolve(name + ".wav"), content);
+
+        return new StreamableSong(name, path.toString(), null);
+    }
+}
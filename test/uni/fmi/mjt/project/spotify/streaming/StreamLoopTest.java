@@ -0,0 +1,56 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StreamLoopTest {
+    private static final long handshakeTimeoutMillis = 100;
+
+    private StreamLoop loop;
+    private SocketChannel client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        loop = new StreamLoop(1024, 0, handshakeTimeoutMillis, new StreamSessions(10_000), PacingPolicy.UNPACED,
+                handle -> loop);
+        new Thread(loop).start();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("localhost", 0));
+            client = SocketChannel.open(server.getLocalAddress());
+            loop.add(server.accept());
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        loop.shutdown();
+    }
+
+    @Test
+    void testConnectionWithoutTokenIsClosed() throws IOException {
+        client.socket().setSoTimeout(10_000);
+
+        assertEquals(-1, client.socket().getInputStream().read(new byte[1]),
+                "Checks if a connection that never presents its token is closed after the handshake timeout");
+    }
+
+    @Test
+    void testPartialTokenDoesNotExtendTheDeadline() throws IOException {
+        client.write(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+        client.socket().setSoTimeout(10_000);
+
+        assertEquals(-1, client.socket().getInputStream().read(new byte[1]),
+                "Checks if a connection that sends only part of its token is closed after the handshake timeout");
+    }
+}
@@ -0,0 +1,54 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamPacerTest {
+    private static final long bytesPerSecond = 100_000;
+    private static final int chunkSize = 10_000;
+
+    @Test
+    void testPrerollIsSentRightAway() {
+        StreamPacer pacer = new StreamPacer(bytesPerSecond, 3 * chunkSize, chunkSize);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, pacer.delayNanos(chunkSize), "Checks if the pre-roll burst isn't delayed");
+            pacer.consume(chunkSize);
+        }
+    }
+
+    @Test
+    void testChunksAfterPrerollAreDelayedByTheRate() {
+        StreamPacer pacer = new StreamPacer(bytesPerSecond, chunkSize, chunkSize);
+        pacer.consume(chunkSize);
+
+        long delay = pacer.delayNanos(chunkSize);
+
+        assertTrue(delay > 90_000_000L && delay <= 100_000_000L,
+                "Checks if a chunk after the burst waits for about chunkSize / rate, got " + delay + " ns");
+    }
+
+    @Test
+    void testIdleStreamGetsAtMostOneChunkOfCredit() throws InterruptedException {
+        StreamPacer pacer = new StreamPacer(bytesPerSecond, chunkSize, chunkSize);
+        pacer.consume(chunkSize);
+
+        Thread.sleep(300);
+
+        assertEquals(0, pacer.delayNanos(chunkSize), "Checks if the stream may send after being idle");
+        pacer.consume(chunkSize);
+        assertTrue(pacer.delayNanos(chunkSize) > 0, "Checks if an idle stream doesn't collect a second burst");
+    }
+
+    @Test
+    void testUnpacedStreamIsNeverDelayed() {
+        StreamPacer pacer = StreamPacer.unpaced();
+        pacer.consume(Long.MAX_VALUE / 2);
+
+        assertFalse(pacer.isPaced(), "Checks if the pacer is off");
+        assertEquals(0, pacer.delayNanos(chunkSize), "Checks if an unpaced stream is never delayed");
+    }
+}
@@ -0,0 +1,78 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import org.junit.jupiter.api.Test;
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class StreamSessionsTest {
+    private static final String songPath = "Music/Short.wav";
+
+    private final ActiveStreams streams = new ActiveStreams();
+
+    @Test
+    void testClaimRegisteredToken() {
+        StreamSessions sessions = new StreamSessions(10_000);
+        StreamHandle stream = streams.open("first@abv.bg", song(songPath));
+        String token = sessions.register(stream);
+
+        assertSame(stream, sessions.claim(token), "Checks if the token is matched to its stream");
+    }
+
+    @Test
+    void testClaimTokenOnlyOnce() {
+        StreamSessions sessions = new StreamSessions(10_000);
+        String token = sessions.register(streams.open("first@abv.bg", song(songPath)));
+        sessions.claim(token);
+
+        assertNull(sessions.claim(token), "Checks if a token can't be used for a second stream");
+    }
+
+    @Test
+    void testClaimUnknownToken() {
+        StreamSessions sessions = new StreamSessions(10_000);
+        sessions.register(streams.open("first@abv.bg", song(songPath)));
+
+        assertNull(sessions.claim("00000000-0000-0000-0000-000000000000"),
+                "Checks if an unknown token isn't matched to any stream");
+    }
+
+    @Test
+    void testConcurrentPlaysGetDifferentTokens() {
+        StreamSessions sessions = new StreamSessions(10_000);
+        String first = sessions.register(streams.open("first@abv.bg", song(songPath)));
+        String second = sessions.register(streams.open("second@abv.bg", song("Music/Other.wav")));
+
+        assertNotEquals(first, second, "Checks if every play gets its own token");
+        assertEquals("Music/Other.wav", sessions.claim(second).getSongPath(),
+                "Checks if the second token gets its own song");
+        assertEquals(songPath, sessions.claim(first).getSongPath(), "Checks if the first token gets its own song");
+    }
+
+    @Test
+    void testClaimExpiredToken() throws InterruptedException {
+        StreamSessions sessions = new StreamSessions(1);
+        String token = sessions.register(streams.open("first@abv.bg", song(songPath)));
+
+        Thread.sleep(20);
+
+        assertNull(sessions.claim(token), "Checks if an expired token isn't matched to its stream");
+    }
+
+    @Test
+    void testClaimTokenOfCancelledStream() {
+        StreamSessions sessions = new StreamSessions(10_000);
+        String token = sessions.register(streams.open("first@abv.bg", song(songPath)));
+
+        streams.cancel("first@abv.bg");
+
+        assertNull(sessions.claim(token), "Checks if a stream cancelled before it started can't be claimed");
+    }
+
+    private static StreamableSong song(String path) {
+        return new StreamableSong("song", path, null);
+    }
+}
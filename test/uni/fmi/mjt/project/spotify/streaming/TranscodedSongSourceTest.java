@@ -0,0 +1,129 @@
+package uni.fmi.mjt.project.spotify.streaming;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uni.fmi.mjt.project.spotify.dto.song.format.AudioQuality;
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+import uni.fmi.mjt.project.spotify.utility.WavHeader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TranscodedSongSourceTest {
+    private static final int sampleRate = 1000;
+    private static final int frames = 10_000;
+    private static final Format format = new Format("PCM_SIGNED", sampleRate, 16, 2, 4, sampleRate, false);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLowQualityIsMonoEightBit() throws IOException {
+        TranscodedSongSource source = open(AudioQuality.LOW);
+
+        assertEquals(new Format("PCM_SIGNED", sampleRate, 8, 1, 1, sampleRate, false), source.getFormat(),
+                "Checks if the low quality format is mono with 8-bit samples");
+        assertEquals(frames, source.size(), "Checks if every frame becomes a single byte");
+
+        byte[] bytes = transfer(source, 0, source.size());
+
+        for (int frame = 0; frame < frames; frame++) {
+            assertEquals((byte) (sample(frame) >> 8), bytes[frame], "Checks the sample of frame " + frame);
+        }
+    }
+
+    @Test
+    void testMinimalQualityHalvesSampleRate() throws IOException {
+        TranscodedSongSource source = open(AudioQuality.MINIMAL);
+
+        assertEquals(sampleRate / 2, source.getFormat().getSampleRate(), "Checks if the sample rate is halved");
+        assertEquals(frames / 2, source.size(), "Checks if every two frames become one byte");
+
+        byte[] bytes = transfer(source, 0, source.size());
+
+        assertEquals((byte) (((sample(8000) + sample(8001)) / 2) >> 8), bytes[4000],
+                "Checks if two consecutive frames are averaged");
+    }
+
+    @Test
+    void testMediumQualityKeepsSamplesAcrossBlocks() throws IOException {
+        TranscodedSongSource source = open(AudioQuality.MEDIUM);
+        long position = 2 * 4095 + 1;
+
+        byte[] whole = transfer(source, 0, source.size());
+        byte[] part = transfer(source, position, 5);
+
+        assertEquals(2L * frames, source.size(), "Checks if every frame becomes one 16-bit sample");
+        assertArrayEquals(Arrays.copyOfRange(whole, (int) position, (int) position + 5), part,
+                "Checks if a read that starts inside a sample and crosses blocks gets the same bytes");
+    }
+
+    @Test
+    void testOffsetOfMapsFileOffsetToFrame() throws IOException {
+        TranscodedSongSource source = open(AudioQuality.MINIMAL);
+        WavHeader header = WavHeader.read(directory.resolve("song.wav"));
+
+        assertEquals(500, source.offsetOf(header.offsetOf(1, format)),
+                "Checks if a second into the song is 500 frames into the transcoded samples");
+    }
+
+    @Test
+    void testHighQualityIsNotTranscoded() throws IOException {
+        assertFalse(AudioQuality.HIGH.transcodes(format), "Checks if the original quality streams the file");
+        assertThrows(IllegalArgumentException.class, () -> open(AudioQuality.HIGH),
+                "Checks if a quality that doesn't change the format is rejected");
+    }
+
+    private TranscodedSongSource open(AudioQuality quality) throws IOException {
+        Path song = writeWav(directory.resolve("song.wav"));
+
+        return new TranscodedSongSource(FileSongSource.open(song), WavHeader.read(song), format, quality);
+    }
+
+    private static byte[] transfer(SongSource source, long position, long count) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+
+        while (count > 0) {
+            long written = source.transferTo(position, count, channel);
+            position += written;
+            count -= written;
+        }
+
+        return out.toByteArray();
+    }
+
+    private static int sample(int frame) {
+        return (frame * 7) % Short.MAX_VALUE - Short.MAX_VALUE / 2;
+    }
+
+    private static Path writeWav(Path path) throws IOException {
+        int dataLength = frames * 4;
+        ByteBuffer wav = ByteBuffer.allocate(12 + 24 + 8 + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(0).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) 1).putShort((short) 2).putInt(sampleRate).putInt(sampleRate * 4)
+                .putShort((short) 4).putShort((short) 16);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataLength);
+
+        for (int frame = 0; frame < frames; frame++) {
+            wav.putShort((short) (sample(frame) - 1)).putShort((short) (sample(frame) + 1));
+        }
+
+        return Files.write(path, wav.array());
+    }
+}
@@ -0,0 +1,93 @@
+package uni.fmi.mjt.project.spotify.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrameDecoderTest {
+    private static final byte[] first = "first message".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] second = "second message".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testDrainFramesTwoFramesInOneRead() {
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(toBytes(MessageFrame.wrap(first)));
+        decoder.feed(toBytes(MessageFrame.wrap(second)));
+
+        List<Frame> frames = decoder.drainFrames();
+
+        assertEquals(2, frames.size(), "Checks if both frames are decoded from a single read");
+        assertArrayEquals(first, frames.get(0).payload(), "Checks if the first frame is decoded correctly");
+        assertArrayEquals(second, frames.get(1).payload(), "Checks if the second frame is decoded correctly");
+    }
+
+    @Test
+    void testDrainFramesPartialFrame() {
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] frame = toBytes(MessageFrame.wrap(first));
+
+        decoder.feed(Arrays.copyOfRange(frame, 0, 2));
+        assertTrue(decoder.drainFrames().isEmpty(), "Checks if a partial header doesn't produce a frame");
+
+        decoder.feed(Arrays.copyOfRange(frame, 2, 8));
+        assertTrue(decoder.drainFrames().isEmpty(), "Checks if a partial payload doesn't produce a frame");
+
+        decoder.feed(Arrays.copyOfRange(frame, 8, frame.length));
+        List<Frame> frames = decoder.drainFrames();
+
+        assertEquals(1, frames.size(), "Checks if the frame is decoded once all of its bytes arrive");
+        assertArrayEquals(first, frames.get(0).payload(), "Checks if the frame is decoded correctly");
+    }
+
+    @Test
+    void testDrainFramesLargerThanInitialBuffer() {
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] payload = new byte[10_000];
+        Arrays.fill(payload, (byte) 7);
+
+        decoder.feed(toBytes(MessageFrame.wrap(payload)));
+        List<Frame> frames = decoder.drainFrames();
+
+        assertEquals(1, frames.size(), "Checks if a frame bigger than the initial buffer is decoded");
+        assertArrayEquals(payload, frames.get(0).payload(), "Checks if the big frame is decoded correctly");
+    }
+
+    @Test
+    void testDrainFramesKeepsFrameTypes() {
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(toBytes(MessageFrame.wrap(first)));
+        decoder.feed(toBytes(MessageFrame.wrap(MessageFrame.TYPE_AUDIO, second)));
+        decoder.feed(toBytes(MessageFrame.wrap(MessageFrame.TYPE_AUDIO_END, new byte[0])));
+
+        List<Frame> frames = decoder.drainFrames();
+
+        assertEquals(MessageFrame.TYPE_MESSAGE, frames.get(0).type(), "Checks if a message frame keeps its type");
+        assertEquals(MessageFrame.TYPE_AUDIO, frames.get(1).type(), "Checks if an audio frame keeps its type");
+        assertEquals(MessageFrame.TYPE_AUDIO_END, frames.get(2).type(),
+                "Checks if an empty audio end frame is decoded");
+    }
+
+    @Test
+    void testDrainFramesTooLargeFrame() {
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(ByteBuffer.allocate(MessageFrame.HEADER_SIZE).putInt(MessageFrame.MAX_PAYLOAD_SIZE + 1).array());
+
+        assertThrows(IllegalArgumentException.class, decoder::drainFrames,
+                "Throws IllegalArgumentException when the header announces a too large payload");
+    }
+
+    private byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+}
@@ -0,0 +1,63 @@
+package uni.fmi.mjt.project.spotify.utility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WavHeaderCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testGetReusesHeaderOfUnchangedFile() throws IOException {
+        WavHeaderCache cache = new WavHeaderCache();
+        Path song = writeWav(directory.resolve("song.wav"), 2);
+
+        WavHeader header = cache.get(song);
+
+        assertSame(header, cache.get(song), "Checks if the header of a known song isn't parsed again");
+        assertEquals(1, cache.getHits(), "Checks if the second lookup is a hit");
+        assertEquals(1, cache.getMisses(), "Checks if only the first lookup parsed the file");
+    }
+
+    @Test
+    void testGetParsesChangedFileAgain() throws IOException {
+        WavHeaderCache cache = new WavHeaderCache();
+        Path song = writeWav(directory.resolve("song.wav"), 2);
+        cache.get(song);
+
+        writeWav(song, 1);
+        Files.setLastModifiedTime(song, FileTime.fromMillis(0));
+
+        assertEquals(1, cache.get(song).format().getChannels(), "Checks if the new format of the song is read");
+    }
+
+    @Test
+    void testGetMissingFile() {
+        assertThrows(IOException.class, () -> new WavHeaderCache().get(directory.resolve("missing.wav")),
+                "Checks if a song that doesn't exist is reported");
+    }
+
+    private static Path writeWav(Path path, int channels) throws IOException {
+        ByteBuffer wav = ByteBuffer.allocate(12 + 24 + 8 + 4 * channels).order(ByteOrder.LITTLE_ENDIAN);
+
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(0).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) 1).putShort((short) channels).putInt(8000).putInt(8000 * 2 * channels)
+                .putShort((short) (2 * channels)).putShort((short) 16);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(4 * channels);
+
+        return Files.write(path, wav.array());
+    }
+}
@@ -0,0 +1,123 @@
+package uni.fmi.mjt.project.spotify.utility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WavHeaderTest {
+    private static final int sampleRate = 1000;
+    private static final int frameSize = 4;
+    private static final int dataLength = 10 * sampleRate * frameSize;
+    private static final Format format =
+            new Format("PCM_SIGNED", sampleRate, 16, 2, frameSize, sampleRate, false);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadFindsDataChunkAfterOtherChunks() throws IOException {
+        Path song = writeWav(directory.resolve("song.wav"), true);
+
+        WavHeader header = WavHeader.read(song);
+
+        assertEquals(frameSize, header.blockAlign(), "Checks if the block align is read from the fmt chunk");
+        assertEquals(12 + 24 + 8 + 4 + 8, header.dataOffset(),
+                "Checks if the data chunk is found after the fmt and list chunks");
+        assertEquals(dataLength, header.dataLength(), "Checks if the length of the samples is read");
+    }
+
+    @Test
+    void testReadParsesFormat() throws IOException {
+        WavHeader header = WavHeader.read(writeWav(directory.resolve("song.wav"), true));
+
+        assertEquals(format, header.format(), "Checks if the format is read from the fmt chunk");
+    }
+
+    @Test
+    void testReadUnknownEncodingHasNoFormat() throws IOException {
+        Path song = writeWav(directory.resolve("song.wav"), false);
+        byte[] bytes = Files.readAllBytes(song);
+        bytes[20] = 0x55;
+        Files.write(song, bytes);
+
+        assertNull(WavHeader.read(song).format(), "Checks if an encoding that can't be played has no format");
+    }
+
+    @Test
+    void testOffsetOfIsFrameAligned() throws IOException {
+        WavHeader header = WavHeader.read(writeWav(directory.resolve("song.wav"), false));
+
+        assertEquals(header.dataOffset() + 1500 * frameSize, header.offsetOf(1.5, format),
+                "Checks if the offset points at the frame that plays at the time");
+        assertEquals(header.dataOffset() + 1000 * frameSize, header.offsetOf(1.0009, format),
+                "Checks if the offset never points in the middle of a frame");
+    }
+
+    @Test
+    void testOffsetOfPastTheEndIsClamped() throws IOException {
+        WavHeader header = WavHeader.read(writeWav(directory.resolve("song.wav"), false));
+
+        assertEquals(header.dataEnd(), header.offsetOf(60, format), "Checks if seeking past the end stops at the end");
+        assertEquals(header.dataOffset(), header.offsetOf(0, format), "Checks if time 0 is the first sample");
+    }
+
+    @Test
+    void testOffsetOfAHugeTimeIsClamped() throws IOException {
+        WavHeader header = WavHeader.read(writeWav(directory.resolve("song.wav"), false));
+
+        assertEquals(header.dataEnd(), header.offsetOf(1e14, format),
+                "Checks if a time whose offset overflows a long stops at the end");
+        assertEquals(header.dataEnd(), header.offsetOf(Double.MAX_VALUE, format),
+                "Checks if the largest time stops at the end");
+    }
+
+    @Test
+    void testDurationOf() throws IOException {
+        WavHeader header = WavHeader.read(writeWav(directory.resolve("song.wav"), false));
+
+        assertEquals((double) header.dataLength() / frameSize / format.getFrameRate(), header.durationOf(format),
+                "Checks if the duration is the number of frames over the frame rate");
+        assertEquals(Double.POSITIVE_INFINITY, header.durationOf(null),
+                "Checks if the duration of samples without a frame rate is unknown");
+    }
+
+    @Test
+    void testReadNotAWavFile() throws IOException {
+        Path text = Files.writeString(directory.resolve("song.wav"), "definitely not a wav file");
+
+        assertThrows(IOException.class, () -> WavHeader.read(text), "Checks if a non-RIFF file is rejected");
+    }
+
+    private Path writeWav(Path path, boolean withListChunk) throws IOException {
+        ByteBuffer wav = ByteBuffer.allocate(12 + 24 + 12 + 8 + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(0).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) 1).putShort((short) 2).putInt(sampleRate).putInt(sampleRate * frameSize)
+                .putShort((short) frameSize).putShort((short) 16);
+
+        if (withListChunk) {
+            wav.put("LIST".getBytes(StandardCharsets.US_ASCII)).putInt(4)
+                    .put("INFO".getBytes(StandardCharsets.US_ASCII));
+        }
+
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataLength).put(new byte[dataLength]);
+        wav.flip();
+
+        byte[] bytes = new byte[wav.remaining()];
+        wav.get(bytes);
+
+        return Files.write(path, bytes);
+    }
+}
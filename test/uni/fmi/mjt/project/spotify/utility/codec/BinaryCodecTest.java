@@ -0,0 +1,119 @@
+package uni.fmi.mjt.project.spotify.utility.codec;
+
+import org.junit.jupiter.api.Test;
+import uni.fmi.mjt.project.spotify.command.CommandType;
+import uni.fmi.mjt.project.spotify.dto.request.ClientRequest;
+import uni.fmi.mjt.project.spotify.dto.response.ServerResponse;
+import uni.fmi.mjt.project.spotify.dto.song.StreamableSong;
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+import uni.fmi.mjt.project.spotify.dto.song.format.StreamEncoding;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryCodecTest {
+    private static final String email = "asd@abv.bg";
+    private final MessageCodec codec = new BinaryCodec();
+
+    @Test
+    void testRequestRoundTrip() {
+        ClientRequest request = new ClientRequest(email, "search \"бохемска рапсодия\" queen");
+
+        assertEquals(request, codec.decodeRequest(codec.encodeRequest(request)),
+                "Checks if a request survives encoding and decoding");
+    }
+
+    @Test
+    void testRequestNullEmailRoundTrip() {
+        ClientRequest request = new ClientRequest(null, "login");
+
+        assertNull(codec.decodeRequest(codec.encodeRequest(request)).userEmail(),
+                "Checks if a null string is decoded back as null");
+    }
+
+    @Test
+    void testResponseWithoutSongRoundTrip() {
+        ServerResponse response = ServerResponse.builder(CommandType.LOGIN, "Welcome " + email)
+                .setEmail(email).build();
+
+        ServerResponse decoded = codec.decodeResponse(codec.encodeResponse(response));
+
+        assertEquals(CommandType.LOGIN, decoded.getType(), "Checks if the type is decoded correctly");
+        assertEquals(response.getMessage(), decoded.getMessage(), "Checks if the message is decoded correctly");
+        assertEquals(email, decoded.getEmail(), "Checks if the email is decoded correctly");
+        assertNull(decoded.getSong(), "Checks if a missing song is decoded as null");
+        assertEquals(StreamEncoding.PCM, decoded.getStreamEncoding(), "Checks if songs are streamed as PCM by default");
+    }
+
+    @Test
+    void testResponseStreamEncodingRoundTrip() {
+        ServerResponse response = ServerResponse.builder(CommandType.PLAY, "Playing song \"Short\"")
+                .setStreamToken("token").setStreamEncoding(StreamEncoding.LOSSLESS).build();
+
+        ServerResponse decoded = codec.decodeResponse(codec.encodeResponse(response));
+
+        assertEquals(StreamEncoding.LOSSLESS, decoded.getStreamEncoding(), "Checks if the stream encoding is decoded");
+        assertEquals("token", decoded.getStreamToken(), "Checks if the fields after it are still in place");
+    }
+
+    @Test
+    void testResponseWithSongRoundTrip() {
+        Format format = new Format("PCM_SIGNED", 44_100.0f, 16, 2, 4, 44_100.0f, false);
+        StreamableSong song = new StreamableSong("Short", "Music/Short.wav", format);
+        ServerResponse response = ServerResponse.builder(CommandType.PLAY, "Playing song \"Short\"")
+                .setSong(song).build();
+
+        StreamableSong decoded = codec.decodeResponse(codec.encodeResponse(response)).getSong();
+        Format decodedFormat = decoded.getFormat();
+
+        assertEquals("Short", decoded.getName(), "Checks if the song name is decoded correctly");
+        assertEquals("Music/Short.wav", decoded.getPath(), "Checks if the song path is decoded correctly");
+        assertEquals(format.getAsAudioFormat().toString(), decodedFormat.getAsAudioFormat().toString(),
+                "Checks if the song format is decoded correctly");
+    }
+
+    @Test
+    void testResponseSmallerThanSerialization() {
+        ServerResponse response = ServerResponse.builder(CommandType.STOP, "Song stopped").build();
+
+        int binarySize = codec.encodeResponse(response).length;
+        int serializedSize = new SerializationCodec().encodeResponse(response).length;
+
+        assertTrue(binarySize < serializedSize,
+                "Checks if the binary encoding is smaller than the java serialization one");
+    }
+
+    @Test
+    void testDecodeTruncatedMessage() {
+        byte[] bytes = codec.encodeRequest(new ClientRequest(email, "top 10"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> codec.decodeRequest(Arrays.copyOf(bytes, bytes.length - 1)),
+                "Throws IllegalArgumentException when the message is truncated");
+    }
+
+    @Test
+    void testCommandTypeCodesDontChange() {
+        byte[] bytes = codec.encodeResponse(ServerResponse.builder(CommandType.STOP, "Song stopped").build());
+
+        assertEquals(9, bytes[0], "Checks if a command type is sent as its fixed code");
+
+        bytes[0] = 10;
+
+        assertEquals(CommandType.ERROR, codec.decodeResponse(bytes).getType(),
+                "Checks if a fixed code is decoded as its command type");
+    }
+
+    @Test
+    void testDecodeUnknownCommandType() {
+        byte[] bytes = codec.encodeResponse(ServerResponse.builder(CommandType.SEARCH, "message").build());
+        bytes[0] = (byte) 0xFF;
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decodeResponse(bytes),
+                "Throws IllegalArgumentException when the command type is unknown");
+    }
+}
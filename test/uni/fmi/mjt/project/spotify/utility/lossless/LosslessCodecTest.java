@@ -0,0 +1,142 @@
+package uni.fmi.mjt.project.spotify.utility.lossless;
+
+import org.junit.jupiter.api.Test;
+import uni.fmi.mjt.project.spotify.dto.song.format.Format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LosslessCodecTest {
+    private static final Format stereo = new Format("PCM_SIGNED", 44_100.0f, 16, 2, 4, 44_100.0f, false);
+    private static final Format monoBigEndian = new Format("PCM_SIGNED", 8_000.0f, 16, 1, 2, 8_000.0f, true);
+    private static final int frames = 3 * LosslessFormat.BLOCK_FRAMES + 123;
+
+    @Test
+    void testRoundTripOfSmoothSignalIsSmaller() throws IOException {
+        short[] samples = new short[frames * 2];
+
+        for (int frame = 0; frame < frames; frame++) {
+            samples[2 * frame] = (short) (12_000 * Math.sin(frame / 20.0));
+            samples[2 * frame + 1] = (short) (8_000 * Math.cos(frame / 35.0));
+        }
+
+        byte[] pcm = pcm(samples, stereo);
+        byte[] encoded = encode(pcm, stereo);
+
+        assertArrayEquals(pcm, decode(encoded, stereo, encoded.length), "Checks if the samples are decoded exactly");
+        assertTrue(encoded.length < pcm.length / 2, "Checks if a smooth signal is compressed to less than half");
+    }
+
+    @Test
+    void testRoundTripOfNoiseAndExtremes() throws IOException {
+        Random random = new Random(16);
+        short[] samples = new short[frames];
+
+        for (int frame = 0; frame < frames; frame++) {
+            samples[frame] = (short) random.nextInt();
+        }
+
+        samples[0] = Short.MIN_VALUE;
+        samples[1] = Short.MAX_VALUE;
+        samples[2] = Short.MIN_VALUE;
+
+        byte[] pcm = pcm(samples, monoBigEndian);
+        byte[] encoded = encode(pcm, monoBigEndian);
+
+        assertArrayEquals(pcm, decode(encoded, monoBigEndian, encoded.length),
+                "Checks if white noise and full-scale samples are decoded exactly");
+        assertTrue(encoded.length <= pcm.length + 4 * 8, "Checks if noise is stored verbatim instead of growing");
+    }
+
+    @Test
+    void testRoundTripOfRareSpikesEscapesResiduals() throws IOException {
+        short[] samples = new short[frames];
+
+        for (int frame = 0; frame < frames; frame += 500) {
+            samples[frame] = frame % 1000 == 0 ? Short.MAX_VALUE : Short.MIN_VALUE;
+        }
+
+        byte[] pcm = pcm(samples, monoBigEndian);
+        byte[] encoded = encode(pcm, monoBigEndian);
+
+        assertArrayEquals(pcm, decode(encoded, monoBigEndian, encoded.length),
+                "Checks if residuals too big for the Rice code are decoded exactly");
+        assertTrue(encoded.length < pcm.length / 4, "Checks if near silence is still compressed");
+    }
+
+    @Test
+    void testDecodeInPieces() throws IOException {
+        short[] samples = new short[frames * 2];
+
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (i * 7 % 3000);
+        }
+
+        byte[] pcm = pcm(samples, stereo);
+        byte[] encoded = encode(pcm, stereo);
+
+        assertArrayEquals(pcm, decode(encoded, stereo, 1), "Checks if blocks fed a byte at a time are decoded");
+        assertArrayEquals(pcm, decode(encoded, stereo, 1000), "Checks if blocks split across writes are decoded");
+    }
+
+    @Test
+    void testDecodeMalformedBlock() {
+        LosslessDecoder decoder = new LosslessDecoder(stereo, new ByteArrayOutputStream());
+
+        assertThrows(IOException.class, () -> decoder.write(new byte[] {-1, -1, -1, -1}),
+                "Checks if a block longer than any valid one is rejected");
+    }
+
+    @Test
+    void testEncodeUnsupportedFormat() {
+        Format eightBit = new Format("PCM_SIGNED", 8_000.0f, 8, 1, 1, 8_000.0f, false);
+
+        assertThrows(IllegalArgumentException.class, () -> new LosslessEncoder(eightBit),
+                "Checks if only 16-bit PCM is accepted");
+    }
+
+    private static byte[] pcm(short[] samples, Format format) {
+        ByteBuffer buffer = ByteBuffer.allocate(samples.length * 2)
+                .order(format.isBigEndian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+
+        for (short sample : samples) {
+            buffer.putShort(sample);
+        }
+
+        return buffer.array();
+    }
+
+    private static byte[] encode(byte[] pcm, Format format) {
+        LosslessEncoder encoder = new LosslessEncoder(format);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ByteBuffer input = ByteBuffer.wrap(pcm);
+
+        while (input.hasRemaining()) {
+            ByteBuffer block = encoder.encode(input);
+            encoded.write(block.array(), block.arrayOffset() + block.position(), block.remaining());
+        }
+
+        return encoded.toByteArray();
+    }
+
+    private static byte[] decode(byte[] encoded, Format format, int pieceSize) throws IOException {
+        ByteArrayOutputStream pcm = new ByteArrayOutputStream();
+        LosslessDecoder decoder = new LosslessDecoder(format, pcm);
+
+        for (int offset = 0; offset < encoded.length; offset += pieceSize) {
+            decoder.write(encoded, offset, Math.min(pieceSize, encoded.length - offset));
+        }
+
+        assertEquals(0, decoder.pending(), "Checks if no block is left incomplete");
+
+        return pcm.toByteArray();
+    }
+}